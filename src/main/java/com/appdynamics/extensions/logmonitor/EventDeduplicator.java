@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Collapses the events of a log that only differ by their timestamps, numbers and hex IDs into one event carrying the
+ * number of matches and the time of the first and last of them. Events are held from the first match until
+ * {@link #drain()} is called at the end of the scan, so only events of the same run are collapsed.
+ *
+ * <p> The table holds at most {@code maxEvents} distinct events. Once it is full, events that are not already in it
+ * are returned by {@link #add(LogEvent)} to be published right away, while the events in the table keep counting
+ * their repeats. </p>
+ */
+public class EventDeduplicator {
+    private static final Pattern VARIABLE_PARTS = Pattern.compile(
+            "\\d{4}-\\d{2}-\\d{2}[T ]\\d{2}:\\d{2}:\\d{2}([.,]\\d+)?(Z|[+-]\\d{2}:?\\d{2})?" +
+                    "|\\d{1,2}:\\d{2}:\\d{2}([.,]\\d+)?" +
+                    "|\\b(0[xX])?[0-9a-fA-F]*\\d[0-9a-fA-F]*\\b" +
+                    "|\\d+");
+    private static final String MASK = "#";
+    private int maxEvents;
+    private Map<String, LogEvent> events = new LinkedHashMap<String, LogEvent>();
+
+    public EventDeduplicator(int maxEvents) {
+        this.maxEvents = maxEvents;
+    }
+
+    /**
+     * @return the fingerprint of the event, its search pattern and its log match with the variable parts masked
+     */
+    static String fingerprint(LogEvent logEvent) {
+        return logEvent.getSearchPattern() + '\n' + VARIABLE_PARTS.matcher(logEvent.getLogMatch()).replaceAll(MASK);
+    }
+
+    /**
+     * @return null if the event was kept or added to the count of an earlier one, or the event itself if the table is
+     * full and it has to be published on its own
+     */
+    public synchronized LogEvent add(LogEvent logEvent) {
+        String fingerprint = fingerprint(logEvent);
+        LogEvent firstEvent = events.get(fingerprint);
+        if (firstEvent != null) {
+            firstEvent.setCount(firstEvent.getCount() + logEvent.getCount());
+            if (logEvent.getFirstSeen().compareTo(firstEvent.getFirstSeen()) < 0) {
+                firstEvent.setFirstSeen(logEvent.getFirstSeen());
+            }
+            if (logEvent.getLastSeen().compareTo(firstEvent.getLastSeen()) > 0) {
+                firstEvent.setLastSeen(logEvent.getLastSeen());
+            }
+            return null;
+        }
+        if (events.size() >= maxEvents) {
+            return logEvent;
+        }
+        events.put(fingerprint, logEvent);
+        return null;
+    }
+
+    /**
+     * @return the events kept so far, in the order of their first match, which are removed from the table
+     */
+    public synchronized List<LogEvent> drain() {
+        List<LogEvent> drained = new ArrayList<LogEvent>(events.values());
+        events.clear();
+        return drained;
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor;
+
+import com.appdynamics.extensions.logging.ExtensionsLoggerFactory;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An append-only queue of serialized events kept in memory-mapped segment files of {@code segmentSize} bytes, so that
+ * events survive an events service that is slow or down, and a restart of the machine agent. Each segment starts with
+ * the position of its first record not yet published and the time it was last written to, followed by records made
+ * of their length and their UTF-8 bytes. A segment is full when the next record does not fit, and deleted once all
+ * its records are published.
+ *
+ * <p> Records are read with {@link #peek(int)} and only removed by {@link #commit()} once they are published, so a
+ * record is published at least once. When writing a new segment would exceed {@code maxSize} bytes, the oldest
+ * segment is deleted, and segments last written to more than {@code retentionMillis} ago are deleted when records are
+ * read; the unpublished records of deleted segments are counted as dropped. Queues are kept for the process by
+ * directory, so a publisher created after the config is reloaded takes over the queue of the previous one. </p>
+ */
+public class EventSpillQueue {
+    private static final Logger LOGGER = ExtensionsLoggerFactory.getLogger(EventSpillQueue.class);
+    private static final ConcurrentHashMap<File, EventSpillQueue> QUEUES = new ConcurrentHashMap<File, EventSpillQueue>();
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final int READ_POSITION_OFFSET = 0;
+    private static final int LAST_WRITE_OFFSET = 8;
+    private static final int HEADER_SIZE = 16;
+    private static final int LENGTH_SIZE = 4;
+    private final File directory;
+    private final Object drainLock = new Object();
+    private final LinkedList<Segment> segments = new LinkedList<Segment>();
+    private final List<File> undeletedFiles = new ArrayList<File>();
+    private int segmentSize;
+    private long maxSize;
+    private long retentionMillis;
+    private long nextSequence;
+    private long records;
+    private long droppedRecords;
+    private boolean closed;
+    private long peekEndSequence = -1;
+    private int peekEndPosition;
+    private int peekEndRecords;
+
+    private static class Segment {
+        private final File file;
+        private final long sequence;
+        private final MappedByteBuffer buffer;
+        private int readPosition;
+        private int writePosition;
+        private int records;
+
+        private Segment(File file, long sequence, MappedByteBuffer buffer) {
+            this.file = file;
+            this.sequence = sequence;
+            this.buffer = buffer;
+        }
+    }
+
+    private EventSpillQueue(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the queue of {@code directory}, opened with the records left in it if it is not open yet, with its
+     * limits set to the ones given
+     */
+    public static synchronized EventSpillQueue forDirectory(File directory, int segmentSize, long maxSize,
+                                                            long retentionMillis) throws IOException {
+        File canonicalDirectory = directory.getCanonicalFile();
+        EventSpillQueue queue = QUEUES.get(canonicalDirectory);
+        if (queue == null) {
+            queue = new EventSpillQueue(canonicalDirectory);
+            queue.setLimits(segmentSize, maxSize, retentionMillis);
+            queue.open();
+            QUEUES.put(canonicalDirectory, queue);
+        } else {
+            queue.setLimits(segmentSize, maxSize, retentionMillis);
+        }
+        return queue;
+    }
+
+    /**
+     * At least two segments are always kept, one being read and one being written.
+     */
+    private synchronized void setLimits(int segmentSize, long maxSize, long retentionMillis) {
+        this.segmentSize = Math.max(segmentSize, HEADER_SIZE + LENGTH_SIZE + 1);
+        this.maxSize = Math.max(maxSize, 2L * this.segmentSize);
+        this.retentionMillis = retentionMillis;
+    }
+
+    private synchronized void open() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the events spill directory " + directory);
+        }
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Unable to list the events spill directory " + directory);
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            if (!file.getName().endsWith(SEGMENT_SUFFIX)) {
+                continue;
+            }
+            long sequence;
+            try {
+                sequence = Long.parseLong(file.getName().substring(0, file.getName().length() -
+                        SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException ex) {
+                LOGGER.warn("Ignoring {}, it is not a segment of the events spill directory", file);
+                continue;
+            }
+            Segment segment = new Segment(file, sequence, map(file, file.length()));
+            recover(segment);
+            nextSequence = sequence + 1;
+            if (segment.records > 0) {
+                segments.add(segment);
+                records += segment.records;
+            } else {
+                delete(segment);
+            }
+        }
+        if (records > 0) {
+            LOGGER.info("Found {} events to publish in {}", records, directory);
+        }
+    }
+
+    /**
+     * Finds the records of a segment written before a restart, from its read position up to the first record that is
+     * empty or does not fit, which is where it was last written to.
+     */
+    private void recover(Segment segment) {
+        int capacity = segment.buffer.capacity();
+        long readPosition = capacity >= HEADER_SIZE ? segment.buffer.getLong(READ_POSITION_OFFSET) : 0;
+        int position = readPosition >= HEADER_SIZE && readPosition <= capacity ? (int) readPosition : HEADER_SIZE;
+        segment.readPosition = position;
+        while (position + LENGTH_SIZE <= capacity) {
+            int length = segment.buffer.getInt(position);
+            if (length <= 0 || length > capacity - position - LENGTH_SIZE) {
+                break;
+            }
+            position += LENGTH_SIZE + length;
+            segment.records++;
+        }
+        segment.writePosition = position;
+    }
+
+    /**
+     * @return false if the record was not appended because it is larger than a segment or the queue is closed
+     */
+    public synchronized boolean append(String record) throws IOException {
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        if (closed || bytes.length == 0 || bytes.length > segmentSize - HEADER_SIZE - LENGTH_SIZE) {
+            return false;
+        }
+        Segment tail = segments.peekLast();
+        if (tail == null || tail.writePosition + LENGTH_SIZE + bytes.length > tail.buffer.capacity()) {
+            tail = addSegment();
+        }
+        ByteBuffer view = tail.buffer.duplicate();
+        view.position(tail.writePosition + LENGTH_SIZE);
+        view.put(bytes);
+        // the length is written last, so that a record is complete once it can be found
+        tail.buffer.putInt(tail.writePosition, bytes.length);
+        tail.buffer.putLong(LAST_WRITE_OFFSET, System.currentTimeMillis());
+        tail.writePosition += LENGTH_SIZE + bytes.length;
+        tail.records++;
+        records++;
+        notifyAll();
+        return true;
+    }
+
+    private Segment addSegment() throws IOException {
+        Segment tail = segments.peekLast();
+        if (tail != null) {
+            tail.buffer.force();
+        }
+        while (segments.size() > 1 && (long) (segments.size() + 1) * segmentSize > maxSize) {
+            Segment oldest = segments.removeFirst();
+            LOGGER.warn("The events spill directory {} is full, dropping {} events", directory, oldest.records);
+            drop(oldest);
+        }
+        retryDeletes();
+        long sequence = nextSequence++;
+        File file = new File(directory, String.format("%020d", sequence) + SEGMENT_SUFFIX);
+        Segment segment = new Segment(file, sequence, map(file, segmentSize));
+        segment.buffer.putLong(READ_POSITION_OFFSET, HEADER_SIZE);
+        segment.readPosition = HEADER_SIZE;
+        segment.writePosition = HEADER_SIZE;
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Reads up to {@code maxRecords} records in the order they were appended, starting after the records last
+     * committed, so the records of a previous peek are returned again unless they were committed.
+     */
+    public synchronized List<String> peek(int maxRecords) {
+        deleteExpiredSegments(System.currentTimeMillis());
+        List<String> peeked = new ArrayList<String>();
+        peekEndSequence = -1;
+        for (Iterator<Segment> iterator = segments.iterator(); iterator.hasNext() && peeked.size() < maxRecords; ) {
+            Segment segment = iterator.next();
+            int position = segment.readPosition;
+            int segmentRecords = 0;
+            while (position < segment.writePosition && peeked.size() < maxRecords) {
+                int length = segment.buffer.getInt(position);
+                byte[] bytes = new byte[length];
+                ByteBuffer view = segment.buffer.duplicate();
+                view.position(position + LENGTH_SIZE);
+                view.get(bytes);
+                peeked.add(new String(bytes, StandardCharsets.UTF_8));
+                position += LENGTH_SIZE + length;
+                segmentRecords++;
+            }
+            if (segmentRecords > 0) {
+                peekEndSequence = segment.sequence;
+                peekEndPosition = position;
+                peekEndRecords = segmentRecords;
+            }
+        }
+        return peeked;
+    }
+
+    /**
+     * Removes the records returned by the last {@link #peek(int)}, deleting the segments that have no records left
+     * except the one being written.
+     */
+    public synchronized void commit() {
+        if (peekEndSequence < 0) {
+            return;
+        }
+        while (!segments.isEmpty() && segments.getFirst().sequence <= peekEndSequence) {
+            Segment head = segments.getFirst();
+            if (head.sequence == peekEndSequence) {
+                head.readPosition = peekEndPosition;
+                head.buffer.putLong(READ_POSITION_OFFSET, peekEndPosition);
+                head.records -= peekEndRecords;
+                records -= peekEndRecords;
+                if (head.records > 0 || head == segments.getLast()) {
+                    break;
+                }
+            } else {
+                records -= head.records;
+            }
+            segments.removeFirst();
+            delete(head);
+        }
+        peekEndSequence = -1;
+    }
+
+    /**
+     * Waits until the queue holds at least {@code minRecords} records or {@code timeoutMillis} have passed.
+     */
+    public synchronized void awaitRecords(long minRecords, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+        while (records < minRecords && remaining > 0 && !closed) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * The publisher of the queue holds this lock from {@link #peek(int)} to {@link #commit()}, so that the publisher of
+     * a reloaded config does not publish the records still being published by the previous one.
+     */
+    public Object getDrainLock() {
+        return drainLock;
+    }
+
+    /**
+     * @return the records not published yet
+     */
+    public synchronized long size() {
+        return records;
+    }
+
+    /**
+     * @return the records dropped because of the size or retention limits since the last call
+     */
+    public synchronized long getDroppedRecords() {
+        long dropped = droppedRecords;
+        droppedRecords = 0;
+        return dropped;
+    }
+
+    /**
+     * Writes the records to disk and closes the queue, which can then be opened again with the records not committed.
+     */
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+        segments.clear();
+        records = 0;
+        closed = true;
+        QUEUES.remove(directory, this);
+        notifyAll();
+    }
+
+    /**
+     * The segment being written is kept, its records are still recent.
+     */
+    private void deleteExpiredSegments(long now) {
+        while (segments.size() > 1 && segments.getFirst().buffer.getLong(LAST_WRITE_OFFSET) < now - retentionMillis) {
+            Segment expired = segments.removeFirst();
+            LOGGER.warn("Dropping {} events older than the retention of the events spill directory {}",
+                    expired.records, directory);
+            drop(expired);
+        }
+    }
+
+    /**
+     * The records are marked as read in case the file can not be deleted yet, so that they are not found again after a
+     * restart.
+     */
+    private void drop(Segment segment) {
+        segment.buffer.putLong(READ_POSITION_OFFSET, segment.writePosition);
+        records -= segment.records;
+        droppedRecords += segment.records;
+        delete(segment);
+    }
+
+    /**
+     * A mapped file can not be deleted on some platforms until its buffer is garbage collected, in which case the
+     * deletion is tried again when a segment is added.
+     */
+    private void delete(Segment segment) {
+        if (!segment.file.delete() && segment.file.exists()) {
+            undeletedFiles.add(segment.file);
+        }
+    }
+
+    private void retryDeletes() {
+        for (Iterator<File> iterator = undeletedFiles.iterator(); iterator.hasNext(); ) {
+            File file = iterator.next();
+            if (file.delete() || !file.exists()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static MappedByteBuffer map(File file, long size) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+}
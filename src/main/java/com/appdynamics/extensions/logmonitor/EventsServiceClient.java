@@ -0,0 +1,122 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor;
+
+import com.appdynamics.extensions.http.Http4ClientBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentProducer;
+import org.apache.http.entity.EntityTemplate;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes events with the publish API of the events service, reporting failures to the caller so that they can be
+ * retried, where {@link com.appdynamics.extensions.eventsservice.EventsServiceDataManager} only logs them. The HTTP
+ * client is built by {@link Http4ClientBuilder} from the {@code connection} and {@code proxy} sections of
+ * {@code eventsServiceParameters}, so it uses the same SSL and proxy settings as the rest of the extension.
+ */
+public class EventsServiceClient {
+    private static final String CONTENT_TYPE = "application/vnd.appd.events+json;v=2";
+    private static final int MAX_ERROR_LENGTH = 500;
+    private final CloseableHttpClient httpClient;
+    private final String baseUrl;
+    private final String accountName;
+    private final String apiKey;
+
+    public EventsServiceClient(CloseableHttpClient httpClient, String baseUrl, String accountName, String apiKey) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.accountName = accountName;
+        this.apiKey = apiKey;
+    }
+
+    /**
+     * Creates a client from the {@code eventsServiceParameters} section of the config.
+     */
+    public static EventsServiceClient fromParameters(Map<String, ?> eventsServiceParameters) {
+        if (eventsServiceParameters == null || StringUtils.isBlank((String) eventsServiceParameters.get("host"))
+                || eventsServiceParameters.get("port") == null) {
+            throw new IllegalArgumentException("The host and port of the events service are not configured");
+        }
+        String scheme = Boolean.TRUE.equals(eventsServiceParameters.get("useSSL")) ? "https" : "http";
+        return new EventsServiceClient(Http4ClientBuilder.getBuilder(eventsServiceParameters).build(),
+                scheme + "://" + eventsServiceParameters.get("host") + ":" + eventsServiceParameters.get("port"),
+                (String) eventsServiceParameters.get("globalAccountName"),
+                (String) eventsServiceParameters.get("eventsApiKey"));
+    }
+
+    /**
+     * The events are written to the request as it is sent rather than joined into one string first.
+     *
+     * @param events events serialized as JSON objects
+     * @throws EventsServiceException if the events service answers with a status other than 2xx
+     * @throws IOException            if the events service can not be reached
+     */
+    public void publishEvents(String schemaName, final List<String> events) throws IOException {
+        HttpPost request = new HttpPost(baseUrl + "/events/publish/" + schemaName);
+        request.setHeader("X-Events-API-AccountName", accountName);
+        request.setHeader("X-Events-API-Key", apiKey);
+        request.setHeader("Accept", "application/json");
+        EntityTemplate entity = new EntityTemplate(new ContentProducer() {
+            public void writeTo(OutputStream outputStream) throws IOException {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                writer.write('[');
+                for (int i = 0; i < events.size(); i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(events.get(i));
+                }
+                writer.write(']');
+                writer.flush();
+            }
+        });
+        entity.setContentType(CONTENT_TYPE);
+        request.setEntity(entity);
+        CloseableHttpResponse response = httpClient.execute(request);
+        try {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode < 200 || statusCode >= 300) {
+                throw new EventsServiceException(statusCode, "The events service answered " + statusCode + " " +
+                        StringUtils.abbreviate(readError(response.getEntity()), MAX_ERROR_LENGTH));
+            }
+        } finally {
+            // the response is read to the end so that the connection can be reused for the next batch
+            EntityUtils.consumeQuietly(response.getEntity());
+            response.close();
+        }
+    }
+
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private static String readError(HttpEntity entity) {
+        if (entity == null) {
+            return "";
+        }
+        try {
+            return EntityUtils.toString(entity, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor;
+
+import java.io.IOException;
+
+/**
+ * Thrown by an {@link EventsServiceClient} when the events service answers with an error status.
+ */
+public class EventsServiceException extends IOException {
+    private final int statusCode;
+
+    EventsServiceException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -47,8 +47,44 @@ public class LogEvent {
         this.logMatch = logMatch;
     }
 
+    /**
+     * @return the number of matches this event stands for, more than 1 when repeated matches were deduplicated
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * @return the time of the first match, in ISO-8601 UTC
+     */
+    public String getFirstSeen() {
+        return firstSeen;
+    }
+
+    public void setFirstSeen(String firstSeen) {
+        this.firstSeen = firstSeen;
+    }
+
+    /**
+     * @return the time of the last match, in ISO-8601 UTC
+     */
+    public String getLastSeen() {
+        return lastSeen;
+    }
+
+    public void setLastSeen(String lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
     private String searchPattern;
     private String searchPatternDisplayName;
     private String logMatch;
+    private long count = 1;
+    private String firstSeen;
+    private String lastSeen;
 
 }
@@ -0,0 +1,332 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor;
+
+import com.appdynamics.extensions.eventsservice.EventsServiceDataManager;
+import com.appdynamics.extensions.logging.ExtensionsLoggerFactory;
+import com.appdynamics.extensions.logmonitor.util.EventOverflowPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.appdynamics.extensions.logmonitor.util.Constants.SCHEMA_NAME;
+
+/**
+ * Publishes log events to the events service from a dedicated thread, so that publishing overlaps with scanning. Scans
+ * hand their events over through a bounded queue, which keeps memory bounded during an error storm, and the publisher
+ * thread sends them in batches of at most {@code batchSize} events, or fewer once the oldest event of the batch has
+ * waited {@code maxBatchAgeMillis}.
+ *
+ * <p> When the queue is full, an event is dropped right away with {@link EventOverflowPolicy#DROP}. With
+ * {@link EventOverflowPolicy#BLOCK} the scan waits for room for up to {@value #MAX_BLOCK_MILLIS} ms; if that is not
+ * enough, the events service is assumed to be falling behind and events are dropped without waiting until the queue
+ * is half empty again, so that a slow events service can not stall the scans for long. </p>
+ *
+ * <p> With an {@link EventSpillQueue}, events are appended to it instead of the queue, so the scans never wait for
+ * the events service, and published from it in order by an {@link EventsServiceClient}. A batch is only removed from
+ * the spill queue once the events service answered with a 2xx status, and is published again otherwise, waiting from
+ * {@value #MIN_RETRY_MILLIS} ms up to {@value #MAX_RETRY_MILLIS} ms between tries, so the events left when the
+ * publisher stops are published by the next one, also after a restart. A batch the events service keeps rejecting is
+ * only dropped with its segment, once the segment is older than the retention of the spill queue. </p>
+ */
+public class LogEventPublisher {
+    private static final Logger LOGGER = ExtensionsLoggerFactory.getLogger(LogEventPublisher.class);
+    private static final ObjectWriter EVENT_WRITER = new ObjectMapper().writerFor(LogEvent.class);
+    private static final long MAX_BLOCK_MILLIS = 1000;
+    private static final long MIN_RETRY_MILLIS = 1000;
+    private static final long MAX_RETRY_MILLIS = 60000;
+    private EventsServiceDataManager eventsServiceDataManager;
+    private BlockingQueue<LogEvent> queue;
+    private EventSpillQueue spillQueue;
+    private EventsServiceClient eventsServiceClient;
+    private int queueSize;
+    private int batchSize;
+    private long maxBatchAgeMillis;
+    private EventOverflowPolicy overflowPolicy;
+    private volatile boolean saturated;
+    private volatile boolean running = true;
+    private LongAdder publishedEvents = new LongAdder();
+    private LongAdder droppedEvents = new LongAdder();
+    private LongAdder failedEvents = new LongAdder();
+    private LongAdder drainedEvents = new LongAdder();
+    private long drainRateStartNanos = System.nanoTime();
+    private CountDownLatch stopped = new CountDownLatch(1);
+    private Thread publisherThread;
+
+    public LogEventPublisher(EventsServiceDataManager eventsServiceDataManager, int queueSize, int batchSize,
+                             long maxBatchAgeMillis, EventOverflowPolicy overflowPolicy) {
+        this.eventsServiceDataManager = eventsServiceDataManager;
+        this.queue = new ArrayBlockingQueue<LogEvent>(queueSize);
+        this.queueSize = queueSize;
+        this.batchSize = batchSize;
+        this.maxBatchAgeMillis = maxBatchAgeMillis;
+        this.overflowPolicy = overflowPolicy;
+        startPublisherThread(new Runnable() {
+            public void run() {
+                publishBatches();
+            }
+        });
+    }
+
+    public LogEventPublisher(EventsServiceDataManager eventsServiceDataManager,
+                             EventsServiceClient eventsServiceClient, EventSpillQueue spillQueue, int batchSize,
+                             long maxBatchAgeMillis) {
+        this.eventsServiceDataManager = eventsServiceDataManager;
+        this.eventsServiceClient = eventsServiceClient;
+        this.spillQueue = spillQueue;
+        this.batchSize = batchSize;
+        this.maxBatchAgeMillis = maxBatchAgeMillis;
+        startPublisherThread(new Runnable() {
+            public void run() {
+                try {
+                    publishSpilledBatches();
+                } finally {
+                    closeEventsServiceClient();
+                }
+            }
+        });
+    }
+
+    private void closeEventsServiceClient() {
+        try {
+            eventsServiceClient.close();
+        } catch (IOException ex) {
+            LOGGER.debug("Error encountered while closing the events service client", ex);
+        }
+    }
+
+    private void startPublisherThread(Runnable publisher) {
+        publisherThread = new Thread(publisher, "LogEventPublisher");
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+    }
+
+    public EventsServiceDataManager getEventsServiceDataManager() {
+        return eventsServiceDataManager;
+    }
+
+    /**
+     * @return false if the event was dropped because the queue is full
+     */
+    public boolean publish(LogEvent logEvent) {
+        if (spillQueue != null) {
+            return spill(logEvent);
+        }
+        if (queue.offer(logEvent)) {
+            return true;
+        }
+        if (overflowPolicy == EventOverflowPolicy.BLOCK && !saturated) {
+            try {
+                if (queue.offer(logEvent, MAX_BLOCK_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+                LOGGER.warn("The events queue has been full for {} ms, dropping events until it is half empty",
+                        MAX_BLOCK_MILLIS);
+                saturated = true;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        droppedEvents.increment();
+        return false;
+    }
+
+    private boolean spill(LogEvent logEvent) {
+        try {
+            if (spillQueue.append(EVENT_WRITER.writeValueAsString(logEvent))) {
+                return true;
+            }
+        } catch (IOException ex) {
+            LOGGER.error("Error encountered while spilling LogEvent {} for log {}", logEvent,
+                    logEvent.getLogDisplayName(), ex);
+        }
+        droppedEvents.increment();
+        return false;
+    }
+
+    /**
+     * @return the events waiting to be published, in the queue or in the spill queue
+     */
+    public long getQueueDepth() {
+        return spillQueue != null ? spillQueue.size() : queue.size();
+    }
+
+    /**
+     * @return the events published since the last call
+     */
+    public long getPublishedEvents() {
+        return publishedEvents.sumThenReset();
+    }
+
+    /**
+     * @return the events dropped because the queue was full, or by the limits of the spill queue, since the last call
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.sumThenReset() + (spillQueue != null ? spillQueue.getDroppedRecords() : 0);
+    }
+
+    /**
+     * @return the events published per minute since the last call
+     */
+    public synchronized double getDrainRate() {
+        long now = System.nanoTime();
+        double minutes = (now - drainRateStartNanos) / (double) TimeUnit.MINUTES.toNanos(1);
+        drainRateStartNanos = now;
+        long drained = drainedEvents.sumThenReset();
+        return minutes > 0 ? drained / minutes : 0;
+    }
+
+    /**
+     * @return the events the events service failed to accept since the last call
+     */
+    public long getFailedEvents() {
+        return failedEvents.sumThenReset();
+    }
+
+    /**
+     * Lets the publisher thread end once the events already queued have been published. Events in the spill queue are
+     * left to the next publisher. The {@link EventsServiceClient} is closed when the thread ends.
+     */
+    public void stop() {
+        running = false;
+        stopped.countDown();
+    }
+
+    private void publishBatches() {
+        List<LogEvent> batch = new ArrayList<LogEvent>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException ex) {
+                LOGGER.info("The log event publisher was interrupted, {} events were not published", queue.size());
+                return;
+            }
+            if (!batch.isEmpty()) {
+                publishBatch(batch);
+                batch.clear();
+            }
+            if (saturated && queue.size() <= queueSize / 2) {
+                saturated = false;
+            }
+        }
+    }
+
+    /**
+     * Waits for a first event, then takes events until the batch is full or the first event is
+     * {@code maxBatchAgeMillis} old.
+     */
+    private void fillBatch(List<LogEvent> batch) throws InterruptedException {
+        LogEvent first = queue.poll(maxBatchAgeMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBatchAgeMillis);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            LogEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void publishBatch(List<LogEvent> batch) {
+        List<String> serializedBatch = new ArrayList<String>(batch.size());
+        for (LogEvent logEvent : batch) {
+            try {
+                serializedBatch.add(EVENT_WRITER.writeValueAsString(logEvent));
+            } catch (Exception ex) {
+                LOGGER.error("Error encountered while serializing LogEvent {} for log {}", logEvent,
+                        logEvent.getLogDisplayName(), ex);
+                failedEvents.increment();
+            }
+        }
+        try {
+            eventsServiceDataManager.publishEvents(SCHEMA_NAME, serializedBatch);
+            publishedEvents.add(serializedBatch.size());
+            drainedEvents.add(serializedBatch.size());
+        } catch (Exception ex) {
+            LOGGER.error("Error encountered while publishing {} events", serializedBatch.size(), ex);
+            failedEvents.add(serializedBatch.size());
+            LogSchemaRegistry.invalidate();
+        }
+    }
+
+    private void publishSpilledBatches() {
+        long retryMillis = MIN_RETRY_MILLIS;
+        while (running) {
+            boolean published;
+            try {
+                published = publishSpilledBatch();
+            } catch (InterruptedException ex) {
+                LOGGER.info("The log event publisher was interrupted, {} events are left in the spill queue",
+                        spillQueue.size());
+                return;
+            }
+            if (published) {
+                retryMillis = MIN_RETRY_MILLIS;
+                continue;
+            }
+            try {
+                stopped.await(retryMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+        }
+    }
+
+    /**
+     * Waits for a first event, then for a full batch for up to {@code maxBatchAgeMillis}, and publishes the events
+     * spilled so far, up to the batch size.
+     *
+     * @return false if the batch has to be published again
+     */
+    private boolean publishSpilledBatch() throws InterruptedException {
+        synchronized (spillQueue.getDrainLock()) {
+            spillQueue.awaitRecords(1, maxBatchAgeMillis);
+            if (spillQueue.size() == 0) {
+                return true;
+            }
+            spillQueue.awaitRecords(batchSize, maxBatchAgeMillis);
+            List<String> batch = spillQueue.peek(batchSize);
+            if (batch.isEmpty()) {
+                return true;
+            }
+            try {
+                eventsServiceClient.publishEvents(SCHEMA_NAME, batch);
+            } catch (IOException ex) {
+                LOGGER.warn("Error encountered while publishing {} events, they will be published again",
+                        batch.size(), ex);
+                failedEvents.add(batch.size());
+                LogSchemaRegistry.invalidate();
+                return false;
+            }
+            publishedEvents.add(batch.size());
+            drainedEvents.add(batch.size());
+            spillQueue.commit();
+            return true;
+        }
+    }
+}
@@ -9,19 +9,22 @@
 package com.appdynamics.extensions.logmonitor;
 
 import com.appdynamics.extensions.ABaseMonitor;
+import com.appdynamics.extensions.MetricWriteHelper;
 import com.appdynamics.extensions.TasksExecutionServiceProvider;
 import com.appdynamics.extensions.conf.MonitorContextConfiguration;
+import com.appdynamics.extensions.eventsservice.EventsServiceDataManager;
 import com.appdynamics.extensions.logging.ExtensionsLoggerFactory;
 import com.appdynamics.extensions.logmonitor.config.Log;
 import com.appdynamics.extensions.logmonitor.processors.FilePointerProcessor;
 import com.appdynamics.extensions.logmonitor.util.LogMonitorUtil;
+import com.appdynamics.extensions.metrics.Metric;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import java.util.List;
 import java.util.Map;
 
-import static com.appdynamics.extensions.logmonitor.util.Constants.DEFAULT_METRIC_PREFIX;
-import static com.appdynamics.extensions.logmonitor.util.Constants.MONITOR_NAME;
+import static com.appdynamics.extensions.logmonitor.util.Constants.*;
 
 /**
  * @author Aditya Jagtiani
@@ -31,6 +34,9 @@ public class LogMonitor extends ABaseMonitor {
     private static Logger LOGGER = ExtensionsLoggerFactory.getLogger(LogMonitor.class);
     private MonitorContextConfiguration monitorContextConfiguration;
     private Map<String, ?> configYml = Maps.newHashMap();
+    private LogEventPublisher logEventPublisher;
+    private Map<String, ?> configOfLogs;
+    private List<Log> logsToMonitor;
 
     @Override
     public String getDefaultMetricPrefix() {
@@ -55,14 +61,69 @@ public class LogMonitor extends ABaseMonitor {
 
     @Override
     public void doRun(TasksExecutionServiceProvider taskExecutor) {
-        List<Map<String, ?>> logsFromConfig = (List<Map<String, ?>>) configYml.get("logs");
-        List<Log> logsToMonitor = LogMonitorUtil.getValidLogsFromConfig(logsFromConfig, (String) configYml.get("metricPrefix"));
+        List<Log> logsToMonitor = getLogsToMonitor();
         FilePointerProcessor filePointerProcessor = new FilePointerProcessor();
+        LogEventPublisher logEventPublisher = getLogEventPublisher();
+        if (logEventPublisher != null) {
+            printEventsMetrics(taskExecutor.getMetricWriteHelper(), logEventPublisher);
+        }
         for (Log log : logsToMonitor) {
             LOGGER.info("Starting the Log Monitoring Task for log : " + log.getDisplayName());
             LogMonitorTask task = new LogMonitorTask(monitorContextConfiguration, taskExecutor.getMetricWriteHelper(),
-                    log, filePointerProcessor);
+                    log, filePointerProcessor, logEventPublisher);
             taskExecutor.submit(log.getDisplayName(), task);
         }
     }
+
+    /**
+     * The logs, with their compiled search patterns, outlive a run and are only read again when the config is
+     * reloaded.
+     */
+    private List<Log> getLogsToMonitor() {
+        if (logsToMonitor == null || configOfLogs != configYml) {
+            List<Map<String, ?>> logsFromConfig = (List<Map<String, ?>>) configYml.get("logs");
+            logsToMonitor = LogMonitorUtil.getValidLogsFromConfig(logsFromConfig, (String) configYml.get("metricPrefix"),
+                    (String) configYml.get("regexEngine"), (String) configYml.get("maxRegexCost"));
+            configOfLogs = configYml;
+        }
+        return logsToMonitor;
+    }
+
+    /**
+     * The publisher outlives a run, so that the events found at the end of a run are published while the next run
+     * starts. It is replaced when the config is reloaded with another events service, after the events already queued
+     * have been published.
+     */
+    private LogEventPublisher getLogEventPublisher() {
+        EventsServiceDataManager eventsServiceDataManager = Boolean.TRUE.equals(configYml.get("sendDataToEventsService"))
+                ? monitorContextConfiguration.getContext().getEventsServiceDataManager() : null;
+        if (logEventPublisher != null && logEventPublisher.getEventsServiceDataManager() != eventsServiceDataManager) {
+            logEventPublisher.stop();
+            logEventPublisher = null;
+        }
+        if (logEventPublisher == null && eventsServiceDataManager != null) {
+            logEventPublisher = LogMonitorUtil.createLogEventPublisher(configYml, eventsServiceDataManager);
+        }
+        return logEventPublisher;
+    }
+
+    /**
+     * The publisher is shared by all the logs, so its metrics are reported once per run under the metric prefix. The
+     * queue depth, which includes the events spilled to disk, is read when the run starts.
+     */
+    private void printEventsMetrics(MetricWriteHelper metricWriteHelper, LogEventPublisher logEventPublisher) {
+        String metricPrefix = monitorContextConfiguration.getMetricPrefix() + METRIC_SEPARATOR;
+        List<Metric> metrics = Lists.newArrayList(
+                new Metric(EVENTS_QUEUE_DEPTH, String.valueOf(logEventPublisher.getQueueDepth()),
+                        metricPrefix + EVENTS_QUEUE_DEPTH),
+                new Metric(EVENTS_PUBLISHED, String.valueOf(logEventPublisher.getPublishedEvents()),
+                        metricPrefix + EVENTS_PUBLISHED),
+                new Metric(EVENTS_DRAIN_RATE, String.valueOf(Math.round(logEventPublisher.getDrainRate())),
+                        metricPrefix + EVENTS_DRAIN_RATE),
+                new Metric(EVENTS_DROPPED, String.valueOf(logEventPublisher.getDroppedEvents()),
+                        metricPrefix + EVENTS_DROPPED),
+                new Metric(EVENTS_PUBLISH_FAILURES, String.valueOf(logEventPublisher.getFailedEvents()),
+                        metricPrefix + EVENTS_PUBLISH_FAILURES));
+        metricWriteHelper.transformAndPrintMetrics(metrics);
+    }
 }
\ No newline at end of file
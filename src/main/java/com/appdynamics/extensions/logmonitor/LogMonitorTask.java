@@ -16,12 +16,11 @@ import com.appdynamics.extensions.logmonitor.config.Log;
 import com.appdynamics.extensions.logmonitor.metrics.LogMetrics;
 import com.appdynamics.extensions.logmonitor.processors.FilePointerProcessor;
 import com.appdynamics.extensions.logmonitor.processors.LogFileManager;
+import com.appdynamics.extensions.metrics.Metric;
 import org.slf4j.Logger;
-import java.util.List;
+import java.util.Map;
 
-import static com.appdynamics.extensions.logmonitor.util.Constants.SCHEMA_NAME;
 import static com.appdynamics.extensions.logmonitor.util.LogMonitorUtil.getFinalMetricList;
-import static com.appdynamics.extensions.logmonitor.util.LogMonitorUtil.prepareEventsForPublishing;
 
 /**
  * @author Aditya Jagtiani
@@ -33,13 +32,15 @@ public class LogMonitorTask implements AMonitorTaskRunnable {
     private MonitorContextConfiguration monitorContextConfiguration;
     private Log log;
     private FilePointerProcessor filePointerProcessor;
+    private LogEventPublisher logEventPublisher;
 
     public LogMonitorTask(MonitorContextConfiguration monitorContextConfiguration, MetricWriteHelper metricWriteHelper,
-                          Log log, FilePointerProcessor filePointerProcessor) {
+                          Log log, FilePointerProcessor filePointerProcessor, LogEventPublisher logEventPublisher) {
         this.monitorContextConfiguration = monitorContextConfiguration;
         this.metricWriteHelper = metricWriteHelper;
         this.log = log;
         this.filePointerProcessor = filePointerProcessor;
+        this.logEventPublisher = logEventPublisher;
     }
 
     public void run() {
@@ -55,22 +56,12 @@ public class LogMonitorTask implements AMonitorTaskRunnable {
     }
 
     private void populateAndPrintMetrics() throws Exception {
-        LogFileManager logFileManager = new LogFileManager(filePointerProcessor, log, monitorContextConfiguration);
+        LogFileManager logFileManager = new LogFileManager(filePointerProcessor, log, monitorContextConfiguration,
+                logEventPublisher);
         LogMetrics logMetrics = logFileManager.processLogMetrics();
-        publishEvents(logMetrics);
-        LOGGER.info("Printing {} metrics for Log {}", logMetrics.getMetrics().size(), log.getDisplayName());
-        metricWriteHelper.transformAndPrintMetrics(getFinalMetricList(logMetrics.getMetrics()));
+        Map<String, Metric> metrics = logMetrics.getMetrics();
+        LOGGER.info("Printing {} metrics for Log {}", metrics.size(), log.getDisplayName());
+        metricWriteHelper.transformAndPrintMetrics(getFinalMetricList(metrics));
         filePointerProcessor.updateFilePointerFile();
     }
-
-    private void publishEvents(LogMetrics logMetrics) {
-        List<LogEvent> events = logMetrics.getEventsToBePublished();
-        if(events.size() != 0) {
-            List<String> eventsToBePublished = prepareEventsForPublishing(events);
-            monitorContextConfiguration.getContext().getEventsServiceDataManager().publishEvents(SCHEMA_NAME, eventsToBePublished);
-        }
-        else {
-            LOGGER.info("No events to publish for log {}, skipping", log.getDisplayName());
-        }
-    }
 }
\ No newline at end of file
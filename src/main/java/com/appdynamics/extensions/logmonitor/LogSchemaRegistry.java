@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor;
+
+import com.appdynamics.extensions.eventsservice.EventsServiceDataManager;
+import com.appdynamics.extensions.logging.ExtensionsLoggerFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+import static com.appdynamics.extensions.logmonitor.util.Constants.SCHEMA_NAME;
+import static com.appdynamics.extensions.logmonitor.util.Constants.SCHEMA_PATH;
+
+/**
+ * Makes sure the {@value com.appdynamics.extensions.logmonitor.util.Constants#SCHEMA_NAME} schema exists in the
+ * events service once per process rather than once per scanned file. The result is kept until the events service
+ * changes, which happens when the config is reloaded, or until {@code logSchema.json} is modified. Fields added to
+ * {@code logSchema.json} since the schema was created are added to it. A failed check is not kept, so the next scan
+ * tries again, and {@link #invalidate()} forces a new check after the events service rejected events.
+ */
+public class LogSchemaRegistry {
+    private static final Logger LOGGER = ExtensionsLoggerFactory.getLogger(LogSchemaRegistry.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static EventsServiceDataManager checkedEventsService;
+    private static long checkedSchemaLastModified;
+
+    private LogSchemaRegistry() {
+    }
+
+    /**
+     * @return true if the schema exists or was created
+     */
+    public static boolean ensureLogSchema(EventsServiceDataManager eventsServiceDataManager) {
+        return ensureLogSchema(eventsServiceDataManager, new File(SCHEMA_PATH));
+    }
+
+    static synchronized boolean ensureLogSchema(EventsServiceDataManager eventsServiceDataManager, File schemaFile) {
+        long schemaLastModified = schemaFile.lastModified();
+        if (checkedEventsService == eventsServiceDataManager && checkedSchemaLastModified == schemaLastModified) {
+            return true;
+        }
+        checkedEventsService = null;
+        try {
+            String schema = eventsServiceDataManager.retrieveSchema(SCHEMA_NAME);
+            if (schema != null && schema.contains("logDisplayName")) {
+                LOGGER.info("Schema: {} already exists", SCHEMA_NAME);
+                addMissingFields(eventsServiceDataManager, schema, schemaFile);
+            } else {
+                LOGGER.info("Creating Schema {}", SCHEMA_NAME);
+                eventsServiceDataManager.createSchema(SCHEMA_NAME, FileUtils.readFileToString(schemaFile));
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Error encountered while creating schema {}", SCHEMA_NAME, ex);
+            return false;
+        }
+        checkedEventsService = eventsServiceDataManager;
+        checkedSchemaLastModified = schemaLastModified;
+        return true;
+    }
+
+    /**
+     * Adds the fields of {@code logSchema.json} that a schema created by an earlier version of the extension lacks.
+     */
+    private static void addMissingFields(EventsServiceDataManager eventsServiceDataManager, String schema,
+                                         File schemaFile) throws IOException {
+        if (!schemaFile.exists()) {
+            LOGGER.warn("{} not found, fields missing from Schema {} can not be added", schemaFile, SCHEMA_NAME);
+            return;
+        }
+        ObjectNode missingFields = OBJECT_MAPPER.createObjectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = OBJECT_MAPPER.readTree(schemaFile).path("schema").fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!schema.contains("\"" + field.getKey() + "\"")) {
+                missingFields.set(field.getKey(), field.getValue());
+            }
+        }
+        if (missingFields.size() > 0) {
+            LOGGER.info("Adding fields {} to Schema {}", missingFields, SCHEMA_NAME);
+            ArrayNode update = OBJECT_MAPPER.createArrayNode();
+            update.addObject().set("add", missingFields);
+            eventsServiceDataManager.updateSchema(SCHEMA_NAME, OBJECT_MAPPER.writeValueAsString(update));
+        }
+    }
+
+    /**
+     * Makes the next {@link #ensureLogSchema(EventsServiceDataManager)} check the events service again.
+     */
+    public static synchronized void invalidate() {
+        checkedEventsService = null;
+    }
+}
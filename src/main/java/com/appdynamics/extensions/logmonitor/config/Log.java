@@ -8,6 +8,7 @@
 
 package com.appdynamics.extensions.logmonitor.config;
 
+import com.appdynamics.extensions.logmonitor.matchers.LiteralMatcher;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
@@ -27,8 +28,33 @@ public class Log {
 
     private String encoding;
 
+    private String readerMode;
+
+    private Integer readBufferSize;
+
+    private Integer parallelChunkSize;
+
+    private Integer regexTimeBudget;
+
+    private Integer regexStepBudget;
+
+    private String timestampFormat;
+
+    private String timestampPattern;
+
+    private String startFrom;
+
+    private String eventStartPattern;
+
+    private Integer maxRecordLines;
+
     private List<SearchString> searchStrings;
 
+    // compiled from the search strings once and shared by all processors of the log
+    private transient List<SearchPattern> searchPatterns;
+
+    private transient LiteralMatcher literalMatcher;
+
     public String getDisplayName() {
         return displayName;
     }
@@ -61,6 +87,86 @@ public class Log {
         this.encoding = encoding;
     }
 
+    public String getReaderMode() {
+        return readerMode;
+    }
+
+    public void setReaderMode(String readerMode) {
+        this.readerMode = readerMode;
+    }
+
+    public Integer getReadBufferSize() {
+        return readBufferSize;
+    }
+
+    public void setReadBufferSize(Integer readBufferSize) {
+        this.readBufferSize = readBufferSize;
+    }
+
+    public Integer getParallelChunkSize() {
+        return parallelChunkSize;
+    }
+
+    public void setParallelChunkSize(Integer parallelChunkSize) {
+        this.parallelChunkSize = parallelChunkSize;
+    }
+
+    public Integer getRegexTimeBudget() {
+        return regexTimeBudget;
+    }
+
+    public void setRegexTimeBudget(Integer regexTimeBudget) {
+        this.regexTimeBudget = regexTimeBudget;
+    }
+
+    public Integer getRegexStepBudget() {
+        return regexStepBudget;
+    }
+
+    public void setRegexStepBudget(Integer regexStepBudget) {
+        this.regexStepBudget = regexStepBudget;
+    }
+
+    public String getTimestampFormat() {
+        return timestampFormat;
+    }
+
+    public void setTimestampFormat(String timestampFormat) {
+        this.timestampFormat = timestampFormat;
+    }
+
+    public String getTimestampPattern() {
+        return timestampPattern;
+    }
+
+    public void setTimestampPattern(String timestampPattern) {
+        this.timestampPattern = timestampPattern;
+    }
+
+    public String getStartFrom() {
+        return startFrom;
+    }
+
+    public void setStartFrom(String startFrom) {
+        this.startFrom = startFrom;
+    }
+
+    public String getEventStartPattern() {
+        return eventStartPattern;
+    }
+
+    public void setEventStartPattern(String eventStartPattern) {
+        this.eventStartPattern = eventStartPattern;
+    }
+
+    public Integer getMaxRecordLines() {
+        return maxRecordLines;
+    }
+
+    public void setMaxRecordLines(Integer maxRecordLines) {
+        this.maxRecordLines = maxRecordLines;
+    }
+
     public List<SearchString> getSearchStrings() {
         return searchStrings;
     }
@@ -69,6 +175,22 @@ public class Log {
         this.searchStrings = searchStrings;
     }
 
+    public List<SearchPattern> getSearchPatterns() {
+        return searchPatterns;
+    }
+
+    public void setSearchPatterns(List<SearchPattern> searchPatterns) {
+        this.searchPatterns = searchPatterns;
+    }
+
+    public LiteralMatcher getLiteralMatcher() {
+        return literalMatcher;
+    }
+
+    public void setLiteralMatcher(LiteralMatcher literalMatcher) {
+        this.literalMatcher = literalMatcher;
+    }
+
     @Override
     public String toString() {
         return ReflectionToStringBuilder.toString(this,
@@ -8,8 +8,15 @@
 
 package com.appdynamics.extensions.logmonitor.config;
 
+import com.appdynamics.extensions.logmonitor.matchers.JavaRegex;
+import com.appdynamics.extensions.logmonitor.matchers.MatcherFactory;
+import com.appdynamics.extensions.logmonitor.matchers.RequiredLiteralFilter;
+
 import java.util.regex.Pattern;
 
+import static com.appdynamics.extensions.logmonitor.util.Constants.DEFAULT_MAX_MATCHED_STRINGS;
+import static com.appdynamics.extensions.logmonitor.util.Constants.DEFAULT_MAX_TEMPLATES;
+
 /**
  * @author Aditya Jagtiani
  */
@@ -19,12 +26,34 @@ public class SearchPattern {
     private Pattern pattern;
     private boolean caseSensitive;
     private boolean printMatchedString;
+    private String literal;
+    private boolean matchExactString;
+    private RequiredLiteralFilter requiredLiteralFilter;
+    private MatcherFactory matcherFactory;
+    private int maxMatchedStrings = DEFAULT_MAX_MATCHED_STRINGS;
+    private boolean countDistinctMatches;
+    private String valueGroup;
+    private Integer maxEventsPerMinute;
+    private double eventSampleRate = 1;
+    private boolean mineTemplates;
+    private int maxTemplates = DEFAULT_MAX_TEMPLATES;
 
     public SearchPattern(String displayName, Pattern pattern, Boolean caseSensitive, Boolean printMatchedString) {
+        this(displayName, pattern, caseSensitive, printMatchedString, null, false);
+    }
+
+    /**
+     * @param literal the plain text this pattern stands for, or null if it is a real regular expression
+     */
+    public SearchPattern(String displayName, Pattern pattern, Boolean caseSensitive, Boolean printMatchedString,
+                         String literal, Boolean matchExactString) {
         this.displayName = displayName;
         this.pattern = pattern;
         this.caseSensitive = caseSensitive;
         this.printMatchedString = printMatchedString;
+        this.literal = literal;
+        this.matchExactString = matchExactString;
+        this.matcherFactory = new JavaRegex(pattern);
     }
 
     public String getDisplayName() {
@@ -42,4 +71,108 @@ public class SearchPattern {
     public boolean getPrintMatchedString() {
         return printMatchedString;
     }
-}
\ No newline at end of file
+
+    public String getLiteral() {
+        return literal;
+    }
+
+    public boolean getMatchExactString() {
+        return matchExactString;
+    }
+
+    /**
+     * @return the prefilter to run before the regex, or null if every line has to be matched against it
+     */
+    public RequiredLiteralFilter getRequiredLiteralFilter() {
+        return requiredLiteralFilter;
+    }
+
+    public void setRequiredLiteralFilter(RequiredLiteralFilter requiredLiteralFilter) {
+        this.requiredLiteralFilter = requiredLiteralFilter;
+    }
+
+    /**
+     * @return the engine that finds the matches of this pattern, {@code java.util.regex} unless configured otherwise
+     */
+    public MatcherFactory getMatcherFactory() {
+        return matcherFactory;
+    }
+
+    public void setMatcherFactory(MatcherFactory matcherFactory) {
+        this.matcherFactory = matcherFactory;
+    }
+
+    /**
+     * @return the number of most frequent matched strings reported when {@link #getPrintMatchedString()} is set
+     */
+    public int getMaxMatchedStrings() {
+        return maxMatchedStrings;
+    }
+
+    public void setMaxMatchedStrings(int maxMatchedStrings) {
+        this.maxMatchedStrings = maxMatchedStrings;
+    }
+
+    public boolean getCountDistinctMatches() {
+        return countDistinctMatches;
+    }
+
+    public void setCountDistinctMatches(boolean countDistinctMatches) {
+        this.countDistinctMatches = countDistinctMatches;
+    }
+
+    /**
+     * @return the name of the capture group holding a number to aggregate, or null if no value is captured
+     */
+    public String getValueGroup() {
+        return valueGroup;
+    }
+
+    public void setValueGroup(String valueGroup) {
+        this.valueGroup = valueGroup;
+    }
+
+    /**
+     * @return the most events sent per minute for the matches of this pattern, or null if they are not limited
+     */
+    public Integer getMaxEventsPerMinute() {
+        return maxEventsPerMinute;
+    }
+
+    public void setMaxEventsPerMinute(Integer maxEventsPerMinute) {
+        this.maxEventsPerMinute = maxEventsPerMinute;
+    }
+
+    /**
+     * @return the probability that a match of this pattern is sent as an event, 1 unless configured otherwise
+     */
+    public double getEventSampleRate() {
+        return eventSampleRate;
+    }
+
+    public void setEventSampleRate(double eventSampleRate) {
+        this.eventSampleRate = eventSampleRate;
+    }
+
+    /**
+     * @return true if the templates of the matching lines are learned and counted
+     */
+    public boolean getMineTemplates() {
+        return mineTemplates;
+    }
+
+    public void setMineTemplates(boolean mineTemplates) {
+        this.mineTemplates = mineTemplates;
+    }
+
+    /**
+     * @return the number of templates learned for this pattern, after which lines fitting none are counted as Other
+     */
+    public int getMaxTemplates() {
+        return maxTemplates;
+    }
+
+    public void setMaxTemplates(int maxTemplates) {
+        this.maxTemplates = maxTemplates;
+    }
+}
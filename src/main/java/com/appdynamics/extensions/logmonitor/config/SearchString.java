@@ -18,6 +18,14 @@ public class SearchString {
     private Boolean matchExactString;
     private Boolean caseSensitive;
     private Boolean printMatchedString;
+    private String regexEngine;
+    private Integer maxMatchedStrings;
+    private Boolean countDistinctMatches;
+    private String valueGroup;
+    private Integer maxEventsPerMinute;
+    private Double eventSampleRate;
+    private Boolean mineTemplates;
+    private Integer maxTemplates;
 
     public String getDisplayName() {
         return displayName;
@@ -58,4 +66,68 @@ public class SearchString {
     public Boolean getPrintMatchedString() {
         return printMatchedString;
     }
+
+    public String getRegexEngine() {
+        return regexEngine;
+    }
+
+    public void setRegexEngine(String regexEngine) {
+        this.regexEngine = regexEngine;
+    }
+
+    public Integer getMaxMatchedStrings() {
+        return maxMatchedStrings;
+    }
+
+    public void setMaxMatchedStrings(Integer maxMatchedStrings) {
+        this.maxMatchedStrings = maxMatchedStrings;
+    }
+
+    public Boolean getCountDistinctMatches() {
+        return countDistinctMatches;
+    }
+
+    public void setCountDistinctMatches(Boolean countDistinctMatches) {
+        this.countDistinctMatches = countDistinctMatches;
+    }
+
+    public String getValueGroup() {
+        return valueGroup;
+    }
+
+    public void setValueGroup(String valueGroup) {
+        this.valueGroup = valueGroup;
+    }
+
+    public Integer getMaxEventsPerMinute() {
+        return maxEventsPerMinute;
+    }
+
+    public void setMaxEventsPerMinute(Integer maxEventsPerMinute) {
+        this.maxEventsPerMinute = maxEventsPerMinute;
+    }
+
+    public Double getEventSampleRate() {
+        return eventSampleRate;
+    }
+
+    public void setEventSampleRate(Double eventSampleRate) {
+        this.eventSampleRate = eventSampleRate;
+    }
+
+    public Boolean getMineTemplates() {
+        return mineTemplates;
+    }
+
+    public void setMineTemplates(Boolean mineTemplates) {
+        this.mineTemplates = mineTemplates;
+    }
+
+    public Integer getMaxTemplates() {
+        return maxTemplates;
+    }
+
+    public void setMaxTemplates(Integer maxTemplates) {
+        this.maxTemplates = maxTemplates;
+    }
 }
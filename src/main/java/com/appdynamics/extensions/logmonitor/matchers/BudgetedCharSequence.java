@@ -0,0 +1,73 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.matchers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * View of a line that aborts the regex reading it once it has read too many chars or run for too long. A backtracking
+ * matcher reads the line through {@link #charAt(int)} on every step, so a pattern that backtracks catastrophically is
+ * stopped with a {@link RegexBudgetExceededException} instead of holding its thread until the task times out.
+ *
+ * <p> The clock is only read every {@value #STEPS_PER_CLOCK_CHECK} steps. One instance is reused for every line and
+ * pattern of a processor and is not thread safe. </p>
+ */
+public class BudgetedCharSequence implements CharSequence {
+    private static final int STEPS_PER_CLOCK_CHECK = 1024;
+
+    private CharSequence line = "";
+    private long timeBudgetNanos;
+    private long stepBudget;
+    private long deadline;
+    private long steps;
+
+    /**
+     * @param timeBudgetMillis the time a single pattern may spend on a line, or null for no limit
+     * @param stepBudget       the number of chars a single pattern may read from a line, or null for no limit
+     */
+    public BudgetedCharSequence(Integer timeBudgetMillis, Integer stepBudget) {
+        this.timeBudgetNanos = timeBudgetMillis != null ? TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis) : Long.MAX_VALUE;
+        this.stepBudget = stepBudget != null ? stepBudget : Long.MAX_VALUE;
+    }
+
+    /**
+     * Starts a new budget for the next pattern to be matched against {@code line}.
+     */
+    public BudgetedCharSequence reset(CharSequence line) {
+        this.line = line;
+        this.steps = 0;
+        this.deadline = System.nanoTime() + timeBudgetNanos;
+        return this;
+    }
+
+    public int length() {
+        return line.length();
+    }
+
+    public char charAt(int index) {
+        if (++steps > stepBudget) {
+            throw new RegexBudgetExceededException("Regex read more than " + stepBudget + " chars of the line");
+        }
+        if (steps % STEPS_PER_CLOCK_CHECK == 0 && timeBudgetNanos != Long.MAX_VALUE
+                && System.nanoTime() - deadline > 0) {
+            throw new RegexBudgetExceededException("Regex ran for longer than "
+                    + TimeUnit.NANOSECONDS.toMillis(timeBudgetNanos) + " ms on the line");
+        }
+        return line.charAt(index);
+    }
+
+    public CharSequence subSequence(int start, int end) {
+        return line.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return line.toString();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.matchers;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs a search string with {@code java.util.regex}, which supports the full pattern syntax but can backtrack
+ * exponentially on patterns with nested quantifiers.
+ */
+public class JavaRegex implements MatcherFactory {
+    private final Pattern pattern;
+
+    public JavaRegex(Pattern pattern) {
+        this.pattern = pattern;
+    }
+
+    public PatternMatcher newMatcher() {
+        final Matcher matcher = pattern.matcher("");
+        return new PatternMatcher() {
+            public PatternMatcher reset(CharSequence input) {
+                matcher.reset(input);
+                return this;
+            }
+
+            public boolean find() {
+                return matcher.find();
+            }
+
+            public int start() {
+                return matcher.start();
+            }
+
+            public int end() {
+                return matcher.end();
+            }
+        };
+    }
+}
@@ -0,0 +1,851 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.matchers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a search string on a Thompson NFA simulated in lock step (a Pike VM), the approach of RE2. Every line is read
+ * once, and the work per character is bounded by the size of the compiled pattern, so a pattern like {@code (a+)+b}
+ * can not stall a processor on a long line the way a backtracking engine can.
+ *
+ * <p> The matches are the ones {@code java.util.regex} reports: threads are kept in priority order, so greedy, lazy
+ * and alternation choices are leftmost first, and an iteration that matches the empty string ends its loop (for the
+ * first four such loops of a pattern). Case insensitive search strings fold ASCII only, as {@code (?i)} does.
+ * Constructs that need backtracking or that the engine does not know (back references, lookaround, possessive
+ * quantifiers, inline flags, {@code \p} classes, class unions and intersections) are rejected with an
+ * {@link IllegalArgumentException} when the pattern is compiled. The line is read as UTF-16 chars, so {@code .} and
+ * negated classes match half of a surrogate pair where {@code java.util.regex} would match the whole code point. </p>
+ */
+public class LinearRegex implements MatcherFactory {
+    private static final int MAX_PROGRAM_SIZE = 10000;
+    private static final int MAX_EMPTY_LOOPS = 4;
+
+    private static final int CHAR = 0;
+    private static final int ANY = 1;
+    private static final int CLASS = 2;
+    private static final int SPLIT = 3;
+    private static final int JUMP = 4;
+    private static final int ASSERT = 5;
+    private static final int MATCH = 6;
+    private static final int SAVE = 7;
+    private static final int PROGRESS = 8;
+
+    private static final int BEGIN = 0;
+    private static final int END = 1;
+    private static final int END_OF_INPUT = 2;
+    private static final int WORD_BOUNDARY = 3;
+    private static final int NOT_WORD_BOUNDARY = 4;
+
+    private final int[] opcodes;
+    private final int[] firstArguments;
+    private final int[] secondArguments;
+    private final CharClass[] classes;
+    private final int emptyLoopCount;
+    private final boolean caseSensitive;
+
+    private LinearRegex(Compiler compiler, boolean caseSensitive) {
+        int size = compiler.opcodes.size();
+        this.opcodes = new int[size];
+        this.firstArguments = new int[size];
+        this.secondArguments = new int[size];
+        for (int i = 0; i < size; i++) {
+            opcodes[i] = compiler.opcodes.get(i);
+            firstArguments[i] = compiler.firstArguments.get(i);
+            secondArguments[i] = compiler.secondArguments.get(i);
+        }
+        this.classes = compiler.classes.toArray(new CharClass[0]);
+        this.emptyLoopCount = compiler.emptyLoopCount;
+        this.caseSensitive = caseSensitive;
+    }
+
+    /**
+     * @param regex the search string as configured, without the {@code (?i)} or {@code (?-i)} prefix
+     * @throws IllegalArgumentException if the pattern uses a construct this engine does not support
+     */
+    public static LinearRegex compile(String regex, boolean caseSensitive) {
+        Node root = new Parser(regex, caseSensitive).parse();
+        Compiler compiler = new Compiler();
+        compiler.emit(root);
+        compiler.add(MATCH, 0, 0);
+        return new LinearRegex(compiler, caseSensitive);
+    }
+
+    public PatternMatcher newMatcher() {
+        return new LinearMatcher();
+    }
+
+    private boolean consumes(int pc, char c) {
+        switch (opcodes[pc]) {
+            case CHAR:
+                return (caseSensitive ? c : foldAscii(c)) == firstArguments[pc];
+            case ANY:
+                return !isLineTerminator(c);
+            default:
+                return classes[firstArguments[pc]].matches(c);
+        }
+    }
+
+    private static boolean holds(int assertion, CharSequence input, int position) {
+        int length = input.length();
+        switch (assertion) {
+            case BEGIN:
+                return position == 0;
+            case END_OF_INPUT:
+                return position == length;
+            case END:
+                // $ without MULTILINE also matches before a line terminator that ends the input
+                if (position == length) {
+                    return true;
+                }
+                if (position == length - 2) {
+                    return input.charAt(position) == '\r' && input.charAt(position + 1) == '\n';
+                }
+                return position == length - 1 && isLineTerminator(input.charAt(position))
+                        && !(input.charAt(position) == '\n' && position > 0 && input.charAt(position - 1) == '\r');
+            default:
+                boolean left = position > 0 && isWordChar(input.charAt(position - 1));
+                boolean right = position < length && isWordChar(input.charAt(position));
+                return (left != right) == (assertion == WORD_BOUNDARY);
+        }
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static char foldAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * Threads of one step in priority order, plus the set of states already visited while adding them. A state is an
+     * instruction together with the loops that have started an iteration at the current position.
+     */
+    private static class ThreadList {
+        private int[] pcs;
+        private int[] starts;
+        private int count;
+        private int[] visitedDense;
+        private int[] visitedSparse;
+        private int visitedCount;
+
+        ThreadList(int programSize, int emptyLoopCount) {
+            pcs = new int[programSize];
+            starts = new int[programSize];
+            visitedDense = new int[programSize << emptyLoopCount];
+            visitedSparse = new int[programSize << emptyLoopCount];
+        }
+
+        void clear() {
+            count = 0;
+            visitedCount = 0;
+        }
+
+        boolean visit(int state) {
+            int index = visitedSparse[state];
+            if (index < visitedCount && visitedDense[index] == state) {
+                return false;
+            }
+            visitedSparse[state] = visitedCount;
+            visitedDense[visitedCount++] = state;
+            return true;
+        }
+
+        void add(int pc, int start) {
+            pcs[count] = pc;
+            starts[count++] = start;
+        }
+    }
+
+    private class LinearMatcher implements PatternMatcher {
+        private ThreadList current = new ThreadList(opcodes.length, emptyLoopCount);
+        private ThreadList next = new ThreadList(opcodes.length, emptyLoopCount);
+        private int[] stack = new int[(2 * opcodes.length + 1) << emptyLoopCount];
+        private int[] stackLoops = new int[(2 * opcodes.length + 1) << emptyLoopCount];
+        private CharSequence input = "";
+        private int searchFrom;
+        private int matchStart = -1;
+        private int matchEnd = -1;
+
+        public PatternMatcher reset(CharSequence input) {
+            this.input = input;
+            this.searchFrom = 0;
+            this.matchStart = -1;
+            this.matchEnd = -1;
+            return this;
+        }
+
+        public boolean find() {
+            int length = input.length();
+            int from = searchFrom;
+            matchStart = -1;
+            if (from > length) {
+                return false;
+            }
+            current.clear();
+            for (int position = from; position <= length; position++) {
+                if (matchStart < 0) {
+                    addThread(current, 0, position, position);
+                }
+                if (current.count == 0) {
+                    if (matchStart >= 0) {
+                        break;
+                    }
+                    // assertions that failed here may hold at the next position
+                    current.clear();
+                    continue;
+                }
+                next.clear();
+                for (int t = 0; t < current.count; t++) {
+                    int pc = current.pcs[t];
+                    if (opcodes[pc] == MATCH) {
+                        matchStart = current.starts[t];
+                        matchEnd = position;
+                        // every remaining thread has a lower priority than this match
+                        break;
+                    }
+                    if (position < length && consumes(pc, input.charAt(position))) {
+                        addThread(next, pc + 1, current.starts[t], position + 1);
+                    }
+                }
+                ThreadList swap = current;
+                current = next;
+                next = swap;
+            }
+            if (matchStart < 0) {
+                searchFrom = length + 1;
+                return false;
+            }
+            searchFrom = matchEnd == matchStart ? matchEnd + 1 : matchEnd;
+            return true;
+        }
+
+        public int start() {
+            if (matchStart < 0) {
+                throw new IllegalStateException("No match available");
+            }
+            return matchStart;
+        }
+
+        public int end() {
+            if (matchStart < 0) {
+                throw new IllegalStateException("No match available");
+            }
+            return matchEnd;
+        }
+
+        /**
+         * Follows jumps, splits and assertions from {@code pc} depth first, so that threads are added in the order a
+         * backtracking engine would try them. Each path remembers the loops that started an iteration at this
+         * position; an iteration of such a loop that ends here matched the empty string.
+         */
+        private void addThread(ThreadList list, int pc, int start, int position) {
+            int top = 0;
+            stack[top] = pc;
+            stackLoops[top++] = 0;
+            while (top > 0) {
+                int instruction = stack[--top];
+                int loops = stackLoops[top];
+                int opcode = opcodes[instruction];
+                // the loops only matter until a char is consumed
+                boolean consuming = opcode <= CLASS || opcode == MATCH;
+                if (!list.visit(instruction << emptyLoopCount | (consuming ? 0 : loops))) {
+                    continue;
+                }
+                switch (opcode) {
+                    case JUMP:
+                        top = push(top, firstArguments[instruction], loops);
+                        break;
+                    case SPLIT:
+                        top = push(top, secondArguments[instruction], loops);
+                        top = push(top, firstArguments[instruction], loops);
+                        break;
+                    case ASSERT:
+                        if (holds(firstArguments[instruction], input, position)) {
+                            top = push(top, instruction + 1, loops);
+                        }
+                        break;
+                    case SAVE:
+                        top = push(top, instruction + 1, loops | 1 << firstArguments[instruction]);
+                        break;
+                    case PROGRESS:
+                        // like java.util.regex, an iteration that matched the empty string ends the loop
+                        boolean empty = (loops & 1 << firstArguments[instruction]) != 0;
+                        top = push(top, empty ? secondArguments[instruction] : instruction + 1, loops);
+                        break;
+                    default:
+                        list.add(instruction, start);
+                }
+            }
+        }
+
+        private int push(int top, int pc, int loops) {
+            stack[top] = pc;
+            stackLoops[top] = loops;
+            return top + 1;
+        }
+    }
+
+    /**
+     * Set of chars of a bracket expression or a shorthand class. ASCII chars are looked up in a table that already
+     * has case folding and negation applied.
+     */
+    private static class CharClass {
+        private static final int DIGIT = 1;
+        private static final int NOT_DIGIT = 2;
+        private static final int SPACE = 4;
+        private static final int NOT_SPACE = 8;
+        private static final int WORD = 16;
+        private static final int NOT_WORD = 32;
+
+        private StringBuilder ranges = new StringBuilder();
+        private int shorthands;
+        private boolean negated;
+        private boolean[] ascii = new boolean[128];
+
+        static CharClass shorthand(char escaped, boolean caseSensitive) {
+            CharClass charClass = new CharClass();
+            charClass.addShorthand(escaped);
+            return charClass.build(caseSensitive);
+        }
+
+        static boolean isShorthand(char escaped) {
+            return "dDsSwW".indexOf(escaped) >= 0;
+        }
+
+        void addShorthand(char escaped) {
+            shorthands |= 1 << "dDsSwW".indexOf(escaped);
+        }
+
+        void addRange(char low, char high) {
+            ranges.append(low).append(high);
+        }
+
+        CharClass build(boolean caseSensitive) {
+            for (char c = 0; c < ascii.length; c++) {
+                boolean member = contains(c);
+                if (!caseSensitive) {
+                    member = member || contains(Character.toLowerCase(c)) || contains(Character.toUpperCase(c));
+                }
+                ascii[c] = member != negated;
+            }
+            return this;
+        }
+
+        boolean matches(char c) {
+            return c < ascii.length ? ascii[c] : contains(c) != negated;
+        }
+
+        private boolean contains(char c) {
+            for (int i = 0; i < ranges.length(); i += 2) {
+                if (c >= ranges.charAt(i) && c <= ranges.charAt(i + 1)) {
+                    return true;
+                }
+            }
+            boolean digit = c >= '0' && c <= '9';
+            boolean space = c == ' ' || (c >= '\t' && c <= '\r');
+            boolean word = digit || c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+            return ((shorthands & DIGIT) != 0 && digit) || ((shorthands & NOT_DIGIT) != 0 && !digit)
+                    || ((shorthands & SPACE) != 0 && space) || ((shorthands & NOT_SPACE) != 0 && !space)
+                    || ((shorthands & WORD) != 0 && word) || ((shorthands & NOT_WORD) != 0 && !word);
+        }
+    }
+
+    private static class Node {
+        private static final int LITERAL = 0;
+        private static final int ANY = 1;
+        private static final int CLASS = 2;
+        private static final int ASSERT = 3;
+        private static final int CONCAT = 4;
+        private static final int ALTERNATE = 5;
+        private static final int REPEAT = 6;
+
+        private int type;
+        private char literal;
+        private CharClass charClass;
+        private int assertion;
+        private List<Node> children = new ArrayList<Node>();
+        private int min;
+        private int max;
+        private boolean greedy;
+
+        Node(int type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * Recursive descent over the {@code java.util.regex} syntax. Patterns normally reach it after {@code Pattern}
+     * compiled them, but a malformed pattern is still reported with an {@link IllegalArgumentException} rather than
+     * failing on its bounds.
+     */
+    private static class Parser {
+        private String regex;
+        private boolean caseSensitive;
+        private int position;
+
+        Parser(String regex, boolean caseSensitive) {
+            this.regex = regex;
+            this.caseSensitive = caseSensitive;
+        }
+
+        Node parse() {
+            Node node = parseAlternation();
+            if (position < regex.length()) {
+                throw unsupported("unbalanced )");
+            }
+            return node;
+        }
+
+        private Node parseAlternation() {
+            Node alternation = new Node(Node.ALTERNATE);
+            alternation.children.add(parseConcatenation());
+            while (position < regex.length() && regex.charAt(position) == '|') {
+                position++;
+                alternation.children.add(parseConcatenation());
+            }
+            return alternation.children.size() == 1 ? alternation.children.get(0) : alternation;
+        }
+
+        private Node parseConcatenation() {
+            Node concatenation = new Node(Node.CONCAT);
+            while (position < regex.length() && regex.charAt(position) != '|' && regex.charAt(position) != ')') {
+                if (regex.startsWith("\\Q", position)) {
+                    int end = regex.indexOf("\\E", position + 2);
+                    end = end < 0 ? regex.length() : end;
+                    for (int i = position + 2; i < end; i++) {
+                        concatenation.children.add(literal(regex.charAt(i)));
+                    }
+                    boolean quoted = end > position + 2;
+                    position = Math.min(end + 2, regex.length());
+                    // a quantifier after \Q..\E applies to its last char only
+                    if (quoted) {
+                        Node last = concatenation.children.remove(concatenation.children.size() - 1);
+                        concatenation.children.add(parseQuantifiers(last));
+                    }
+                    continue;
+                }
+                concatenation.children.add(parseQuantifiers(parseAtom()));
+            }
+            return concatenation;
+        }
+
+        private Node parseQuantifiers(Node atom) {
+            while (position < regex.length()) {
+                char c = regex.charAt(position);
+                int min;
+                int max;
+                if (c == '*') {
+                    min = 0;
+                    max = -1;
+                    position++;
+                } else if (c == '+') {
+                    min = 1;
+                    max = -1;
+                    position++;
+                } else if (c == '?') {
+                    min = 0;
+                    max = 1;
+                    position++;
+                } else if (c == '{') {
+                    int close = indexOf('}', position, "unclosed repetition");
+                    String bounds = regex.substring(position + 1, close);
+                    int comma = bounds.indexOf(',');
+                    try {
+                        min = Integer.parseInt(comma < 0 ? bounds : bounds.substring(0, comma));
+                        max = comma < 0 ? min : comma == bounds.length() - 1 ? -1
+                                : Integer.parseInt(bounds.substring(comma + 1));
+                    } catch (NumberFormatException ex) {
+                        throw invalid("repetition {" + bounds + "}");
+                    }
+                    if (min < 0 || (max >= 0 && max < min)) {
+                        throw invalid("repetition {" + bounds + "}");
+                    }
+                    position = close + 1;
+                } else {
+                    return atom;
+                }
+                Node repeat = new Node(Node.REPEAT);
+                repeat.children.add(atom);
+                repeat.min = min;
+                repeat.max = max;
+                repeat.greedy = true;
+                if (position < regex.length() && regex.charAt(position) == '?') {
+                    repeat.greedy = false;
+                    position++;
+                } else if (position < regex.length() && regex.charAt(position) == '+') {
+                    throw unsupported("possessive quantifier");
+                }
+                atom = repeat;
+            }
+            return atom;
+        }
+
+        private Node parseAtom() {
+            char c = regex.charAt(position++);
+            switch (c) {
+                case '(':
+                    if (regex.startsWith("?:", position)) {
+                        position += 2;
+                    } else if (regex.startsWith("?<", position) && position + 2 < regex.length()
+                            && Character.isLetter(regex.charAt(position + 2))) {
+                        position = indexOf('>', position, "unclosed group name") + 1;
+                    } else if (position < regex.length() && regex.charAt(position) == '?') {
+                        throw unsupported("group (" + regex.substring(position, Math.min(position + 2, regex.length())));
+                    }
+                    Node group = parseAlternation();
+                    if (position >= regex.length() || regex.charAt(position) != ')') {
+                        throw unsupported("unclosed group");
+                    }
+                    position++;
+                    return group;
+                case '[':
+                    return parseClass();
+                case '.':
+                    return new Node(Node.ANY);
+                case '^':
+                    return assertion(BEGIN);
+                case '$':
+                    return assertion(END);
+                case '\\':
+                    return parseEscape();
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    throw unsupported("dangling " + c);
+                default:
+                    return literal(c);
+            }
+        }
+
+        private Node parseEscape() {
+            if (position >= regex.length()) {
+                throw unsupported("trailing \\");
+            }
+            char escaped = regex.charAt(position);
+            if (CharClass.isShorthand(escaped)) {
+                position++;
+                Node node = new Node(Node.CLASS);
+                node.charClass = CharClass.shorthand(escaped, caseSensitive);
+                return node;
+            }
+            switch (escaped) {
+                case 'b':
+                    position++;
+                    return assertion(WORD_BOUNDARY);
+                case 'B':
+                    position++;
+                    return assertion(NOT_WORD_BOUNDARY);
+                case 'A':
+                    position++;
+                    return assertion(BEGIN);
+                case 'Z':
+                    position++;
+                    return assertion(END);
+                case 'z':
+                    position++;
+                    return assertion(END_OF_INPUT);
+                default:
+                    return literal(parseEscapedChar());
+            }
+        }
+
+        /**
+         * Parses the escape after a backslash that stands for a single char, inside or outside of a class.
+         */
+        private char parseEscapedChar() {
+            char escaped = next("trailing \\");
+            if (!Character.isLetterOrDigit(escaped)) {
+                return escaped;
+            }
+            int simple = "tnrfae".indexOf(escaped);
+            if (simple >= 0) {
+                return "\t\n\r\f\u0007\u001B".charAt(simple);
+            }
+            switch (escaped) {
+                case '0':
+                    int value = 0;
+                    int digits = 0;
+                    while (digits < 3 && position < regex.length() && regex.charAt(position) >= '0'
+                            && regex.charAt(position) <= '7' && value * 8 + regex.charAt(position) - '0' <= 0377) {
+                        value = value * 8 + regex.charAt(position++) - '0';
+                        digits++;
+                    }
+                    return (char) value;
+                case 'x':
+                    if (position < regex.length() && regex.charAt(position) == '{') {
+                        int close = indexOf('}', position, "unclosed \\x{");
+                        int codePoint = parseHex(position + 1, close);
+                        if (codePoint > Character.MAX_VALUE) {
+                            throw unsupported("supplementary character \\x{" + regex.substring(position + 1, close) + "}");
+                        }
+                        position = close + 1;
+                        return (char) codePoint;
+                    }
+                    position += 2;
+                    return (char) parseHex(position - 2, position);
+                case 'u':
+                    position += 4;
+                    return (char) parseHex(position - 4, position);
+                case 'c':
+                    return (char) (next("trailing \\c") ^ 64);
+                default:
+                    throw unsupported("\\" + escaped);
+            }
+        }
+
+        private Node parseClass() {
+            CharClass charClass = new CharClass();
+            if (position < regex.length() && regex.charAt(position) == '^') {
+                charClass.negated = true;
+                position++;
+            }
+            boolean first = true;
+            while (position < regex.length() && (first || regex.charAt(position) != ']')) {
+                first = false;
+                char c = regex.charAt(position++);
+                char low;
+                if (c == '[' || (c == '&' && position < regex.length() && regex.charAt(position) == '&')) {
+                    throw unsupported("class union or intersection");
+                } else if (c == '\\') {
+                    if (position < regex.length() && CharClass.isShorthand(regex.charAt(position))) {
+                        charClass.addShorthand(regex.charAt(position++));
+                        continue;
+                    }
+                    if (position < regex.length() && regex.charAt(position) == 'Q') {
+                        throw unsupported("\\Q inside a class");
+                    }
+                    low = parseEscapedChar();
+                } else {
+                    low = c;
+                }
+                char high = low;
+                if (position + 1 < regex.length() && regex.charAt(position) == '-' && regex.charAt(position + 1) != ']') {
+                    position++;
+                    char upper = regex.charAt(position++);
+                    if (upper == '[') {
+                        throw unsupported("class union or intersection");
+                    }
+                    high = upper == '\\' ? parseEscapedChar() : upper;
+                }
+                charClass.addRange(low, high);
+            }
+            if (position >= regex.length()) {
+                throw unsupported("unclosed class");
+            }
+            position++;
+            Node node = new Node(Node.CLASS);
+            node.charClass = charClass.build(caseSensitive);
+            return node;
+        }
+
+        private Node literal(char c) {
+            Node node = new Node(Node.LITERAL);
+            node.literal = caseSensitive ? c : foldAscii(c);
+            return node;
+        }
+
+        private Node assertion(int assertion) {
+            Node node = new Node(Node.ASSERT);
+            node.assertion = assertion;
+            return node;
+        }
+
+        private char next(String error) {
+            if (position >= regex.length()) {
+                throw invalid(error);
+            }
+            return regex.charAt(position++);
+        }
+
+        private int indexOf(char c, int from, String error) {
+            int index = regex.indexOf(c, from);
+            if (index < 0) {
+                throw invalid(error);
+            }
+            return index;
+        }
+
+        private int parseHex(int start, int end) {
+            if (end > regex.length() || start >= end) {
+                throw invalid("incomplete hexadecimal escape");
+            }
+            String digits = regex.substring(start, end);
+            int value = 0;
+            for (int i = 0; i < digits.length(); i++) {
+                int digit = Character.digit(digits.charAt(i), 16);
+                if (digit < 0 || value > Character.MAX_CODE_POINT) {
+                    throw invalid("hexadecimal escape " + digits);
+                }
+                value = value * 16 + digit;
+            }
+            return value;
+        }
+
+        private IllegalArgumentException invalid(String error) {
+            return new IllegalArgumentException(String.format("Invalid pattern %s: %s", regex, error));
+        }
+
+        private IllegalArgumentException unsupported(String construct) {
+            return new IllegalArgumentException(String.format("Unsupported construct %s in pattern %s for the linear " +
+                    "regex engine", construct, regex));
+        }
+    }
+
+    private static class Compiler {
+        private List<Integer> opcodes = new ArrayList<Integer>();
+        private List<Integer> firstArguments = new ArrayList<Integer>();
+        private List<Integer> secondArguments = new ArrayList<Integer>();
+        private List<CharClass> classes = new ArrayList<CharClass>();
+        private int emptyLoopCount;
+
+        int add(int opcode, int firstArgument, int secondArgument) {
+            if (opcodes.size() >= MAX_PROGRAM_SIZE) {
+                throw new IllegalArgumentException("Pattern is too large for the linear regex engine");
+            }
+            opcodes.add(opcode);
+            firstArguments.add(firstArgument);
+            secondArguments.add(secondArgument);
+            return opcodes.size() - 1;
+        }
+
+        void patch(int pc, int firstArgument, int secondArgument) {
+            firstArguments.set(pc, firstArgument);
+            secondArguments.set(pc, secondArgument);
+        }
+
+        void emit(Node node) {
+            switch (node.type) {
+                case Node.LITERAL:
+                    add(CHAR, node.literal, 0);
+                    break;
+                case Node.ANY:
+                    add(ANY, 0, 0);
+                    break;
+                case Node.CLASS:
+                    classes.add(node.charClass);
+                    add(CLASS, classes.size() - 1, 0);
+                    break;
+                case Node.ASSERT:
+                    add(ASSERT, node.assertion, 0);
+                    break;
+                case Node.CONCAT:
+                    for (Node child : node.children) {
+                        emit(child);
+                    }
+                    break;
+                case Node.ALTERNATE:
+                    emitAlternation(node.children);
+                    break;
+                default:
+                    emitRepeat(node);
+            }
+        }
+
+        private void emitAlternation(List<Node> alternatives) {
+            List<Integer> jumps = new ArrayList<Integer>();
+            for (int i = 0; i < alternatives.size() - 1; i++) {
+                int split = add(SPLIT, 0, 0);
+                emit(alternatives.get(i));
+                jumps.add(add(JUMP, 0, 0));
+                patch(split, split + 1, opcodes.size());
+            }
+            emit(alternatives.get(alternatives.size() - 1));
+            for (int jump : jumps) {
+                patch(jump, opcodes.size(), 0);
+            }
+        }
+
+        /**
+         * {@code x{n,m}} becomes n copies of x followed by m - n nested optional copies, {@code x{n,}} becomes n
+         * copies followed by a loop. If x can match the empty string, each copy marks where it starts and leaves the
+         * repetition when it ends at the same position.
+         */
+        private void emitRepeat(Node node) {
+            Node body = node.children.get(0);
+            int loop = emptyLoopCount < MAX_EMPTY_LOOPS && isNullable(body) ? emptyLoopCount++ : -1;
+            List<Integer> exits = new ArrayList<Integer>();
+            for (int i = 0; i < node.min; i++) {
+                emitIteration(body, loop, exits);
+            }
+            if (node.max < 0) {
+                int split = add(SPLIT, 0, 0);
+                emitIteration(body, loop, exits);
+                add(JUMP, split, 0);
+                patchSplit(split, split + 1, opcodes.size(), node.greedy);
+            } else {
+                for (int i = node.min; i < node.max; i++) {
+                    int split = add(SPLIT, 0, 0);
+                    exits.add(split);
+                    emitIteration(body, loop, exits);
+                }
+            }
+            int exit = opcodes.size();
+            for (int pc : exits) {
+                if (opcodes.get(pc) == SPLIT) {
+                    patchSplit(pc, pc + 1, exit, node.greedy);
+                } else {
+                    patch(pc, loop, exit);
+                }
+            }
+        }
+
+        private void emitIteration(Node body, int loop, List<Integer> exits) {
+            if (loop >= 0) {
+                add(SAVE, loop, 0);
+            }
+            emit(body);
+            if (loop >= 0) {
+                exits.add(add(PROGRESS, loop, 0));
+            }
+        }
+
+        private static boolean isNullable(Node node) {
+            switch (node.type) {
+                case Node.LITERAL:
+                case Node.ANY:
+                case Node.CLASS:
+                    return false;
+                case Node.ASSERT:
+                    return true;
+                case Node.CONCAT:
+                    for (Node child : node.children) {
+                        if (!isNullable(child)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                case Node.ALTERNATE:
+                    for (Node child : node.children) {
+                        if (isNullable(child)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                default:
+                    return node.min == 0 || isNullable(node.children.get(0));
+            }
+        }
+
+        private void patchSplit(int split, int body, int exit, boolean greedy) {
+            if (greedy) {
+                patch(split, body, exit);
+            } else {
+                patch(split, exit, body);
+            }
+        }
+    }
+}
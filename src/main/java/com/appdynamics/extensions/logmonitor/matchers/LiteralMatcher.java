@@ -0,0 +1,310 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.matchers;
+
+import com.appdynamics.extensions.logmonitor.config.SearchPattern;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Finds the matches of all literal {@link SearchPattern}s of a log in a single pass over each line, using an
+ * Aho-Corasick automaton. Patterns without a literal are left to {@code java.util.regex}.
+ *
+ * <p> The matches reported for a pattern are exactly the ones {@code Matcher.find()} would report for its compiled
+ * regular expression: leftmost first and non-overlapping, with ASCII-only case folding for case insensitive patterns
+ * (as {@code (?i)} does) and the whitespace boundaries of {@code matchExactString}. The automaton is built over ASCII
+ * folded text and case sensitive hits are verified afterwards. </p>
+ *
+ * <p> Instances keep the matches of the last line and are therefore not thread safe. {@link #newMatcher()} creates
+ * another instance for another thread that shares the automaton instead of building it again. </p>
+ */
+public class LiteralMatcher {
+    private static final int ASCII = 128;
+    private static final int ROOT = 0;
+
+    private List<int[]> asciiTransitions = new ArrayList<int[]>();
+    private List<Map<Character, Integer>> otherTransitions = new ArrayList<Map<Character, Integer>>();
+    private int[][] asciiTable;
+    private int[] failure;
+    private int[][] outputs;
+
+    private String[] literals;
+    private boolean[] caseSensitive;
+    private boolean[] matchExactString;
+    private int[][] matchStarts;
+    private int[] matchCounts;
+    private int[] nextAllowedStart;
+
+    /**
+     * @param searchPatterns all patterns of the log; matches are reported by the index of the pattern in this list
+     */
+    public LiteralMatcher(List<SearchPattern> searchPatterns) {
+        int size = searchPatterns.size();
+        literals = new String[size];
+        caseSensitive = new boolean[size];
+        matchExactString = new boolean[size];
+        matchStarts = new int[size][];
+        matchCounts = new int[size];
+        nextAllowedStart = new int[size];
+
+        List<List<Integer>> stateOutputs = new ArrayList<List<Integer>>();
+        addState(stateOutputs);
+        for (int i = 0; i < size; i++) {
+            SearchPattern searchPattern = searchPatterns.get(i);
+            if (searchPattern.getLiteral() == null) {
+                continue;
+            }
+            literals[i] = searchPattern.getLiteral();
+            caseSensitive[i] = searchPattern.getCaseSensitive();
+            matchExactString[i] = searchPattern.getMatchExactString();
+            matchStarts[i] = new int[4];
+            int state = ROOT;
+            for (int j = 0; j < literals[i].length(); j++) {
+                char c = fold(literals[i].charAt(j));
+                int next = transition(state, c);
+                if (next < 0) {
+                    next = addState(stateOutputs);
+                    setTransition(state, c, next);
+                }
+                state = next;
+            }
+            stateOutputs.get(state).add(i);
+        }
+        buildFailureLinks(stateOutputs);
+    }
+
+    private LiteralMatcher(LiteralMatcher automaton) {
+        otherTransitions = automaton.otherTransitions;
+        asciiTable = automaton.asciiTable;
+        failure = automaton.failure;
+        outputs = automaton.outputs;
+        literals = automaton.literals;
+        caseSensitive = automaton.caseSensitive;
+        matchExactString = automaton.matchExactString;
+        matchStarts = new int[literals.length][];
+        for (int i = 0; i < literals.length; i++) {
+            if (literals[i] != null) {
+                matchStarts[i] = new int[4];
+            }
+        }
+        matchCounts = new int[literals.length];
+        nextAllowedStart = new int[literals.length];
+    }
+
+    /**
+     * @return a matcher for the same patterns with its own matches, sharing the automaton of this one
+     */
+    public LiteralMatcher newMatcher() {
+        return new LiteralMatcher(this);
+    }
+
+    public boolean hasLiterals() {
+        for (String literal : literals) {
+            if (literal != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the matches of every literal pattern in {@code line}. They are available through
+     * {@link #getMatchCount(int)} and {@link #getMatchStart(int, int)} until the next call.
+     */
+    public void match(CharSequence line) {
+        Arrays.fill(matchCounts, 0);
+        Arrays.fill(nextAllowedStart, 0);
+        int state = ROOT;
+        for (int position = 0; position < line.length(); position++) {
+            char c = fold(line.charAt(position));
+            if (c < ASCII) {
+                state = asciiTable[state][c];
+            } else {
+                state = nonAsciiTransition(state, c);
+            }
+            for (int patternIndex : outputs[state]) {
+                int end = position + 1;
+                int start = end - literals[patternIndex].length();
+                if (start >= nextAllowedStart[patternIndex] && isMatch(patternIndex, line, start, end)) {
+                    addMatch(patternIndex, start);
+                    nextAllowedStart[patternIndex] = end;
+                }
+            }
+        }
+    }
+
+    public int getMatchCount(int patternIndex) {
+        return matchCounts[patternIndex];
+    }
+
+    public int getMatchStart(int patternIndex, int match) {
+        return matchStarts[patternIndex][match];
+    }
+
+    public int getMatchEnd(int patternIndex, int match) {
+        return matchStarts[patternIndex][match] + literals[patternIndex].length();
+    }
+
+    private boolean isMatch(int patternIndex, CharSequence line, int start, int end) {
+        if (caseSensitive[patternIndex]) {
+            String literal = literals[patternIndex];
+            for (int i = 0; i < literal.length(); i++) {
+                if (line.charAt(start + i) != literal.charAt(i)) {
+                    return false;
+                }
+            }
+        }
+        if (matchExactString[patternIndex]) {
+            return (start == 0 || isWhitespace(line.charAt(start - 1))) && isEndBoundary(line, end);
+        }
+        return true;
+    }
+
+    private void addMatch(int patternIndex, int start) {
+        int count = matchCounts[patternIndex];
+        if (count == matchStarts[patternIndex].length) {
+            matchStarts[patternIndex] = Arrays.copyOf(matchStarts[patternIndex], count * 2);
+        }
+        matchStarts[patternIndex][count] = start;
+        matchCounts[patternIndex] = count + 1;
+    }
+
+    private int addState(List<List<Integer>> stateOutputs) {
+        int[] row = new int[ASCII];
+        Arrays.fill(row, -1);
+        asciiTransitions.add(row);
+        otherTransitions.add(null);
+        stateOutputs.add(new ArrayList<Integer>());
+        return asciiTransitions.size() - 1;
+    }
+
+    private int transition(int state, char c) {
+        if (c < ASCII) {
+            return asciiTransitions.get(state)[c];
+        }
+        Map<Character, Integer> transitions = otherTransitions.get(state);
+        Integer next = transitions == null ? null : transitions.get(c);
+        return next == null ? -1 : next;
+    }
+
+    private void setTransition(int state, char c, int next) {
+        if (c < ASCII) {
+            asciiTransitions.get(state)[c] = next;
+        } else {
+            if (otherTransitions.get(state) == null) {
+                otherTransitions.set(state, new HashMap<Character, Integer>());
+            }
+            otherTransitions.get(state).put(c, next);
+        }
+    }
+
+    private int nonAsciiTransition(int state, char c) {
+        while (true) {
+            int next = transition(state, c);
+            if (next >= 0) {
+                return next;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = failure[state];
+        }
+    }
+
+    /**
+     * Breadth first over the trie: sets the failure link of every state, completes the ASCII transitions into a full
+     * DFA so that scanning ASCII text never follows failure links, and merges the outputs of each failure state.
+     */
+    private void buildFailureLinks(List<List<Integer>> stateOutputs) {
+        int states = asciiTransitions.size();
+        failure = new int[states];
+        outputs = new int[states][];
+        outputs[ROOT] = toArray(stateOutputs.get(ROOT));
+        Queue<Integer> queue = new ArrayDeque<Integer>();
+
+        int[] rootRow = asciiTransitions.get(ROOT);
+        for (int c = 0; c < ASCII; c++) {
+            if (rootRow[c] < 0) {
+                rootRow[c] = ROOT;
+            } else {
+                queue.add(rootRow[c]);
+            }
+        }
+        if (otherTransitions.get(ROOT) != null) {
+            queue.addAll(otherTransitions.get(ROOT).values());
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = merge(stateOutputs.get(state), outputs[failure[state]]);
+            int[] row = asciiTransitions.get(state);
+            int[] failureRow = asciiTransitions.get(failure[state]);
+            for (int c = 0; c < ASCII; c++) {
+                if (row[c] < 0) {
+                    row[c] = failureRow[c];
+                } else {
+                    failure[row[c]] = failureRow[c];
+                    queue.add(row[c]);
+                }
+            }
+            Map<Character, Integer> transitions = otherTransitions.get(state);
+            if (transitions != null) {
+                for (Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                    failure[transition.getValue()] = nonAsciiTransition(failure[state], transition.getKey());
+                    queue.add(transition.getValue());
+                }
+            }
+        }
+        asciiTable = asciiTransitions.toArray(new int[states][]);
+    }
+
+    private static int[] merge(List<Integer> own, int[] inherited) {
+        int[] merged = new int[own.size() + inherited.length];
+        for (int i = 0; i < own.size(); i++) {
+            merged[i] = own.get(i);
+        }
+        System.arraycopy(inherited, 0, merged, own.size(), inherited.length);
+        return merged;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return merge(values, new int[0]);
+    }
+
+    private static char fold(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * Same characters as {@code \s} without {@code UNICODE_CHARACTER_CLASS}.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * {@code (?=\s|$)}: whitespace follows, or the end of the input or a final line terminator is reached.
+     */
+    private static boolean isEndBoundary(CharSequence line, int end) {
+        if (end == line.length()) {
+            return true;
+        }
+        char next = line.charAt(end);
+        if (isWhitespace(next)) {
+            return true;
+        }
+        return end == line.length() - 1 && (next == '\u0085' || next == '\u2028' || next == '\u2029');
+    }
+}
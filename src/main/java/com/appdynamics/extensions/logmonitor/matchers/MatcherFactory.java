@@ -0,0 +1,19 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.matchers;
+
+/**
+ * Compiled form of a regex search string, independent of the engine that runs it. Factories are compiled once per log
+ * by {@code LogMonitorUtil.compileSearchPatterns} and shared between all of its processors, so they must be thread
+ * safe; the matchers they create are not.
+ */
+public interface MatcherFactory {
+
+    PatternMatcher newMatcher();
+}
@@ -0,0 +1,25 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.matchers;
+
+/**
+ * Finds the matches of one search string in a line, with the semantics of {@code java.util.regex.Matcher.find()}:
+ * leftmost first, non-overlapping, and an empty match moves the search one character forward. A matcher is reused
+ * for every line of a log and is only ever used by one thread.
+ */
+public interface PatternMatcher {
+
+    PatternMatcher reset(CharSequence input);
+
+    boolean find();
+
+    int start();
+
+    int end();
+}
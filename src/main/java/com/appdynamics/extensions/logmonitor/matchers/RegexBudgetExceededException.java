@@ -0,0 +1,19 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.matchers;
+
+/**
+ * Thrown from inside a regex match by a {@link BudgetedCharSequence} whose time or step budget ran out.
+ */
+public class RegexBudgetExceededException extends RuntimeException {
+
+    RegexBudgetExceededException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.matchers;
+
+import com.appdynamics.extensions.logmonitor.util.RegexCost;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Looks for constructs that make a regex search string expensive for a backtracking engine, so that they can be
+ * reported when the config is loaded instead of when they slow down a busy log:
+ * <ul>
+ * <li> a repeated group that contains another unbounded quantifier, or alternatives starting with the same char, as
+ * in {@code (a+)+} or {@code (a|ab)*}, can backtrack exponentially ({@link RegexCost#HIGH}) </li>
+ * <li> a leading {@code .*} or {@code .+} that is not anchored rescans the rest of the line from every position </li>
+ * <li> top level alternatives sharing a prefix of at least {@value #MIN_SHARED_PREFIX} chars, or one of them as a
+ * whole, as in {@code ERROR|ERRORS}, compare the prefix once per alternative </li>
+ * <li> a lookbehind is evaluated again at every position ({@link RegexCost#MEDIUM} for the last three) </li>
+ * </ul>
+ * The scan is purely syntactic and does not try to prove that a pattern is safe.
+ */
+public class RegexCostAnalyzer {
+    private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+    private static final int MIN_SHARED_PREFIX = 2;
+
+    private RegexCost cost = RegexCost.LOW;
+    private List<String> reasons = new ArrayList<String>();
+    private boolean caseSensitive;
+
+    private RegexCostAnalyzer(boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+    }
+
+    public static RegexCostAnalyzer analyze(String regex, boolean caseSensitive) {
+        RegexCostAnalyzer analyzer = new RegexCostAnalyzer(caseSensitive);
+        analyzer.scan(regex);
+        return analyzer;
+    }
+
+    public RegexCost getCost() {
+        return cost;
+    }
+
+    public List<String> getReasons() {
+        return reasons;
+    }
+
+    private void report(RegexCost regexCost, String reason) {
+        if (regexCost.compareTo(cost) > 0) {
+            cost = regexCost;
+        }
+        reasons.add(reason);
+    }
+
+    private static class Group {
+        private int start;
+        private int alternativeStart;
+        private boolean containsUnboundedRepeat;
+        private List<String> prefixes = new ArrayList<String>();
+        private List<Boolean> wholeAlternatives = new ArrayList<Boolean>();
+
+        Group(int start, int alternativeStart) {
+            this.start = start;
+            this.alternativeStart = alternativeStart;
+        }
+    }
+
+    private void scan(String regex) {
+        if (regex.startsWith(".*") || regex.startsWith(".+") || regex.startsWith("(.*") || regex.startsWith("(.+")) {
+            report(RegexCost.MEDIUM, "leading " + regex.substring(regex.indexOf('.'), regex.indexOf('.') + 2)
+                    + " is not anchored and rescans the rest of the line from every position");
+        }
+        Deque<Group> groups = new ArrayDeque<Group>();
+        Group root = new Group(0, 0);
+        groups.push(root);
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            int next;
+            if (c == '\\' && regex.startsWith("\\Q", i)) {
+                int end = regex.indexOf("\\E", i + 2);
+                next = end < 0 ? regex.length() : end + 2;
+            } else if (c == '\\') {
+                next = Math.min(i + 2, regex.length());
+            } else if (c == '[') {
+                next = skipClass(regex, i) + 1;
+            } else if (c == '(') {
+                if (regex.startsWith("(?<=", i) || regex.startsWith("(?<!", i)) {
+                    report(RegexCost.MEDIUM, "lookbehind at index " + i + " is evaluated again at every position");
+                }
+                int contentStart = skipGroupHeader(regex, i);
+                groups.push(new Group(i, contentStart));
+                i = contentStart;
+                continue;
+            } else if (c == ')' && groups.size() > 1) {
+                Group group = groups.pop();
+                endAlternative(regex, group, i);
+                next = i + 1;
+                boolean unbounded = isUnboundedQuantifier(regex, next);
+                if (unbounded && group.containsUnboundedRepeat) {
+                    report(RegexCost.HIGH, "nested quantifier in " + regex.substring(group.start, next + 1)
+                            + " can backtrack exponentially");
+                } else if (unbounded && sharedPrefix(group, 1) != null) {
+                    report(RegexCost.HIGH, "alternatives of the repeated group " + regex.substring(group.start, next + 1)
+                            + " start alike and can backtrack exponentially");
+                }
+                groups.peek().containsUnboundedRepeat |= unbounded || group.containsUnboundedRepeat;
+                i = skipQuantifier(regex, next);
+                continue;
+            } else if (c == '|') {
+                Group group = groups.peek();
+                endAlternative(regex, group, i);
+                group.alternativeStart = i + 1;
+                i++;
+                continue;
+            } else {
+                next = i + 1;
+            }
+            if (isUnboundedQuantifier(regex, next)) {
+                groups.peek().containsUnboundedRepeat = true;
+            }
+            i = skipQuantifier(regex, next);
+        }
+        endAlternative(regex, root, regex.length());
+        String sharedPrefix = sharedPrefix(root, MIN_SHARED_PREFIX);
+        if (sharedPrefix != null && !regex.startsWith("^")) {
+            report(RegexCost.MEDIUM, "alternatives share the prefix " + sharedPrefix
+                    + ", which is compared again for each of them");
+        }
+    }
+
+    private void endAlternative(String regex, Group group, int end) {
+        StringBuilder prefix = new StringBuilder();
+        int i = group.alternativeStart;
+        while (i < end && METACHARACTERS.indexOf(regex.charAt(i)) < 0) {
+            prefix.append(caseSensitive ? regex.charAt(i) : Character.toLowerCase(regex.charAt(i)));
+            i++;
+        }
+        if (i < end && prefix.length() > 0 && "?*{".indexOf(regex.charAt(i)) >= 0) {
+            // the last char of the run is optional
+            prefix.setLength(prefix.length() - 1);
+        }
+        group.prefixes.add(prefix.toString());
+        group.wholeAlternatives.add(i == end);
+    }
+
+    /**
+     * @param minLength the shortest prefix reported, unless it is a whole alternative
+     * @return the longest prefix two of the alternatives of the group have in common, or null if there is none
+     */
+    private static String sharedPrefix(Group group, int minLength) {
+        List<String> prefixes = group.prefixes;
+        String longest = null;
+        for (int i = 0; i < prefixes.size(); i++) {
+            for (int j = i + 1; j < prefixes.size(); j++) {
+                String first = prefixes.get(i);
+                String second = prefixes.get(j);
+                int common = 0;
+                while (common < first.length() && common < second.length()
+                        && first.charAt(common) == second.charAt(common)) {
+                    common++;
+                }
+                boolean wholeAlternative = group.wholeAlternatives.get(i) && common == first.length()
+                        || group.wholeAlternatives.get(j) && common == second.length();
+                if (common > 0 && (common >= minLength || wholeAlternative)
+                        && (longest == null || common > longest.length())) {
+                    longest = first.substring(0, common);
+                }
+            }
+        }
+        return longest;
+    }
+
+    private static boolean isUnboundedQuantifier(String regex, int i) {
+        if (i >= regex.length()) {
+            return false;
+        }
+        char c = regex.charAt(i);
+        if (c == '*' || c == '+') {
+            return true;
+        }
+        int close = regex.indexOf('}', i);
+        return c == '{' && close > 0 && regex.charAt(close - 1) == ',';
+    }
+
+    /**
+     * @return the index after the quantifier starting at {@code i}, including a lazy or possessive suffix, or
+     * {@code i} if there is none
+     */
+    private static int skipQuantifier(String regex, int i) {
+        if (i >= regex.length() || "?*+{".indexOf(regex.charAt(i)) < 0) {
+            return i;
+        }
+        int end = regex.charAt(i) == '{' ? regex.indexOf('}', i) + 1 : i + 1;
+        if (end <= 0) {
+            return regex.length();
+        }
+        if (end < regex.length() && (regex.charAt(end) == '?' || regex.charAt(end) == '+')) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * @return the index of the first char inside the group that starts at {@code start}
+     */
+    private static int skipGroupHeader(String regex, int start) {
+        int i = start + 1;
+        if (i >= regex.length() || regex.charAt(i) != '?') {
+            return i;
+        }
+        if (regex.startsWith("?<=", i) || regex.startsWith("?<!", i)) {
+            return i + 3;
+        }
+        if (regex.startsWith("?<", i)) {
+            int close = regex.indexOf('>', i);
+            return close < 0 ? regex.length() : close + 1;
+        }
+        if (regex.startsWith("?:", i) || regex.startsWith("?=", i) || regex.startsWith("?!", i)
+                || regex.startsWith("?>", i)) {
+            return i + 2;
+        }
+        // inline flags, either (?i) or (?i:X)
+        while (i < regex.length() && regex.charAt(i) != ':' && regex.charAt(i) != ')') {
+            i++;
+        }
+        return i < regex.length() && regex.charAt(i) == ':' ? i + 1 : i;
+    }
+
+    /**
+     * @return the index of the {@code ]} closing the class that starts at {@code start}
+     */
+    private static int skipClass(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') {
+                    i++;
+                }
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    i++;
+                }
+            } else if (c == ']' && --depth == 0) {
+                return i;
+            }
+            i++;
+        }
+        return regex.length();
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.matchers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cheap check run before a regex search string: a line can only match if it contains one of the literals every match
+ * of the regex must contain. For {@code .*ERROR.*timeout=\d+} that is {@code timeout=}, for {@code foo\d|bar} it is
+ * either {@code foo} or {@code bar}. The literals are searched with Boyer-Moore-Horspool, folding ASCII case like
+ * {@code (?i)} for case insensitive search strings.
+ *
+ * <p> The extraction is deliberately conservative. Groups, classes and optional parts only end the current literal,
+ * and patterns with inline flags or escapes it does not know are not filtered at all. </p>
+ */
+public class RequiredLiteralFilter {
+    private static final int ASCII = 128;
+    private static final String SIMPLE_ESCAPES = "tnrfae";
+    private static final String SIMPLE_ESCAPE_CHARS = "\t\n\r\f\u0007\u001B";
+
+    private char[][] literals;
+    private int[][] skipTables;
+    private int[] nonAsciiSkips;
+    private boolean caseSensitive;
+
+    private RequiredLiteralFilter(List<String> literals, boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+        this.literals = new char[literals.size()][];
+        this.skipTables = new int[literals.size()][];
+        this.nonAsciiSkips = new int[literals.size()];
+        for (int i = 0; i < literals.size(); i++) {
+            char[] literal = fold(literals.get(i)).toCharArray();
+            int[] skipTable = new int[ASCII];
+            Arrays.fill(skipTable, literal.length);
+            int nonAsciiSkip = literal.length;
+            for (int j = 0; j < literal.length - 1; j++) {
+                if (literal[j] < ASCII) {
+                    skipTable[literal[j]] = literal.length - 1 - j;
+                } else {
+                    nonAsciiSkip = literal.length - 1 - j;
+                }
+            }
+            this.literals[i] = literal;
+            this.skipTables[i] = skipTable;
+            this.nonAsciiSkips[i] = nonAsciiSkip;
+        }
+    }
+
+    /**
+     * @return a filter for {@code regex}, or null if no required literal could be found
+     */
+    public static RequiredLiteralFilter forPattern(String regex, boolean caseSensitive) {
+        if (regex.contains("(?")) {
+            return null;
+        }
+        List<String> alternatives = new ArrayList<String>();
+        int depth = 0;
+        int alternativeStart = 0;
+        for (int i = 0; i <= regex.length(); i++) {
+            char c = i < regex.length() ? regex.charAt(i) : '|';
+            if (c == '\\' && i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+                int end = regex.indexOf("\\E", i + 2);
+                i = end < 0 ? regex.length() : end + 1;
+            } else if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                i = skipClass(regex, i);
+                if (i < 0) {
+                    return null;
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth == 0) {
+                String literal = longestRequiredLiteral(regex.substring(alternativeStart, Math.min(i, regex.length())));
+                if (literal.isEmpty()) {
+                    return null;
+                }
+                alternatives.add(literal);
+                alternativeStart = i + 1;
+            }
+        }
+        return new RequiredLiteralFilter(alternatives, caseSensitive);
+    }
+
+    public boolean mightMatch(CharSequence line) {
+        for (int i = 0; i < literals.length; i++) {
+            if (indexOf(line, i) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<String> getLiterals() {
+        List<String> result = new ArrayList<String>();
+        for (char[] literal : literals) {
+            result.add(new String(literal));
+        }
+        return result;
+    }
+
+    private int indexOf(CharSequence line, int literalIndex) {
+        char[] literal = literals[literalIndex];
+        int[] skipTable = skipTables[literalIndex];
+        int last = literal.length - 1;
+        int position = last;
+        while (position < line.length()) {
+            int matched = 0;
+            while (matched <= last && fold(line.charAt(position - matched)) == literal[last - matched]) {
+                matched++;
+            }
+            if (matched > last) {
+                return position - last;
+            }
+            char c = fold(line.charAt(position));
+            position += c < ASCII ? skipTable[c] : nonAsciiSkips[literalIndex];
+        }
+        return -1;
+    }
+
+    private char fold(char c) {
+        return !caseSensitive && c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private String fold(String literal) {
+        StringBuilder folded = new StringBuilder(literal.length());
+        for (int i = 0; i < literal.length(); i++) {
+            folded.append(fold(literal.charAt(i)));
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Walks one alternative and returns the longest run of characters that has to appear in every match of it.
+     */
+    private static String longestRequiredLiteral(String regex) {
+        String longest = "";
+        StringBuilder current = new StringBuilder();
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            int next;
+            String atom = null;
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    break;
+                }
+                char escaped = regex.charAt(i + 1);
+                if (escaped == 'Q') {
+                    int end = regex.indexOf("\\E", i + 2);
+                    end = end < 0 ? regex.length() : end;
+                    atom = regex.substring(i + 2, end);
+                    next = Math.min(end + 2, regex.length());
+                } else if (!Character.isLetterOrDigit(escaped)) {
+                    atom = String.valueOf(escaped);
+                    next = i + 2;
+                } else if (SIMPLE_ESCAPES.indexOf(escaped) >= 0) {
+                    atom = String.valueOf(SIMPLE_ESCAPE_CHARS.charAt(SIMPLE_ESCAPES.indexOf(escaped)));
+                    next = i + 2;
+                } else if ("dDsSwWbBhHvVRX".indexOf(escaped) >= 0) {
+                    next = i + 2;
+                } else {
+                    // unicode and hex escapes, back references and the like: keep what was found so far
+                    break;
+                }
+            } else if (c == '[') {
+                next = skipClass(regex, i) + 1;
+                if (next == 0) {
+                    break;
+                }
+            } else if (c == '(') {
+                next = skipGroup(regex, i) + 1;
+            } else if (c == '.' || c == '^' || c == '$') {
+                next = i + 1;
+            } else if (c == ')' || c == '|' || isQuantifierStart(c)) {
+                break;
+            } else {
+                atom = String.valueOf(c);
+                next = i + 1;
+            }
+
+            int quantifierEnd = skipQuantifier(regex, next);
+            boolean optional = quantifierEnd > next && isOptionalQuantifier(regex, next);
+            boolean repeated = quantifierEnd > next;
+            if (atom != null && !optional) {
+                if (repeated && atom.length() > 1) {
+                    // a quantifier after \Q..\E only applies to its last character
+                    current.append(atom, 0, atom.length() - 1);
+                    longest = longer(longest, current);
+                    current.setLength(0);
+                    current.append(atom.charAt(atom.length() - 1));
+                } else {
+                    current.append(atom);
+                }
+            }
+            if (atom == null || optional || repeated) {
+                longest = longer(longest, current);
+                current.setLength(0);
+            }
+            i = quantifierEnd;
+        }
+        return longer(longest, current);
+    }
+
+    private static String longer(String longest, StringBuilder current) {
+        return current.length() > longest.length() ? current.toString() : longest;
+    }
+
+    private static boolean isQuantifierStart(char c) {
+        return c == '?' || c == '*' || c == '+' || c == '{';
+    }
+
+    private static boolean isOptionalQuantifier(String regex, int i) {
+        char c = regex.charAt(i);
+        return c == '?' || c == '*' || (c == '{' && i + 1 < regex.length() && regex.charAt(i + 1) == '0');
+    }
+
+    /**
+     * @return the index after the quantifier starting at {@code i}, including a lazy or possessive suffix, or
+     * {@code i} if there is none
+     */
+    private static int skipQuantifier(String regex, int i) {
+        if (i >= regex.length() || !isQuantifierStart(regex.charAt(i))) {
+            return i;
+        }
+        int end = regex.charAt(i) == '{' ? regex.indexOf('}', i) + 1 : i + 1;
+        if (end > 0 && end < regex.length() && (regex.charAt(end) == '?' || regex.charAt(end) == '+')) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * @return the index of the {@code ]} closing the class that starts at {@code start}, or -1
+     */
+    private static int skipClass(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') {
+                    i++;
+                }
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    i++;
+                }
+            } else if (c == ']' && --depth == 0) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the {@code )} closing the group that starts at {@code start}
+     */
+    private static int skipGroup(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                i = skipClass(regex, i);
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+            i++;
+        }
+        return regex.length();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+import com.appdynamics.extensions.logmonitor.LogEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Hands the events of one chunk of a parallel scan over to the {@link LogMetrics} of the whole log in file order. The
+ * events of the chunk at the head, the first chunk that is not done yet, are handed over as they are found, so that
+ * they are published while the scan goes on. The events of a later chunk are kept until all chunks before it are
+ * done. The events kept by all chunks of a scan share a bounded number of permits, and an event found when none is
+ * left is dropped.
+ */
+public class ChunkEventBuffer {
+    private final LogMetrics target;
+    private final Semaphore permits;
+    private final List<LogEvent> events = new ArrayList<LogEvent>();
+    private boolean head;
+
+    public ChunkEventBuffer(LogMetrics target, Semaphore permits) {
+        this.target = target;
+        this.permits = permits;
+    }
+
+    /**
+     * @return false if the event was dropped, because no permit is left or by the target
+     */
+    synchronized boolean add(LogEvent logEvent) {
+        if (head) {
+            return target.addLogEvent(logEvent);
+        }
+        if (!permits.tryAcquire()) {
+            return false;
+        }
+        events.add(logEvent);
+        return true;
+    }
+
+    /**
+     * Hands the events kept so far over to the target, and the following ones as they are found.
+     *
+     * @return the number of events dropped by the target
+     */
+    public synchronized int moveToHead() {
+        head = true;
+        int droppedEvents = 0;
+        for (LogEvent logEvent : events) {
+            if (!target.addLogEvent(logEvent)) {
+                droppedEvents++;
+            }
+        }
+        permits.release(events.size());
+        events.clear();
+        return droppedEvents;
+    }
+}
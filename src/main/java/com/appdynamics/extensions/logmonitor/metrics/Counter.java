@@ -0,0 +1,40 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count registered in {@link LogMetrics}. It can be incremented from several processors at once and is only turned
+ * into a {@link com.appdynamics.extensions.metrics.Metric} when the metrics are printed.
+ */
+public class Counter {
+    private final String metricPath;
+    private final LongAdder value = new LongAdder();
+
+    Counter(String metricPath) {
+        this.metricPath = metricPath;
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long delta) {
+        value.add(delta);
+    }
+
+    public long sum() {
+        return value.sum();
+    }
+
+    public String getMetricPath() {
+        return metricPath;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+/**
+ * Estimates the number of distinct strings matched by a search string with a HyperLogLog sketch of
+ * {@value #REGISTER_COUNT} one byte registers, whatever the number of strings. The estimate is typically within 2% of
+ * the real count, and exact enough for small counts thanks to linear counting.
+ */
+public class DistinctCounter {
+    private static final int PRECISION = 12;
+    private static final int REGISTER_COUNT = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTER_COUNT);
+
+    private final String metricPath;
+    private final byte[] registers = new byte[REGISTER_COUNT];
+
+    DistinctCounter(String metricPath) {
+        this.metricPath = metricPath;
+    }
+
+    public String getMetricPath() {
+        return metricPath;
+    }
+
+    /**
+     * Adds the chars of {@code value} from {@code start} to {@code end}, without their leading and trailing
+     * whitespace and ignoring case unless {@code caseSensitive} is set, the same way matched strings are printed.
+     */
+    public void offer(CharSequence value, int start, int end, boolean caseSensitive) {
+        while (start < end && Character.isWhitespace(value.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (caseSensitive ? c : Character.toLowerCase(Character.toUpperCase(c)))) * 0x100000001b3L;
+        }
+        offer(mix(hash));
+    }
+
+    private synchronized void offer(long hash) {
+        int index = (int) (hash >>> (64 - PRECISION));
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    synchronized void merge(DistinctCounter other) {
+        synchronized (other) {
+            for (int i = 0; i < REGISTER_COUNT; i++) {
+                if (other.registers[i] > registers[i]) {
+                    registers[i] = other.registers[i];
+                }
+            }
+        }
+    }
+
+    public synchronized long estimate() {
+        double sum = 0;
+        int emptyRegisters = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                emptyRegisters++;
+            }
+        }
+        double estimate = ALPHA * REGISTER_COUNT * REGISTER_COUNT / sum;
+        if (estimate <= 2.5 * REGISTER_COUNT && emptyRegisters > 0) {
+            estimate = REGISTER_COUNT * Math.log((double) REGISTER_COUNT / emptyRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Spreads the bits of the FNV-1a hash, whose high bits depend little on the last chars of short strings.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+/**
+ * Counts matches by the minute of their log line in a ring of {@value #MINUTES} minutes ending at the newest match, so
+ * that the rate of a search string can be reported from the time of the lines rather than from the time they were
+ * read. A backlog of several hours read at once then gives the rate of its last hour instead of one huge spike.
+ */
+public class EventTimeCounter {
+    static final int MINUTES = 60;
+    private static final long MINUTE_MILLIS = 60000;
+
+    private final String metricPath;
+    private final long[] minutes = new long[MINUTES];
+    private final long[] counts = new long[MINUTES];
+    private final long[] oldestTimestamps = new long[MINUTES];
+    private long newestTimestamp = Long.MIN_VALUE;
+
+    EventTimeCounter(String metricPath) {
+        this.metricPath = metricPath;
+        for (int i = 0; i < MINUTES; i++) {
+            minutes[i] = Long.MIN_VALUE;
+        }
+    }
+
+    public String getMetricPath() {
+        return metricPath;
+    }
+
+    /**
+     * @param timestamp the time of the matching line in milliseconds since the epoch
+     */
+    public synchronized void increment(long timestamp) {
+        add(timestamp, timestamp, 1);
+    }
+
+    synchronized void merge(EventTimeCounter other) {
+        synchronized (other) {
+            for (int i = 0; i < MINUTES; i++) {
+                if (other.counts[i] > 0) {
+                    add(other.oldestTimestamps[i], other.oldestTimestamps[i], other.counts[i]);
+                }
+            }
+            if (other.newestTimestamp != Long.MIN_VALUE) {
+                add(other.newestTimestamp, other.newestTimestamp, 0);
+            }
+        }
+    }
+
+    private void add(long timestamp, long oldestTimestamp, long count) {
+        long minute = Math.floorDiv(timestamp, MINUTE_MILLIS);
+        newestTimestamp = Math.max(newestTimestamp, timestamp);
+        long newestMinute = Math.floorDiv(newestTimestamp, MINUTE_MILLIS);
+        if (minute <= newestMinute - MINUTES) {
+            return;
+        }
+        int slot = (int) Math.floorMod(minute, (long) MINUTES);
+        if (minutes[slot] != minute) {
+            minutes[slot] = minute;
+            counts[slot] = 0;
+            oldestTimestamps[slot] = oldestTimestamp;
+        }
+        counts[slot] += count;
+        oldestTimestamps[slot] = Math.min(oldestTimestamps[slot], oldestTimestamp);
+    }
+
+    /**
+     * @return the matches per minute between the oldest and the newest match of the ring, taking at least a minute
+     */
+    public synchronized long getOccurrencesPerMinute() {
+        if (newestTimestamp == Long.MIN_VALUE) {
+            return 0;
+        }
+        long newestMinute = Math.floorDiv(newestTimestamp, MINUTE_MILLIS);
+        long sum = 0;
+        long oldestTimestamp = newestTimestamp;
+        for (int i = 0; i < MINUTES; i++) {
+            if (minutes[i] > newestMinute - MINUTES && counts[i] > 0) {
+                sum += counts[i];
+                oldestTimestamp = Math.min(oldestTimestamp, oldestTimestamps[i]);
+            }
+        }
+        return Math.round(sum * (double) MINUTE_MILLIS / Math.max(newestTimestamp - oldestTimestamp, MINUTE_MILLIS));
+    }
+}
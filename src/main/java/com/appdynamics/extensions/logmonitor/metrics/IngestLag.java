@@ -0,0 +1,47 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the time of the newest line read from a log, to report how far behind the time the metrics are printed the
+ * scan is.
+ */
+public class IngestLag {
+    private final String metricPath;
+    private final AtomicLong newestTimestamp = new AtomicLong(Long.MIN_VALUE);
+
+    IngestLag(String metricPath) {
+        this.metricPath = metricPath;
+    }
+
+    public String getMetricPath() {
+        return metricPath;
+    }
+
+    public void update(long timestamp) {
+        long newest = newestTimestamp.get();
+        while (timestamp > newest && !newestTimestamp.compareAndSet(newest, timestamp)) {
+            newest = newestTimestamp.get();
+        }
+    }
+
+    public long getNewestTimestamp() {
+        return newestTimestamp.get();
+    }
+
+    /**
+     * @return the seconds from the newest line to {@code now}, never negative, or null if no line had a timestamp
+     */
+    public Long getLagSeconds(long now) {
+        long newest = newestTimestamp.get();
+        return newest == Long.MIN_VALUE ? null : Math.max(0, (now - newest) / 1000);
+    }
+}
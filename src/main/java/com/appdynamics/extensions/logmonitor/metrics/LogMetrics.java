@@ -9,13 +9,19 @@
 
 package com.appdynamics.extensions.logmonitor.metrics;
 
+import com.appdynamics.extensions.logmonitor.EventDeduplicator;
 import com.appdynamics.extensions.logmonitor.LogEvent;
+import com.appdynamics.extensions.logmonitor.LogEventPublisher;
 import com.appdynamics.extensions.logmonitor.config.FilePointer;
 import com.appdynamics.extensions.metrics.Metric;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
-import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -26,8 +32,21 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class LogMetrics {
     private String metricPrefix;
     private CopyOnWriteArrayList<FilePointer> filePointers = new CopyOnWriteArrayList<FilePointer>();
-    private CopyOnWriteArrayList<LogEvent> eventsToBePublished = new CopyOnWriteArrayList<LogEvent>();
+    private List<LogEvent> eventsToBePublished = Collections.synchronizedList(new ArrayList<LogEvent>());
+    private LogEventPublisher logEventPublisher;
+    private EventDeduplicator eventDeduplicator;
+    private ChunkEventBuffer chunkEventBuffer;
     private ConcurrentHashMap<String, Metric> metrics = new ConcurrentHashMap<String, Metric>();
+    private ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+    private ConcurrentHashMap<String, TopMatchedStrings> topMatchedStrings =
+            new ConcurrentHashMap<String, TopMatchedStrings>();
+    private ConcurrentHashMap<String, TemplateCounts> templateCounts = new ConcurrentHashMap<String, TemplateCounts>();
+    private ConcurrentHashMap<String, DistinctCounter> distinctCounters =
+            new ConcurrentHashMap<String, DistinctCounter>();
+    private ConcurrentHashMap<String, ValueHistogram> valueHistograms = new ConcurrentHashMap<String, ValueHistogram>();
+    private ConcurrentHashMap<String, EventTimeCounter> eventTimeCounters =
+            new ConcurrentHashMap<String, EventTimeCounter>();
+    private ConcurrentHashMap<String, IngestLag> ingestLags = new ConcurrentHashMap<String, IngestLag>();
 
     public String getMetricPrefix() {
         return metricPrefix;
@@ -37,20 +56,193 @@ public class LogMetrics {
         this.metricPrefix = metricPrefix;
     }
 
+    public LogEventPublisher getLogEventPublisher() {
+        return logEventPublisher;
+    }
+
+    /**
+     * Events are handed over to {@code logEventPublisher} as they are found instead of being kept until the scan is
+     * done.
+     */
+    public void setLogEventPublisher(LogEventPublisher logEventPublisher) {
+        this.logEventPublisher = logEventPublisher;
+    }
+
+    public EventDeduplicator getEventDeduplicator() {
+        return eventDeduplicator;
+    }
+
+    /**
+     * Events are held by {@code eventDeduplicator} until {@link #flushDeduplicatedEvents()} is called, so that repeated
+     * matches are sent as one event.
+     */
+    public void setEventDeduplicator(EventDeduplicator eventDeduplicator) {
+        this.eventDeduplicator = eventDeduplicator;
+    }
+
+    /**
+     * Increments the count of {@code metricName}. Processors that update a count for every match should look the
+     * {@link Counter} up once with {@link #getCounter(String, String)} instead.
+     */
     public void add(String metricName, String metricPath) {
-        BigInteger value;
-        if (metrics.containsKey(metricName)) {
-            value = new BigInteger(metrics.get(metricName).getMetricValue()).add(BigInteger.ONE);
-        } else {
-            value = BigInteger.ONE;
-        }
-        add(metricName, new Metric(metricName, String.valueOf(value), metricPath));
+        getCounter(metricName, metricPath).increment();
     }
 
+    /**
+     * Sets a metric whose value is not a count, such as the file size.
+     */
     public void add(String metricName, Metric metric) {
         metrics.put(metricName, metric);
     }
 
+    /**
+     * @return the counter of {@code metricName}, registered with a count of 0 if it does not exist yet
+     */
+    public Counter getCounter(String metricName, String metricPath) {
+        Counter counter = counters.get(metricName);
+        if (counter == null) {
+            Counter newCounter = new Counter(metricPath);
+            counter = counters.putIfAbsent(metricName, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * @return the distinct count of {@code metricName}, registered empty if it does not exist yet
+     */
+    public DistinctCounter getDistinctCounter(String metricName, String metricPath) {
+        DistinctCounter distinctCounter = distinctCounters.get(metricName);
+        if (distinctCounter == null) {
+            DistinctCounter newDistinctCounter = new DistinctCounter(metricPath);
+            distinctCounter = distinctCounters.putIfAbsent(metricName, newDistinctCounter);
+            if (distinctCounter == null) {
+                distinctCounter = newDistinctCounter;
+            }
+        }
+        return distinctCounter;
+    }
+
+    /**
+     * @param metricKey the metric name the metrics of the values start with, ending with the metric separator
+     * @return the histogram of the values captured for {@code metricKey}, registered empty if it does not exist yet
+     */
+    public ValueHistogram getValueHistogram(String metricKey) {
+        ValueHistogram valueHistogram = valueHistograms.get(metricKey);
+        if (valueHistogram == null) {
+            ValueHistogram newValueHistogram = new ValueHistogram(metricKey, metricPrefix);
+            valueHistogram = valueHistograms.putIfAbsent(metricKey, newValueHistogram);
+            if (valueHistogram == null) {
+                valueHistogram = newValueHistogram;
+            }
+        }
+        return valueHistogram;
+    }
+
+    /**
+     * @return the matches of {@code metricName} by the time of their line, registered empty if it does not exist yet
+     */
+    public EventTimeCounter getEventTimeCounter(String metricName, String metricPath) {
+        EventTimeCounter eventTimeCounter = eventTimeCounters.get(metricName);
+        if (eventTimeCounter == null) {
+            EventTimeCounter newEventTimeCounter = new EventTimeCounter(metricPath);
+            eventTimeCounter = eventTimeCounters.putIfAbsent(metricName, newEventTimeCounter);
+            if (eventTimeCounter == null) {
+                eventTimeCounter = newEventTimeCounter;
+            }
+        }
+        return eventTimeCounter;
+    }
+
+    /**
+     * @return the time of the newest line of a log, registered without a time if it does not exist yet
+     */
+    public IngestLag getIngestLag(String metricName, String metricPath) {
+        IngestLag ingestLag = ingestLags.get(metricName);
+        if (ingestLag == null) {
+            IngestLag newIngestLag = new IngestLag(metricPath);
+            ingestLag = ingestLags.putIfAbsent(metricName, newIngestLag);
+            if (ingestLag == null) {
+                ingestLag = newIngestLag;
+            }
+        }
+        return ingestLag;
+    }
+
+    /**
+     * @param searchStringKey the metric name of the search string, ending with the metric separator
+     * @return the most frequent strings matched by the search string, registered with room for {@code capacity}
+     * strings if it does not exist yet
+     */
+    public TopMatchedStrings getTopMatchedStrings(String searchStringKey, int capacity) {
+        TopMatchedStrings matchedStrings = topMatchedStrings.get(searchStringKey);
+        if (matchedStrings == null) {
+            TopMatchedStrings newMatchedStrings = new TopMatchedStrings(searchStringKey, metricPrefix, capacity);
+            matchedStrings = topMatchedStrings.putIfAbsent(searchStringKey, newMatchedStrings);
+            if (matchedStrings == null) {
+                matchedStrings = newMatchedStrings;
+            }
+        }
+        return matchedStrings;
+    }
+
+    /**
+     * @param searchStringKey the metric name of the search string, ending with the metric separator
+     * @return the counts of the lines of the search string by template, registered if they do not exist yet
+     */
+    public TemplateCounts getTemplateCounts(String searchStringKey) {
+        TemplateCounts counts = templateCounts.get(searchStringKey);
+        if (counts == null) {
+            TemplateCounts newCounts = new TemplateCounts(searchStringKey, metricPrefix);
+            counts = templateCounts.putIfAbsent(searchStringKey, newCounts);
+            if (counts == null) {
+                counts = newCounts;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Events are handed over to {@code chunkEventBuffer} when this instance holds the results of one chunk of a
+     * parallel scan, so that they reach the {@link LogMetrics} of the log in file order.
+     */
+    public void setChunkEventBuffer(ChunkEventBuffer chunkEventBuffer) {
+        this.chunkEventBuffer = chunkEventBuffer;
+    }
+
+    /**
+     * Adds the counts, file pointers and events of {@code other} to this instance. Used to fold the results of the
+     * chunks of a parallel scan back together.
+     */
+    public void merge(LogMetrics other) {
+        metrics.putAll(other.metrics);
+        for (Map.Entry<String, Counter> entry : other.counters.entrySet()) {
+            getCounter(entry.getKey(), entry.getValue().getMetricPath()).add(entry.getValue().sum());
+        }
+        for (Map.Entry<String, TopMatchedStrings> entry : other.topMatchedStrings.entrySet()) {
+            getTopMatchedStrings(entry.getKey(), entry.getValue().getCapacity()).merge(entry.getValue());
+        }
+        for (Map.Entry<String, TemplateCounts> entry : other.templateCounts.entrySet()) {
+            getTemplateCounts(entry.getKey()).merge(entry.getValue());
+        }
+        for (Map.Entry<String, DistinctCounter> entry : other.distinctCounters.entrySet()) {
+            getDistinctCounter(entry.getKey(), entry.getValue().getMetricPath()).merge(entry.getValue());
+        }
+        for (Map.Entry<String, ValueHistogram> entry : other.valueHistograms.entrySet()) {
+            getValueHistogram(entry.getKey()).merge(entry.getValue());
+        }
+        for (Map.Entry<String, EventTimeCounter> entry : other.eventTimeCounters.entrySet()) {
+            getEventTimeCounter(entry.getKey(), entry.getValue().getMetricPath()).merge(entry.getValue());
+        }
+        for (Map.Entry<String, IngestLag> entry : other.ingestLags.entrySet()) {
+            getIngestLag(entry.getKey(), entry.getValue().getMetricPath()).update(entry.getValue().getNewestTimestamp());
+        }
+        filePointers.addAll(other.getFilePointers());
+        eventsToBePublished.addAll(other.getEventsToBePublished());
+    }
+
     public CopyOnWriteArrayList<FilePointer> getFilePointers() {
         return this.filePointers;
     }
@@ -59,8 +251,43 @@ public class LogMetrics {
         filePointers.add(filePointer);
     }
 
-    public ConcurrentHashMap<String, Metric> getMetrics() {
-        return metrics;
+    /**
+     * Builds the {@link Metric}s of the counters, top matched strings, templates, distinct counts, captured values,
+     * event time rates and ingest lags, and adds the other metrics to them. The counts are read when this is called,
+     * so it should only be called once the processors are done.
+     */
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> allMetrics = new HashMap<String, Metric>(metrics);
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            allMetrics.put(entry.getKey(), new Metric(entry.getKey(), String.valueOf(entry.getValue().sum()),
+                    entry.getValue().getMetricPath()));
+        }
+        for (TopMatchedStrings matchedStrings : topMatchedStrings.values()) {
+            matchedStrings.addMetrics(allMetrics);
+        }
+        for (TemplateCounts counts : templateCounts.values()) {
+            counts.addMetrics(allMetrics);
+        }
+        for (Map.Entry<String, DistinctCounter> entry : distinctCounters.entrySet()) {
+            allMetrics.put(entry.getKey(), new Metric(entry.getKey(), String.valueOf(entry.getValue().estimate()),
+                    entry.getValue().getMetricPath()));
+        }
+        for (ValueHistogram valueHistogram : valueHistograms.values()) {
+            valueHistogram.addMetrics(allMetrics);
+        }
+        for (Map.Entry<String, EventTimeCounter> entry : eventTimeCounters.entrySet()) {
+            allMetrics.put(entry.getKey(), new Metric(entry.getKey(),
+                    String.valueOf(entry.getValue().getOccurrencesPerMinute()), entry.getValue().getMetricPath()));
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, IngestLag> entry : ingestLags.entrySet()) {
+            Long lagSeconds = entry.getValue().getLagSeconds(now);
+            if (lagSeconds != null) {
+                allMetrics.put(entry.getKey(), new Metric(entry.getKey(), String.valueOf(lagSeconds),
+                        entry.getValue().getMetricPath()));
+            }
+        }
+        return allMetrics;
     }
 
     @Override
@@ -69,11 +296,49 @@ public class LogMetrics {
                 ToStringStyle.SHORT_PREFIX_STYLE);
     }
 
-    public void addLogEvent(LogEvent logEvent) {
+    /**
+     * @return false if the event was dropped because the queue of the {@link LogEventPublisher} is full, or by the
+     * {@link ChunkEventBuffer}
+     */
+    public boolean addLogEvent(LogEvent logEvent) {
+        if (chunkEventBuffer != null) {
+            return chunkEventBuffer.add(logEvent);
+        }
+        if (eventDeduplicator != null) {
+            logEvent = eventDeduplicator.add(logEvent);
+            if (logEvent == null) {
+                return true;
+            }
+        }
+        return publishLogEvent(logEvent);
+    }
+
+    /**
+     * Publishes the events held by the {@link EventDeduplicator}, once the scan of the log is done.
+     *
+     * @return the number of events dropped because the queue of the {@link LogEventPublisher} is full
+     */
+    public int flushDeduplicatedEvents() {
+        int droppedEvents = 0;
+        if (eventDeduplicator != null) {
+            for (LogEvent logEvent : eventDeduplicator.drain()) {
+                if (!publishLogEvent(logEvent)) {
+                    droppedEvents++;
+                }
+            }
+        }
+        return droppedEvents;
+    }
+
+    private boolean publishLogEvent(LogEvent logEvent) {
+        if (logEventPublisher != null) {
+            return logEventPublisher.publish(logEvent);
+        }
         eventsToBePublished.add(logEvent);
+        return true;
     }
 
-    public CopyOnWriteArrayList<LogEvent> getEventsToBePublished() {
+    public List<LogEvent> getEventsToBePublished() {
         return eventsToBePublished;
     }
 }
\ No newline at end of file
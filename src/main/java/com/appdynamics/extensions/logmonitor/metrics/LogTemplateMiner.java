@@ -0,0 +1,254 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+import com.appdynamics.extensions.logging.ExtensionsLoggerFactory;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.appdynamics.extensions.logmonitor.util.Constants.METRIC_SEPARATOR;
+import static com.appdynamics.extensions.logmonitor.util.Constants.TEMPLATES;
+
+/**
+ * Learns the templates of the lines matched by a search string with the Drain algorithm, such as
+ * {@code Connection to <*> timed out after <*> ms} for the lines it stands for. A line is split into tokens on
+ * whitespace and routed through a parse tree of fixed depth, first by its number of tokens, then by its first
+ * {@value #PREFIX_TOKENS} tokens, to a leaf holding a few templates. The line joins the template sharing the most
+ * tokens with it if at least {@value #SIMILARITY_THRESHOLD} of them are shared, replacing the tokens that differ by
+ * {@value #WILDCARD}; otherwise it starts a new template. Tokens holding a digit are replaced by {@value #WILDCARD}
+ * before anything else, so numbers and IDs are variables from the start.
+ *
+ * <p> Memory is bounded: at most {@code maxTemplates} templates are learned, each of at most {@value #MAX_TOKENS}
+ * tokens, and tree nodes are only added along with a template. Once the limit is reached, lines that fit no template
+ * are not assigned one. Templates have to be learned across runs, so miners are kept for the process by the metric
+ * path of their search string and shared by the chunks of a parallel scan. </p>
+ *
+ * <p> Each template is numbered when it is learned, and its metrics are named after that number, which does not change
+ * as the template becomes more general. The text of a template is logged when it is learned and whenever it
+ * changes. </p>
+ */
+public class LogTemplateMiner {
+    private static final Logger LOGGER = ExtensionsLoggerFactory.getLogger(LogTemplateMiner.class);
+    static final String WILDCARD = "<*>";
+    private static final int PREFIX_TOKENS = 2;
+    private static final double SIMILARITY_THRESHOLD = 0.4;
+    private static final int MAX_CHILDREN = 100;
+    private static final int MAX_TOKENS = 100;
+    private static final ConcurrentHashMap<String, LogTemplateMiner> MINERS =
+            new ConcurrentHashMap<String, LogTemplateMiner>();
+    private final String metricPath;
+    private final int maxTemplates;
+    private final Map<Integer, Node> lengthNodes = new HashMap<Integer, Node>();
+    private int templateCount;
+
+    private static class Node {
+        private Map<String, Node> children = new HashMap<String, Node>();
+        private List<LogTemplate> templates = new ArrayList<LogTemplate>();
+    }
+
+    /**
+     * A template learned by a miner. Its text only gets more general as lines join it, and it is shared by the runs
+     * that count its lines.
+     */
+    public static class LogTemplate {
+        private final int id;
+        private final String[] tokens;
+        private String text;
+
+        private LogTemplate(int id, String[] tokens) {
+            this.id = id;
+            this.tokens = tokens;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public synchronized String getText() {
+            if (text == null) {
+                StringBuilder builder = new StringBuilder();
+                for (String token : tokens) {
+                    if (builder.length() > 0) {
+                        builder.append(' ');
+                    }
+                    builder.append(token);
+                }
+                text = builder.toString();
+            }
+            return text;
+        }
+
+        /**
+         * @return true if the text of the template changed
+         */
+        private synchronized boolean merge(String[] lineTokens) {
+            boolean changed = false;
+            for (int i = 0; i < tokens.length; i++) {
+                if (!tokens[i].equals(lineTokens[i])) {
+                    tokens[i] = WILDCARD;
+                    text = null;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+    }
+
+    /**
+     * @param metricPath the metric path of the search string, ending with the metric separator
+     */
+    public LogTemplateMiner(String metricPath, int maxTemplates) {
+        this.metricPath = metricPath;
+        this.maxTemplates = maxTemplates;
+    }
+
+    /**
+     * @return the miner of the search string at {@code metricPath}, replaced if it was created with another limit
+     */
+    public static LogTemplateMiner forSearchString(String metricPath, int maxTemplates) {
+        LogTemplateMiner miner = MINERS.get(metricPath);
+        if (miner != null && miner.maxTemplates == maxTemplates) {
+            return miner;
+        }
+        synchronized (MINERS) {
+            miner = MINERS.get(metricPath);
+            if (miner == null || miner.maxTemplates != maxTemplates) {
+                miner = new LogTemplateMiner(metricPath, maxTemplates);
+                MINERS.put(metricPath, miner);
+            }
+            return miner;
+        }
+    }
+
+    /**
+     * @return the template {@code line} belongs to, or null if it is blank or fits no template and no more templates
+     * can be learned
+     */
+    public synchronized LogTemplate add(CharSequence line) {
+        String[] tokens = tokenize(line);
+        if (tokens.length == 0) {
+            return null;
+        }
+        Node leaf = findLeaf(tokens);
+        if (leaf != null) {
+            LogTemplate template = findMostSimilar(leaf.templates, tokens);
+            if (template != null) {
+                if (template.merge(tokens)) {
+                    logTemplate(template);
+                }
+                return template;
+            }
+        }
+        if (templateCount >= maxTemplates) {
+            return null;
+        }
+        templateCount++;
+        LogTemplate template = new LogTemplate(templateCount, tokens);
+        addLeaf(tokens).templates.add(template);
+        logTemplate(template);
+        return template;
+    }
+
+    public synchronized int getTemplateCount() {
+        return templateCount;
+    }
+
+    private void logTemplate(LogTemplate template) {
+        LOGGER.info("{}{}{}{}{} is now : {}", metricPath, TEMPLATES, METRIC_SEPARATOR, TemplateCounts.TEMPLATE,
+                template.getId(), template.getText());
+    }
+
+    private Node findLeaf(String[] tokens) {
+        Node node = lengthNodes.get(tokens.length);
+        for (int i = 0; node != null && i < Math.min(PREFIX_TOKENS, tokens.length); i++) {
+            Node child = node.children.get(tokens[i]);
+            node = child != null ? child : node.children.get(WILDCARD);
+        }
+        return node;
+    }
+
+    private Node addLeaf(String[] tokens) {
+        Node node = lengthNodes.get(tokens.length);
+        if (node == null) {
+            node = new Node();
+            lengthNodes.put(tokens.length, node);
+        }
+        for (int i = 0; i < Math.min(PREFIX_TOKENS, tokens.length); i++) {
+            String key = !node.children.containsKey(tokens[i]) && node.children.size() >= MAX_CHILDREN ? WILDCARD
+                    : tokens[i];
+            Node child = node.children.get(key);
+            if (child == null) {
+                child = new Node();
+                node.children.put(key, child);
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Similarity is the share of the tokens of the line equal to the token of the template, so a wildcard is only
+     * shared with a token holding a digit. Among equally similar templates, the one with the most wildcards is taken.
+     */
+    private LogTemplate findMostSimilar(List<LogTemplate> templates, String[] tokens) {
+        LogTemplate mostSimilar = null;
+        double maxSimilarity = -1;
+        int maxWildcards = -1;
+        for (LogTemplate template : templates) {
+            int shared = 0;
+            int wildcards = 0;
+            for (int i = 0; i < tokens.length; i++) {
+                if (WILDCARD.equals(template.tokens[i])) {
+                    wildcards++;
+                }
+                if (template.tokens[i].equals(tokens[i])) {
+                    shared++;
+                }
+            }
+            double similarity = (double) shared / tokens.length;
+            if (similarity > maxSimilarity || (similarity == maxSimilarity && wildcards > maxWildcards)) {
+                mostSimilar = template;
+                maxSimilarity = similarity;
+                maxWildcards = wildcards;
+            }
+        }
+        return maxSimilarity >= SIMILARITY_THRESHOLD ? mostSimilar : null;
+    }
+
+    private static String[] tokenize(CharSequence line) {
+        List<String> tokens = new ArrayList<String>();
+        int start = -1;
+        for (int i = 0; i <= line.length() && tokens.size() < MAX_TOKENS; i++) {
+            if (i == line.length() || Character.isWhitespace(line.charAt(i))) {
+                if (start >= 0) {
+                    String token = line.subSequence(start, i).toString();
+                    tokens.add(hasDigit(token) ? WILDCARD : token);
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        return tokens.toArray(new String[tokens.size()]);
+    }
+
+    private static boolean hasDigit(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.isDigit(token.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
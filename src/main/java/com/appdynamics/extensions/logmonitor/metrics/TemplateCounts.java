@@ -0,0 +1,87 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+import com.appdynamics.extensions.logmonitor.metrics.LogTemplateMiner.LogTemplate;
+import com.appdynamics.extensions.metrics.Metric;
+import com.appdynamics.extensions.util.MetricPathUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.appdynamics.extensions.logmonitor.util.Constants.METRIC_SEPARATOR;
+import static com.appdynamics.extensions.logmonitor.util.Constants.OTHER;
+import static com.appdynamics.extensions.logmonitor.util.Constants.TEMPLATES;
+
+/**
+ * Counts the lines of a search string by their {@link LogTemplate} during a run. The metrics are named after the number
+ * of the template rather than its text, so that a metric keeps its path as the template becomes more general and no
+ * token read from the log ends up in a metric path. Lines without a template are reported as
+ * {@link com.appdynamics.extensions.logmonitor.util.Constants#OTHER}.
+ */
+public class TemplateCounts {
+    static final String TEMPLATE = "Template ";
+    private final String searchStringKey;
+    private final String metricPrefix;
+    private final Map<LogTemplate, long[]> counts = new HashMap<LogTemplate, long[]>();
+    private long other;
+
+    /**
+     * @param searchStringKey the metric name of the search string, ending with the metric separator
+     */
+    TemplateCounts(String searchStringKey, String metricPrefix) {
+        this.searchStringKey = searchStringKey;
+        this.metricPrefix = metricPrefix;
+    }
+
+    /**
+     * @param template the template of the line, or null if it has none
+     */
+    public synchronized void increment(LogTemplate template) {
+        add(template, 1);
+    }
+
+    synchronized void merge(TemplateCounts other) {
+        synchronized (other) {
+            for (Map.Entry<LogTemplate, long[]> entry : other.counts.entrySet()) {
+                add(entry.getKey(), entry.getValue()[0]);
+            }
+            this.other += other.other;
+        }
+    }
+
+    private void add(LogTemplate template, long count) {
+        if (template == null) {
+            other += count;
+            return;
+        }
+        long[] templateCount = counts.get(template);
+        if (templateCount == null) {
+            counts.put(template, new long[]{count});
+        } else {
+            templateCount[0] += count;
+        }
+    }
+
+    synchronized void addMetrics(Map<String, Metric> metrics) {
+        Map<String, Long> countsByName = new HashMap<String, Long>();
+        for (Map.Entry<LogTemplate, long[]> entry : counts.entrySet()) {
+            countsByName.put(TEMPLATE + entry.getKey().getId(), entry.getValue()[0]);
+        }
+        if (other > 0) {
+            countsByName.put(OTHER, other);
+        }
+        for (Map.Entry<String, Long> entry : countsByName.entrySet()) {
+            String metricName = searchStringKey + TEMPLATES + METRIC_SEPARATOR + entry.getKey();
+            String path = MetricPathUtils.buildMetricPath(searchStringKey, TEMPLATES, entry.getKey());
+            metrics.put(metricName, new Metric(metricName, String.valueOf(entry.getValue()),
+                    metricPrefix + METRIC_SEPARATOR + path));
+        }
+    }
+}
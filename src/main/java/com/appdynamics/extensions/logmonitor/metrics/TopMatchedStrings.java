@@ -0,0 +1,153 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+import com.appdynamics.extensions.metrics.Metric;
+import com.appdynamics.extensions.util.MetricPathUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.appdynamics.extensions.logmonitor.util.Constants.MATCHES;
+import static com.appdynamics.extensions.logmonitor.util.Constants.METRIC_SEPARATOR;
+import static com.appdynamics.extensions.logmonitor.util.Constants.OTHER;
+
+/**
+ * Counts the strings matched by a search string with the Space-Saving algorithm, keeping at most {@code capacity}
+ * of them. While no more distinct strings than that are matched the counts are exact. After that, a new string takes
+ * over the slot of the least frequent one and inherits its count, so only the part of each count that is guaranteed
+ * is reported and the remaining matches are reported as {@link com.appdynamics.extensions.logmonitor.util.Constants#OTHER}.
+ */
+public class TopMatchedStrings {
+    private final String searchStringKey;
+    private final String metricPrefix;
+    private final int capacity;
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    // min-heap on the count, so that the slot to take over is at the root
+    private final Entry[] heap;
+    private int size;
+    private long total;
+
+    private static class Entry {
+        private String value;
+        private long count;
+        private long error;
+        private int index;
+    }
+
+    /**
+     * @param searchStringKey the metric name of the search string, ending with the metric separator
+     */
+    TopMatchedStrings(String searchStringKey, String metricPrefix, int capacity) {
+        this.searchStringKey = searchStringKey;
+        this.metricPrefix = metricPrefix;
+        this.capacity = capacity;
+        this.heap = new Entry[capacity];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized void offer(String matchedString) {
+        offer(matchedString, 1, 0);
+    }
+
+    synchronized void merge(TopMatchedStrings other) {
+        synchronized (other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.heap[i].value, other.heap[i].count, other.heap[i].error);
+            }
+        }
+    }
+
+    private void offer(String matchedString, long count, long error) {
+        total += count;
+        Entry entry = entries.get(matchedString);
+        if (entry != null) {
+            entry.count += count;
+            entry.error += error;
+            siftDown(entry.index);
+        } else if (size < capacity) {
+            entry = new Entry();
+            entry.value = matchedString;
+            entry.count = count;
+            entry.error = error;
+            entry.index = size;
+            heap[size++] = entry;
+            entries.put(matchedString, entry);
+            siftUp(entry.index);
+        } else {
+            entry = heap[0];
+            entries.remove(entry.value);
+            entry.value = matchedString;
+            entry.error = entry.count + error;
+            entry.count += count;
+            entries.put(matchedString, entry);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Adds a metric for each string with a guaranteed count, and one for the other matches if there are any.
+     */
+    synchronized void addMetrics(Map<String, Metric> metrics) {
+        long reported = 0;
+        for (int i = 0; i < size; i++) {
+            long guaranteed = heap[i].count - heap[i].error;
+            if (guaranteed > 0) {
+                addMetric(metrics, heap[i].value, guaranteed);
+                reported += guaranteed;
+            }
+        }
+        if (total > reported) {
+            addMetric(metrics, OTHER, total - reported);
+        }
+    }
+
+    private void addMetric(Map<String, Metric> metrics, String matchedString, long value) {
+        String metricName = searchStringKey + MATCHES + METRIC_SEPARATOR + matchedString;
+        String path = MetricPathUtils.buildMetricPath(searchStringKey, MATCHES, matchedString);
+        metrics.put(metricName, new Metric(metricName, String.valueOf(value), metricPrefix + METRIC_SEPARATOR + path));
+    }
+
+    private void siftUp(int index) {
+        Entry entry = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].count <= entry.count) {
+                break;
+            }
+            move(heap[parent], index);
+            index = parent;
+        }
+        move(entry, index);
+    }
+
+    private void siftDown(int index) {
+        Entry entry = heap[index];
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (entry.count <= heap[child].count) {
+                break;
+            }
+            move(heap[child], index);
+            index = child;
+        }
+        move(entry, index);
+    }
+
+    private void move(Entry entry, int index) {
+        heap[index] = entry;
+        entry.index = index;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+import com.appdynamics.extensions.metrics.Metric;
+
+import java.util.Map;
+
+import static com.appdynamics.extensions.logmonitor.util.Constants.COUNT;
+import static com.appdynamics.extensions.logmonitor.util.Constants.MAX;
+import static com.appdynamics.extensions.logmonitor.util.Constants.METRIC_SEPARATOR;
+import static com.appdynamics.extensions.logmonitor.util.Constants.MIN;
+
+/**
+ * Records the values captured by a search string in log-linear buckets, the way HdrHistogram does: a value falls in
+ * a bucket of its power of two, split in {@value #SUB_BUCKET_COUNT} linear sub-buckets, so that percentiles are
+ * reported within 0.4% of a real value. The sub-buckets of a power of two are only allocated once a value falls in
+ * it, which keeps the memory to a few KB for values in a usual range. Values below {@code 2^-20}, including 0, are
+ * counted as 0; negative values and values of {@code 2^64} or more are not recorded.
+ */
+public class ValueHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MIN_EXPONENT = -20;
+    private static final int MAX_EXPONENT = 63;
+    private static final int[] PERCENTILES = {50, 95, 99};
+
+    private final String metricKey;
+    private final String metricPrefix;
+    private final long[][] buckets = new long[MAX_EXPONENT - MIN_EXPONENT + 1][];
+    private long zeroCount;
+    private long count;
+    private double min = Double.MAX_VALUE;
+    private double max;
+
+    /**
+     * @param metricKey the metric name the metrics of the values start with, ending with the metric separator
+     */
+    ValueHistogram(String metricKey, String metricPrefix) {
+        this.metricKey = metricKey;
+        this.metricPrefix = metricPrefix;
+    }
+
+    public String getMetricKey() {
+        return metricKey;
+    }
+
+    /**
+     * @return false if the value can not be recorded as it is negative, too large or not a number
+     */
+    public synchronized boolean record(double value) {
+        int exponent = Math.getExponent(value);
+        if (!(value >= 0) || exponent > MAX_EXPONENT) {
+            return false;
+        }
+        if (exponent < MIN_EXPONENT) {
+            zeroCount++;
+        } else {
+            int subBucket = (int) ((Double.doubleToRawLongBits(value) >>> (52 - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1));
+            bucketsOf(exponent)[subBucket]++;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        return true;
+    }
+
+    synchronized void merge(ValueHistogram other) {
+        synchronized (other) {
+            for (int i = 0; i < buckets.length; i++) {
+                if (other.buckets[i] != null) {
+                    long[] subBuckets = bucketsOf(i + MIN_EXPONENT);
+                    for (int j = 0; j < SUB_BUCKET_COUNT; j++) {
+                        subBuckets[j] += other.buckets[i][j];
+                    }
+                }
+            }
+            zeroCount += other.zeroCount;
+            count += other.count;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+    }
+
+    /**
+     * @return the value below which {@code percentile} percent of the values are, or 0 if there is none
+     */
+    public synchronized double getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = zeroCount;
+        if (seen >= rank) {
+            return min;
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] == null) {
+                continue;
+            }
+            for (int j = 0; j < SUB_BUCKET_COUNT; j++) {
+                seen += buckets[i][j];
+                if (seen >= rank) {
+                    double lowest = Math.scalb(1.0 + (double) j / SUB_BUCKET_COUNT, i + MIN_EXPONENT);
+                    double middle = lowest + Math.scalb(0.5 / SUB_BUCKET_COUNT, i + MIN_EXPONENT);
+                    return Math.min(max, Math.max(min, middle));
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Adds the count of the values and, if there are any, their min, max and percentiles. Values are rounded as
+     * metrics are reported as whole numbers.
+     */
+    synchronized void addMetrics(Map<String, Metric> metrics) {
+        addMetric(metrics, COUNT, count);
+        if (count > 0) {
+            addMetric(metrics, MIN, Math.round(min));
+            addMetric(metrics, MAX, Math.round(max));
+            for (int percentile : PERCENTILES) {
+                addMetric(metrics, "P" + percentile, Math.round(getValueAtPercentile(percentile)));
+            }
+        }
+    }
+
+    private void addMetric(Map<String, Metric> metrics, String name, long value) {
+        String metricName = metricKey + name;
+        metrics.put(metricName, new Metric(metricName, String.valueOf(value),
+                metricPrefix + METRIC_SEPARATOR + metricName));
+    }
+
+    private long[] bucketsOf(int exponent) {
+        long[] subBuckets = buckets[exponent - MIN_EXPONENT];
+        if (subBuckets == null) {
+            subBuckets = new long[SUB_BUCKET_COUNT];
+            buckets[exponent - MIN_EXPONENT] = subBuckets;
+        }
+        return subBuckets;
+    }
+}
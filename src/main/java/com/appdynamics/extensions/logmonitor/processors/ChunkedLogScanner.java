@@ -0,0 +1,201 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.processors;
+
+import com.appdynamics.extensions.eventsservice.EventsServiceDataManager;
+import com.appdynamics.extensions.logging.ExtensionsLoggerFactory;
+import com.appdynamics.extensions.logmonitor.config.Log;
+import com.appdynamics.extensions.logmonitor.metrics.ChunkEventBuffer;
+import com.appdynamics.extensions.logmonitor.metrics.LogMetrics;
+import com.appdynamics.extensions.logmonitor.reader.LogReader;
+import com.google.common.collect.Lists;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import static com.appdynamics.extensions.logmonitor.util.Constants.EVENTS_DROPPED;
+import static com.appdynamics.extensions.logmonitor.util.Constants.METRIC_SEPARATOR;
+import static com.appdynamics.extensions.logmonitor.util.LogMonitorUtil.closeLogReader;
+import static com.appdynamics.extensions.logmonitor.util.LogMonitorUtil.createLogReader;
+
+/**
+ * Scans the unread part of a single large file in parallel. The range is split into chunks of roughly
+ * {@code chunkSize} bytes that always start at the beginning of a line, every chunk is scanned by its own
+ * {@link LogMetricsProcessor} into its own {@link LogMetrics}, and the results are merged in file order once all chunks
+ * are done. The events of a chunk are handed over through a {@link ChunkEventBuffer} as soon as the chunks before it
+ * are done, so that they are published in file order while the scan goes on; at most {@value #MAX_BUFFERED_EVENTS}
+ * events of later chunks are kept meanwhile, and the events found beyond that are counted as dropped. The file
+ * pointer only moves if every chunk was scanned successfully.
+ */
+class ChunkedLogScanner implements Runnable {
+    private static final Logger LOGGER = ExtensionsLoggerFactory.getLogger(ChunkedLogScanner.class);
+    private static final ForkJoinPool SCAN_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    private static final int MAX_BUFFERED_EVENTS = 10000;
+    private LogReader logReader;
+    private Log log;
+    private CountDownLatch latch;
+    private LogMetrics logMetrics;
+    private File currentFile;
+    private EventsServiceDataManager eventsServiceDataManager;
+    private int linesBefore;
+    private int linesAfter;
+    private long chunkSize;
+    private List<ChunkEventBuffer> eventBuffers = Lists.newArrayList();
+    private boolean[] chunksDone;
+    private int headChunk;
+
+    ChunkedLogScanner(LogReader logReader, Log log, CountDownLatch latch, LogMetrics logMetrics, File currentFile,
+                      EventsServiceDataManager eventsServiceDataManager, int linesBefore, int linesAfter,
+                      long chunkSize) {
+        this.logReader = logReader;
+        this.log = log;
+        this.latch = latch;
+        this.logMetrics = logMetrics;
+        this.currentFile = currentFile;
+        this.eventsServiceDataManager = eventsServiceDataManager;
+        this.linesBefore = linesBefore;
+        this.linesAfter = linesAfter;
+        this.chunkSize = chunkSize;
+    }
+
+    public void run() {
+        try {
+            scanInChunks();
+        } catch (Exception ex) {
+            LOGGER.error("Error encountered while scanning log file : {} in chunks", log.getDisplayName(), ex);
+        } finally {
+            closeLogReader(logReader);
+            latch.countDown();
+        }
+    }
+
+    /**
+     * The reader of every chunk but the first is closed by the task scanning it, so that a pooled read buffer goes back
+     * to the pool of the thread that took it. The first chunk is read with {@code logReader}, which is closed by
+     * {@link #run()} on the thread that found the boundaries with it.
+     */
+    private void scanInChunks() throws Exception {
+        List<Long> boundaries = findChunkBoundaries(logReader.getFilePointer(), logReader.length());
+        int chunks = boundaries.size() - 1;
+        LOGGER.debug("Scanning log file {} in {} chunks", currentFile.getPath(), chunks);
+
+        List<LogMetrics> chunkMetrics = Lists.newArrayList();
+        List<LogMetricsProcessor> processors = Lists.newArrayList();
+        List<Callable<Long>> tasks = Lists.newArrayList();
+        List<LogReader> chunkReaders = Lists.newArrayList();
+        Semaphore bufferedEvents = new Semaphore(MAX_BUFFERED_EVENTS);
+        chunksDone = new boolean[chunks];
+        for (int i = 0; i < chunks; i++) {
+            final int chunk = i;
+            final boolean firstChunk = i == 0;
+            final LogReader chunkReader;
+            try {
+                chunkReader = firstChunk ? logReader : createLogReader(currentFile, log);
+            } catch (IOException ex) {
+                // the readers of the chunks set up so far are closed here as their tasks never run
+                for (LogReader createdReader : chunkReaders) {
+                    closeLogReader(createdReader);
+                }
+                throw ex;
+            }
+            if (!firstChunk) {
+                chunkReaders.add(chunkReader);
+            }
+            chunkReader.seek(boundaries.get(i));
+            LogMetrics metrics = new LogMetrics();
+            metrics.setMetricPrefix(logMetrics.getMetricPrefix());
+            ChunkEventBuffer eventBuffer = new ChunkEventBuffer(logMetrics, bufferedEvents);
+            if (firstChunk) {
+                eventBuffer.moveToHead();
+            }
+            metrics.setChunkEventBuffer(eventBuffer);
+            eventBuffers.add(eventBuffer);
+            final LogMetricsProcessor processor = new LogMetricsProcessor(chunkReader, log, null, metrics,
+                    currentFile, eventsServiceDataManager, linesBefore, linesAfter, boundaries.get(i + 1));
+            chunkMetrics.add(metrics);
+            processors.add(processor);
+            tasks.add(new Callable<Long>() {
+                public Long call() throws Exception {
+                    try {
+                        processor.processLogFile();
+                        chunkDone(chunk);
+                        return chunkReader.getFilePointer();
+                    } finally {
+                        if (!firstChunk) {
+                            closeLogReader(chunkReader);
+                        }
+                    }
+                }
+            });
+        }
+
+        List<Future<Long>> results = SCAN_POOL.invokeAll(tasks);
+        for (Future<Long> result : results) {
+            result.get();
+        }
+        for (LogMetrics metrics : chunkMetrics) {
+            logMetrics.merge(metrics);
+        }
+        // the readers of the other chunks are closed by now, the file size is read with the one of the first chunk
+        processors.get(0).recordFilePosition(logMetrics, results.get(chunks - 1).get());
+        LOGGER.info(String.format("Successfully processed log file [%s] in %d chunks", currentFile.getPath(), chunks));
+    }
+
+    /**
+     * Marks {@code chunk} as done and moves the head past the chunks done so far, so that the events kept by the next
+     * chunk are handed over, in chunk order.
+     */
+    private synchronized void chunkDone(int chunk) {
+        chunksDone[chunk] = true;
+        while (headChunk < chunksDone.length && chunksDone[headChunk]) {
+            headChunk++;
+            if (headChunk < chunksDone.length) {
+                int droppedEvents = eventBuffers.get(headChunk).moveToHead();
+                if (droppedEvents > 0) {
+                    String metricName = (StringUtils.isBlank(log.getDisplayName()) ? log.getLogName()
+                            : log.getDisplayName()) + METRIC_SEPARATOR + EVENTS_DROPPED;
+                    logMetrics.getCounter(metricName, logMetrics.getMetricPrefix() + METRIC_SEPARATOR + metricName)
+                            .add(droppedEvents);
+                }
+            }
+        }
+    }
+
+    /**
+     * Every boundary is moved forward to the start of the next line, or of the next record for a log with an event
+     * start pattern, so that no line or record is split between two chunks.
+     * Candidate offsets are aligned to four bytes to stay on a code unit boundary for UTF-16 and UTF-32 logs.
+     */
+    private List<Long> findChunkBoundaries(long start, long end) throws IOException {
+        List<Long> boundaries = Lists.newArrayList(start);
+        long candidate = start + chunkSize;
+        while (candidate < end) {
+            logReader.seek(candidate - candidate % 4);
+            logReader.readLine();
+            long boundary = logReader.getFilePointer();
+            if (boundary >= end) {
+                break;
+            }
+            if (boundary > boundaries.get(boundaries.size() - 1)) {
+                boundaries.add(boundary);
+            }
+            candidate = boundary + chunkSize;
+        }
+        boundaries.add(end);
+        return boundaries;
+    }
+}
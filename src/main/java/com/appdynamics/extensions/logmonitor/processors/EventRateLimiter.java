@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.processors;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which matches of a search string become events. A match is first kept with the probability of the sample
+ * rate, then has to take a token from a bucket that holds up to {@code maxEventsPerMinute} tokens and refills at that
+ * rate, so that bursts are sent right away but an error storm is cut to the configured rate.
+ *
+ * <p> The bucket has to outlive a run for the rate to hold across runs, so limiters are kept for the process by the
+ * metric path of their search string, and shared by the chunks of a parallel scan. A limiter is replaced when the
+ * config of its search string changes. </p>
+ */
+class EventRateLimiter {
+    private static final ConcurrentHashMap<String, EventRateLimiter> LIMITERS =
+            new ConcurrentHashMap<String, EventRateLimiter>();
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+    private Integer maxEventsPerMinute;
+    private double sampleRate;
+    private double tokens;
+    private long lastRefill;
+
+    EventRateLimiter(Integer maxEventsPerMinute, double sampleRate) {
+        this.maxEventsPerMinute = maxEventsPerMinute;
+        this.sampleRate = sampleRate;
+        if (maxEventsPerMinute != null) {
+            this.tokens = maxEventsPerMinute;
+            this.lastRefill = System.nanoTime();
+        }
+    }
+
+    /**
+     * @return the limiter of the search string at {@code metricPath}, or null if its events are neither limited nor
+     * sampled
+     */
+    static EventRateLimiter forSearchString(String metricPath, Integer maxEventsPerMinute, double sampleRate) {
+        if (maxEventsPerMinute == null && sampleRate >= 1) {
+            LIMITERS.remove(metricPath);
+            return null;
+        }
+        EventRateLimiter limiter = LIMITERS.get(metricPath);
+        if (limiter != null && limiter.hasConfig(maxEventsPerMinute, sampleRate)) {
+            return limiter;
+        }
+        synchronized (LIMITERS) {
+            limiter = LIMITERS.get(metricPath);
+            if (limiter == null || !limiter.hasConfig(maxEventsPerMinute, sampleRate)) {
+                limiter = new EventRateLimiter(maxEventsPerMinute, sampleRate);
+                LIMITERS.put(metricPath, limiter);
+            }
+            return limiter;
+        }
+    }
+
+    /**
+     * @return true if the match is sent as an event, false if it is suppressed
+     */
+    boolean tryAcquire() {
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        return maxEventsPerMinute == null || takeToken(System.nanoTime());
+    }
+
+    synchronized boolean takeToken(long now) {
+        if (now - lastRefill > 0) {
+            tokens = Math.min(maxEventsPerMinute, tokens + (double) (now - lastRefill) * maxEventsPerMinute
+                    / NANOS_PER_MINUTE);
+            lastRefill = now;
+        }
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    private boolean hasConfig(Integer maxEventsPerMinute, double sampleRate) {
+        return (maxEventsPerMinute == null ? this.maxEventsPerMinute == null
+                : maxEventsPerMinute.equals(this.maxEventsPerMinute)) && sampleRate == this.sampleRate;
+    }
+}
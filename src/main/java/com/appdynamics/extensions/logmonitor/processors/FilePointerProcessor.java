@@ -42,6 +42,13 @@ public class FilePointerProcessor {
         filePointer.setFileCreationTime(creationTimestamp);
     }
 
+    /**
+     * @return false if the log has never been read, or its file pointer was lost
+     */
+    boolean hasFilePointer(String dynamicLogPath) {
+        return filePointers.containsKey(dynamicLogPath);
+    }
+
     FilePointer getFilePointer(String dynamicLogPath, String actualLogPath) {
         if (filePointers.containsKey(dynamicLogPath)) {
             return filePointers.get(dynamicLogPath);
@@ -9,79 +9,155 @@
 package com.appdynamics.extensions.logmonitor.processors;
 
 import com.appdynamics.extensions.eventsservice.EventsServiceDataManager;
-import com.appdynamics.extensions.logging.ExtensionsLoggerFactory;
 import com.appdynamics.extensions.logmonitor.LogEvent;
+import com.appdynamics.extensions.logmonitor.LogSchemaRegistry;
 import com.appdynamics.extensions.logmonitor.config.Log;
 import com.appdynamics.extensions.logmonitor.config.SearchPattern;
-import org.bitbucket.kienerj.OptimizedRandomAccessFile;
-import org.slf4j.Logger;
+import com.appdynamics.extensions.logmonitor.metrics.LogMetrics;
+import com.appdynamics.extensions.logmonitor.reader.LineBuffer;
 
-import java.io.File;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
-import static com.appdynamics.extensions.logmonitor.util.Constants.SCHEMA_NAME;
+import static com.appdynamics.extensions.logmonitor.util.TimestampParser.NO_TIMESTAMP;
 
 /**
+ * Builds the events of the matches found by a {@link LogMetricsProcessor}. The log match of an event is the matching
+ * line joined by {@code \n} with up to {@code linesBefore} lines before it and {@code linesAfter} lines after it. The
+ * lines before are kept in a ring of reused buffers, and an event waits for the lines after it as they are scanned,
+ * so that the context never has to be read from the file again.
+ *
  * @author Aditya Jagtiani
  */
-
 class LogEventsProcessor {
-    private static final Logger LOGGER = ExtensionsLoggerFactory.getLogger(LogEventsProcessor.class);
-    private EventsServiceDataManager eventsServiceDataManager;
-    private int offset;
+    private static final DateTimeFormatter MATCH_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+            .withZone(ZoneOffset.UTC);
     private Log log;
+    private LogMetrics logMetrics;
+    private LineBuffer[] linesBefore;
+    private int linesBeforeCount;
+    private int nextLineBefore;
+    private int linesAfter;
+    private List<PendingEvent> pendingEvents = new ArrayList<PendingEvent>();
+    private int droppedEvents;
 
-    LogEventsProcessor(EventsServiceDataManager eventsServiceDataManager, int offset, Log log) {
-        this.eventsServiceDataManager = eventsServiceDataManager;
-        this.offset = offset;
+    LogEventsProcessor(EventsServiceDataManager eventsServiceDataManager, int linesBefore, int linesAfter, Log log,
+                       LogMetrics logMetrics) {
+        this.linesBefore = new LineBuffer[linesBefore];
+        for (int i = 0; i < linesBefore; i++) {
+            this.linesBefore[i] = new LineBuffer();
+        }
+        this.linesAfter = linesAfter;
         this.log = log;
-        createLogSchema();
+        this.logMetrics = logMetrics;
+        LogSchemaRegistry.ensureLogSchema(eventsServiceDataManager);
     }
 
-    LogEvent processLogEvent(SearchPattern searchPattern, OptimizedRandomAccessFile currentFile, String currentMatch) {
-        try {
-            return createLogEvent(searchPattern, currentFile, currentMatch, offset);
-        } catch (Exception ex) {
-            LOGGER.error("The events service data manager failed to initialize. Check your config.yml and retry.");
+    private static class PendingEvent {
+        private SearchPattern searchPattern;
+        private StringBuilder logMatch;
+        private int missingLines;
+        private String matchTime;
+
+        PendingEvent(SearchPattern searchPattern, StringBuilder logMatch, int missingLines, String matchTime) {
+            this.searchPattern = searchPattern;
+            this.logMatch = logMatch;
+            this.missingLines = missingLines;
+            this.matchTime = matchTime;
         }
-        return null;
     }
 
-    private void createLogSchema() {
-        try {
-            if (eventsServiceDataManager.retrieveSchema(SCHEMA_NAME).contains("logDisplayName")) {
-                LOGGER.info("Schema: {} already exists", SCHEMA_NAME);
+    /**
+     * Must be called for every line scanned, in file order. The line is added to the events waiting for lines after
+     * their match, an event is started for every pattern in {@code matchedPatterns}, and the line is then kept as
+     * context for the events of the next lines.
+     */
+    void processLine(CharSequence line, List<SearchPattern> matchedPatterns) {
+        processLine(line, matchedPatterns, NO_TIMESTAMP);
+    }
+
+    /**
+     * @param lineTimestamp the time of the line, or {@code NO_TIMESTAMP} to use the time it is read as the time of
+     *                      its matches
+     */
+    void processLine(CharSequence line, List<SearchPattern> matchedPatterns, long lineTimestamp) {
+        if (!pendingEvents.isEmpty()) {
+            Iterator<PendingEvent> iterator = pendingEvents.iterator();
+            while (iterator.hasNext()) {
+                PendingEvent pendingEvent = iterator.next();
+                pendingEvent.logMatch.append('\n').append(line);
+                if (--pendingEvent.missingLines == 0) {
+                    publish(pendingEvent);
+                    iterator.remove();
+                }
+            }
+        }
+        String matchTime = matchedPatterns.isEmpty() ? null : MATCH_TIME_FORMAT.format(Instant.ofEpochMilli(
+                lineTimestamp != NO_TIMESTAMP ? lineTimestamp : System.currentTimeMillis()));
+        for (SearchPattern searchPattern : matchedPatterns) {
+            StringBuilder logMatch = new StringBuilder();
+            for (int i = 0; i < linesBeforeCount; i++) {
+                int index = (nextLineBefore - linesBeforeCount + i + linesBefore.length) % linesBefore.length;
+                logMatch.append(linesBefore[index]).append('\n');
+            }
+            PendingEvent pendingEvent = new PendingEvent(searchPattern, logMatch.append(line), linesAfter,
+                    matchTime);
+            if (linesAfter == 0) {
+                publish(pendingEvent);
             } else {
-                LOGGER.info("Creating Schema {}", SCHEMA_NAME);
-                eventsServiceDataManager.createSchema(SCHEMA_NAME,
-                        org.apache.commons.io.FileUtils.readFileToString(new File("monitors/LogMonitor/logSchema.json")));
+                pendingEvents.add(pendingEvent);
             }
-        } catch (Exception ex) {
-            LOGGER.error("Error encountered while creating schema for log {}", log.getDisplayName(), ex.getStackTrace());
+        }
+        if (linesBefore.length > 0) {
+            LineBuffer lineBefore = linesBefore[nextLineBefore];
+            lineBefore.clear();
+            lineBefore.append(line);
+            nextLineBefore = (nextLineBefore + 1) % linesBefore.length;
+            linesBeforeCount = Math.min(linesBeforeCount + 1, linesBefore.length);
         }
     }
 
-    private LogEvent createLogEvent(SearchPattern searchPattern, OptimizedRandomAccessFile randomAccessFile,
-                                    String currentMatch, int offset) {
-        try {
-            LogEvent logEvent = new LogEvent();
-            logEvent.setLogDisplayName(log.getDisplayName());
-            logEvent.setSearchPattern(searchPattern.getDisplayName());
-            if (offset > 0) {
-                StringBuilder sb = new StringBuilder(currentMatch);
-                long originalFilePointerPosition = randomAccessFile.getFilePointer();
-                for (int i = 0; i < offset; i++) {
-                    sb.append(randomAccessFile.readLine()).append('\n');
-                }
-                currentMatch = sb.toString();
-                randomAccessFile.seek(originalFilePointerPosition);
-            }
-            logEvent.setLogMatch(currentMatch);
-            logEvent.setSearchPattern(searchPattern.getPattern().pattern());
-            return logEvent;
-        } catch (Exception ex) {
-            LOGGER.error("Error encountered while generating event for log {} and search pattern {}",
-                    log.getDisplayName(), searchPattern.getPattern().pattern(), ex);
+    boolean hasPendingEvents() {
+        return !pendingEvents.isEmpty();
+    }
+
+    /**
+     * Publishes the events still waiting for lines after their match with the lines read so far, as when the end of
+     * the file has been reached.
+     */
+    void flush() {
+        for (PendingEvent pendingEvent : pendingEvents) {
+            publish(pendingEvent);
         }
-        return null;
+        pendingEvents.clear();
+    }
+
+    /**
+     * @return the events dropped because the events queue was full
+     */
+    int getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    private void publish(PendingEvent pendingEvent) {
+        if (!logMetrics.addLogEvent(createLogEvent(pendingEvent.searchPattern, pendingEvent.logMatch.toString(),
+                pendingEvent.matchTime))) {
+            droppedEvents++;
+        }
+    }
+
+    private LogEvent createLogEvent(SearchPattern searchPattern, String logMatch, String matchTime) {
+        LogEvent logEvent = new LogEvent();
+        logEvent.setLogDisplayName(log.getDisplayName());
+        logEvent.setSearchPattern(searchPattern.getDisplayName());
+        logEvent.setLogMatch(logMatch);
+        logEvent.setSearchPattern(searchPattern.getPattern().pattern());
+        logEvent.setFirstSeen(matchTime);
+        logEvent.setLastSeen(matchTime);
+        return logEvent;
     }
 }
\ No newline at end of file
@@ -12,14 +12,17 @@ import com.appdynamics.extensions.conf.MonitorContextConfiguration;
 import com.appdynamics.extensions.eventsservice.EventsServiceDataManager;
 import com.appdynamics.extensions.executorservice.MonitorExecutorService;
 import com.appdynamics.extensions.logging.ExtensionsLoggerFactory;
+import com.appdynamics.extensions.logmonitor.LogEventPublisher;
 import com.appdynamics.extensions.logmonitor.config.FilePointer;
 import com.appdynamics.extensions.logmonitor.config.Log;
 import com.appdynamics.extensions.logmonitor.metrics.LogMetrics;
+import com.appdynamics.extensions.logmonitor.reader.LogReader;
 import com.appdynamics.extensions.logmonitor.util.LogMonitorUtil;
+import com.appdynamics.extensions.logmonitor.util.StartFrom;
+import com.appdynamics.extensions.logmonitor.util.TimestampParser;
 import com.google.common.collect.Lists;
 import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.apache.commons.lang3.StringUtils;
-import org.bitbucket.kienerj.OptimizedRandomAccessFile;
 import org.slf4j.Logger;
 
 import java.io.File;
@@ -30,6 +33,8 @@ import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 
+import static com.appdynamics.extensions.logmonitor.util.Constants.EVENTS_DROPPED;
+import static com.appdynamics.extensions.logmonitor.util.Constants.METRIC_SEPARATOR;
 import static com.appdynamics.extensions.logmonitor.util.LogMonitorUtil.*;
 
 /**
@@ -43,7 +48,9 @@ public class LogFileManager {
     private MonitorContextConfiguration monitorContextConfiguration;
     private MonitorExecutorService executorService;
     private EventsServiceDataManager eventsServiceDataManager;
-    private int offset;
+    private LogEventPublisher logEventPublisher;
+    private int linesBefore;
+    private int linesAfter;
 
     public LogFileManager(FilePointerProcessor filePointerProcessor, Log log,
                           MonitorContextConfiguration monitorContextConfiguration) {
@@ -53,31 +60,54 @@ public class LogFileManager {
         this.executorService = this.monitorContextConfiguration.getContext().getExecutorService();
     }
 
+    /**
+     * Creates a manager that hands the events it finds over to {@code logEventPublisher} while the log is scanned,
+     * instead of keeping them in the returned {@link LogMetrics}.
+     */
+    public LogFileManager(FilePointerProcessor filePointerProcessor, Log log,
+                          MonitorContextConfiguration monitorContextConfiguration, LogEventPublisher logEventPublisher) {
+        this(filePointerProcessor, log, monitorContextConfiguration);
+        this.logEventPublisher = logEventPublisher;
+    }
+
     public LogMetrics processLogMetrics() throws Exception {
         LOGGER.info("Starting the metric collection process for log : {}", log.getDisplayName());
         String dirPath = resolveDirPath(log.getLogDirectory());
         File file = getLogFile(dirPath);
         LogMetrics logMetrics = new LogMetrics();
         logMetrics.setMetricPrefix(monitorContextConfiguration.getMetricPrefix());
+        logMetrics.setLogEventPublisher(logEventPublisher);
 
         if (file != null) {
             try {
                 CountDownLatch latch;
                 String dynamicLogPath = dirPath + log.getLogName();
+                boolean firstSight = !filePointerProcessor.hasFilePointer(dynamicLogPath);
                 long currentTimeStampFromFilePointer = getCurrentTimeStampFromFilePointer(dynamicLogPath, file.getPath());
                 long currentFilePointerPosition = getCurrentFilePointerOffset(dynamicLogPath, file.getPath());
                 eventsServiceDataManager = evaluateEventsServiceConfig();
-                offset = (Integer) this.monitorContextConfiguration.getConfigYml().get("logMatchOffset");
+                if (eventsServiceDataManager != null) {
+                    logMetrics.setEventDeduplicator(createEventDeduplicator(
+                            this.monitorContextConfiguration.getConfigYml()));
+                }
+                linesAfter = (Integer) this.monitorContextConfiguration.getConfigYml().get("logMatchOffset");
+                Integer linesBeforeFromConfig = (Integer) this.monitorContextConfiguration.getConfigYml()
+                        .get("logMatchLinesBefore");
+                linesBefore = linesBeforeFromConfig != null && linesBeforeFromConfig > 0 ? linesBeforeFromConfig : 0;
                 if (hasLogRolledOver(dynamicLogPath, file.getPath(), file.length())) {
                     List<File> filesToBeProcessed = getFilesToBeProcessedFromDirectory(currentTimeStampFromFilePointer, dirPath);
                     latch = new CountDownLatch(filesToBeProcessed.size());
                     processRolledOverLogs(filesToBeProcessed, currentTimeStampFromFilePointer, currentFilePointerPosition,
                             logMetrics, latch);
                 } else {
+                    if (firstSight) {
+                        currentFilePointerPosition = getStartPosition(file);
+                    }
                     latch = new CountDownLatch(1);
                     processLogsWithoutRollover(file, latch, currentFilePointerPosition, logMetrics);
                 }
                 latch.await();
+                flushDeduplicatedEvents(logMetrics);
                 setNewFilePointer(dynamicLogPath, logMetrics.getFilePointers());
             } catch (Exception ex) {
                 LOGGER.error("File I/O issue while processing : " + file.getAbsolutePath(), ex);
@@ -89,29 +119,43 @@ public class LogFileManager {
     private void processRolledOverLogs(List<File> filesToBeProcessed, long currentTimeStampFromFilePointer,
                                        long currentFilePointerPosition, LogMetrics logMetrics, CountDownLatch latch) throws Exception {
         for (File currentFile : filesToBeProcessed) {
-            if (!StringUtils.isBlank(log.getEncoding())) {
-                handleFileEncoding(currentFile);
-            }
-            OptimizedRandomAccessFile randomAccessFile = new OptimizedRandomAccessFile(currentFile, "r");
+            LogReader logReader = createLogReader(currentFile, log);
             if (getCurrentFileCreationTimeStamp(currentFile) == currentTimeStampFromFilePointer) {
-                randomAccessFile.seek(currentFilePointerPosition); //found the oldest file, process from CFP
+                logReader.seek(currentFilePointerPosition); //found the oldest file, process from CFP
             } else {
-                randomAccessFile.seek(0);
+                logReader.seek(0);
             }
-            executorService.execute("LogMetricsProcessor", new LogMetricsProcessor(randomAccessFile, log, latch,
-                    logMetrics, currentFile, eventsServiceDataManager, offset));
+            scanLogFile(logReader, currentFile, logMetrics, latch);
         }
     }
 
     private void processLogsWithoutRollover(File file, CountDownLatch latch, long currentFilePointerPosition,
                                             LogMetrics logMetrics) throws Exception {
-        if (!StringUtils.isBlank(log.getEncoding())) {
-            handleFileEncoding(file);
+        LogReader logReader = createLogReader(file, log);
+        logReader.seek(currentFilePointerPosition);
+        scanLogFile(logReader, file, logMetrics, latch);
+    }
+
+    private void scanLogFile(LogReader logReader, File file, LogMetrics logMetrics, CountDownLatch latch)
+            throws IOException {
+        Integer chunkSize = log.getParallelChunkSize();
+        if (chunkSize != null && logReader.length() - logReader.getFilePointer() >= 2L * chunkSize) {
+            executorService.execute("ChunkedLogScanner", new ChunkedLogScanner(logReader, log, latch, logMetrics,
+                    file, eventsServiceDataManager, linesBefore, linesAfter, chunkSize));
+        } else {
+            executorService.execute("LogMetricsProcessor", new LogMetricsProcessor(logReader, log, latch, logMetrics,
+                    file, eventsServiceDataManager, linesBefore, linesAfter));
+        }
+    }
+
+    private void flushDeduplicatedEvents(LogMetrics logMetrics) {
+        int droppedEvents = logMetrics.flushDeduplicatedEvents();
+        if (droppedEvents > 0) {
+            String metricName = (StringUtils.isBlank(log.getDisplayName()) ? log.getLogName() : log.getDisplayName())
+                    + METRIC_SEPARATOR + EVENTS_DROPPED;
+            logMetrics.getCounter(metricName, logMetrics.getMetricPrefix() + METRIC_SEPARATOR + metricName)
+                    .add(droppedEvents);
         }
-        OptimizedRandomAccessFile randomAccessFile = new OptimizedRandomAccessFile(file, "r");
-        randomAccessFile.seek(currentFilePointerPosition);
-        executorService.execute("LogMetricsProcessor", new LogMetricsProcessor(randomAccessFile, log, latch, logMetrics,
-                file, eventsServiceDataManager, offset));
     }
 
     private void setNewFilePointer(String dynamicLogPath, CopyOnWriteArrayList<FilePointer> filePointers) {
@@ -124,6 +168,32 @@ public class LogFileManager {
                 latestFilePointer.getLastReadPosition(), latestFilePointer.getFileCreationTime());
     }
 
+    /**
+     * A log that has no file pointer yet is read from the beginning, unless it is configured to start from its end or
+     * from the first line of a lookback duration, which is found with a binary search on the timestamps of the file.
+     */
+    private long getStartPosition(File file) throws IOException {
+        String startFrom = log.getStartFrom();
+        if (startFrom == null || StartFrom.BEGINNING.getStartFrom().equals(startFrom)) {
+            return 0;
+        }
+        if (StartFrom.END.getStartFrom().equals(startFrom)) {
+            LOGGER.info("Log : {} has no file pointer, starting from its end", log.getDisplayName());
+            return file.length();
+        }
+        long from = System.currentTimeMillis() - getLookbackMillis(startFrom);
+        LogReader logReader = createLogReader(file, log);
+        try {
+            long position = LogStartLocator.findFirstLineAtOrAfter(logReader,
+                    new TimestampParser(log.getTimestampFormat(), log.getTimestampPattern()), from);
+            LOGGER.info("Log : {} has no file pointer, starting {} back at position {} of {}", log.getDisplayName(),
+                    startFrom, position, file.getPath());
+            return position;
+        } finally {
+            closeLogReader(logReader);
+        }
+    }
+
     private String resolveDirPath(String confDirPath) {
         String resolvedPath = resolvePath(confDirPath);
         if (!resolvedPath.endsWith(File.separator)) {
@@ -220,11 +290,6 @@ public class LogFileManager {
         return filePointerProcessor.getFilePointer(dynamicLogPath, actualLogPath).getLastReadPosition().get();
     }
 
-    private void handleFileEncoding(File file) throws Exception {
-        LOGGER.debug("Converting current file: {} to UTF-8 encoding for further processing", file.getName());
-        convertToUTF8Encoding(file, log.getEncoding());
-    }
-
     private EventsServiceDataManager evaluateEventsServiceConfig() {
         if (this.monitorContextConfiguration.getConfigYml().get("sendDataToEventsService").equals(true)) {
             return monitorContextConfiguration.getContext().getEventsServiceDataManager();
@@ -13,16 +13,30 @@ import com.appdynamics.extensions.logging.ExtensionsLoggerFactory;
 import com.appdynamics.extensions.logmonitor.config.FilePointer;
 import com.appdynamics.extensions.logmonitor.config.Log;
 import com.appdynamics.extensions.logmonitor.config.SearchPattern;
+import com.appdynamics.extensions.logmonitor.matchers.BudgetedCharSequence;
+import com.appdynamics.extensions.logmonitor.matchers.LiteralMatcher;
+import com.appdynamics.extensions.logmonitor.matchers.PatternMatcher;
+import com.appdynamics.extensions.logmonitor.matchers.RegexBudgetExceededException;
+import com.appdynamics.extensions.logmonitor.metrics.Counter;
+import com.appdynamics.extensions.logmonitor.metrics.DistinctCounter;
+import com.appdynamics.extensions.logmonitor.metrics.EventTimeCounter;
 import com.appdynamics.extensions.logmonitor.metrics.LogMetrics;
+import com.appdynamics.extensions.logmonitor.metrics.LogTemplateMiner;
+import com.appdynamics.extensions.logmonitor.metrics.TemplateCounts;
+import com.appdynamics.extensions.logmonitor.metrics.TopMatchedStrings;
+import com.appdynamics.extensions.logmonitor.metrics.ValueHistogram;
+import com.appdynamics.extensions.logmonitor.reader.LogReader;
+import com.appdynamics.extensions.logmonitor.util.TimestampParser;
 import com.appdynamics.extensions.metrics.Metric;
-import com.appdynamics.extensions.util.MetricPathUtils;
 import com.google.common.base.Strings;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.text.WordUtils;
-import org.bitbucket.kienerj.OptimizedRandomAccessFile;
 import org.slf4j.Logger;
 import java.io.File;
-import java.math.BigInteger;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
@@ -31,6 +45,7 @@ import java.util.regex.Pattern;
 
 import static com.appdynamics.extensions.logmonitor.util.Constants.*;
 import static com.appdynamics.extensions.logmonitor.util.LogMonitorUtil.*;
+import static com.appdynamics.extensions.logmonitor.util.TimestampParser.NO_TIMESTAMP;
 
 /**
  * @author Aditya Jagtiani
@@ -38,28 +53,95 @@ import static com.appdynamics.extensions.logmonitor.util.LogMonitorUtil.*;
 
 public class LogMetricsProcessor implements Runnable {
     private static final Logger LOGGER = ExtensionsLoggerFactory.getLogger(LogMetricsProcessor.class);
-    private OptimizedRandomAccessFile randomAccessFile;
+    private static final int MAX_CACHED_MATCHES_PER_PATTERN = 1000;
+    private static final long LINES_BEFORE_RANGE = 4096;
+    private LogReader logReader;
     private Log log;
     private CountDownLatch latch;
     private File currentFile;
     private List<SearchPattern> searchPatterns;
+    private PatternMatcher[] matchers;
+    private LiteralMatcher literalMatcher;
+    private BudgetedCharSequence budgetedLine;
+    private Counter[] occurrences;
+    private Counter[] regexTimeouts;
+    private String[] searchStringKeys;
+    private TopMatchedStrings[] matchedStrings;
+    private DistinctCounter[] distinctMatches;
+    private ValueHistogram[] valueHistograms;
+    private Matcher[] valueMatchers;
+    private TimestampParser timestampParser;
+    private EventTimeCounter[] eventTimeCounters;
+    private EventRateLimiter[] eventRateLimiters;
+    private Counter[] suppressedEvents;
+    private LogTemplateMiner[] templateMiners;
+    private TemplateCounts[] templateCounts;
+    private long lineTimestamp = NO_TIMESTAMP;
+    private long newestTimestamp = NO_TIMESTAMP;
+    private List<Map<String, String>> capitalizedMatches;
+    private List<SearchPattern> patternsPendingEvents = new ArrayList<SearchPattern>();
     private Map<Pattern, String> replacers;
     private LogMetrics logMetrics;
     private EventsServiceDataManager eventsServiceDataManager;
     private LogEventsProcessor logEventsProcessor;
-    private int offset;
+    private int linesBefore;
+    private int linesAfter;
+    private long endPosition;
 
-    LogMetricsProcessor(OptimizedRandomAccessFile randomAccessFile, Log log, CountDownLatch latch, LogMetrics logMetrics,
+    LogMetricsProcessor(LogReader logReader, Log log, CountDownLatch latch, LogMetrics logMetrics,
                         File currentFile, EventsServiceDataManager eventsServiceDataManager,
-                        int offset) {
-        this.randomAccessFile = randomAccessFile;
+                        int linesBefore, int linesAfter) {
+        this(logReader, log, latch, logMetrics, currentFile, eventsServiceDataManager, linesBefore, linesAfter,
+                Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a processor that stops at the first line starting at or after {@code endPosition}. Such a processor
+     * scans one chunk of a {@link ChunkedLogScanner} and leaves the file size and the file pointer to the scanner.
+     */
+    LogMetricsProcessor(LogReader logReader, Log log, CountDownLatch latch, LogMetrics logMetrics,
+                        File currentFile, EventsServiceDataManager eventsServiceDataManager,
+                        int linesBefore, int linesAfter, long endPosition) {
+        this.logReader = logReader;
         this.log = log;
         this.latch = latch;
         this.logMetrics = logMetrics;
         this.currentFile = currentFile;
-        this.searchPatterns = createPattern(this.log.getSearchStrings());
+        compileSearchPatterns(log);
+        this.searchPatterns = log.getSearchPatterns();
+        this.searchStringKeys = new String[searchPatterns.size()];
+        this.capitalizedMatches = new ArrayList<Map<String, String>>(searchPatterns.size());
+        String searchStringPrefix = getSearchStringPrefix();
+        for (int i = 0; i < searchStringKeys.length; i++) {
+            searchStringKeys[i] = searchStringPrefix + searchPatterns.get(i).getDisplayName() + METRIC_SEPARATOR;
+            capitalizedMatches.add(new HashMap<String, String>());
+        }
+        this.valueMatchers = new Matcher[searchPatterns.size()];
+        for (int i = 0; i < valueMatchers.length; i++) {
+            if (searchPatterns.get(i).getValueGroup() != null) {
+                valueMatchers[i] = searchPatterns.get(i).getPattern().matcher("").useTransparentBounds(true)
+                        .useAnchoringBounds(false);
+            }
+        }
+        this.matchers = new PatternMatcher[searchPatterns.size()];
+        for (int i = 0; i < matchers.length; i++) {
+            if (searchPatterns.get(i).getLiteral() == null) {
+                matchers[i] = searchPatterns.get(i).getMatcherFactory().newMatcher();
+            }
+        }
+        LiteralMatcher literalMatcher = log.getLiteralMatcher();
+        this.literalMatcher = literalMatcher.hasLiterals() ? literalMatcher.newMatcher() : null;
+        if (log.getTimestampFormat() != null) {
+            this.timestampParser = new TimestampParser(log.getTimestampFormat(), log.getTimestampPattern());
+        }
+        if (log.getRegexTimeBudget() != null || log.getRegexStepBudget() != null) {
+            this.budgetedLine = new BudgetedCharSequence(log.getRegexTimeBudget(), log.getRegexStepBudget());
+        }
         this.eventsServiceDataManager = eventsServiceDataManager;
-        this.offset = offset;
+        // a record already holds the lines that follow its first one
+        this.linesBefore = log.getEventStartPattern() == null ? linesBefore : 0;
+        this.linesAfter = log.getEventStartPattern() == null ? linesAfter : 0;
+        this.endPosition = endPosition;
     }
 
     public void run() {
@@ -68,83 +150,308 @@ public class LogMetricsProcessor implements Runnable {
         } catch (Exception ex) {
             LOGGER.error("Error encountered while processing log file : {}", log.getDisplayName(), ex);
         } finally {
-            closeRandomAccessFile(randomAccessFile);
+            closeLogReader(logReader);
             latch.countDown();
         }
     }
 
-    private void processLogFile() throws Exception {
-        long currentFilePointer = randomAccessFile.getFilePointer();
-        String currentLine;
+    void processLogFile() throws Exception {
+        long currentFilePointer = logReader.getFilePointer();
+        CharSequence currentLine;
         setBaseOccurrenceCountForConfiguredPatterns();
         if (eventsServiceDataManager != null) {
-            logEventsProcessor = new LogEventsProcessor(eventsServiceDataManager, offset, log);
+            logEventsProcessor = new LogEventsProcessor(eventsServiceDataManager, linesBefore, linesAfter, log,
+                    logMetrics);
+            if (linesBefore > 0 && currentFilePointer > 0) {
+                readLinesBefore(currentFilePointer);
+            }
+        }
+        while (currentFilePointer < endPosition && (currentLine = logReader.readLine()) != null) {
+            if (timestampParser != null) {
+                readTimestamp(currentLine);
+            }
+            incrementWordCountIfSearchStringMatched(currentLine);
+            currentFilePointer = logReader.getFilePointer();
+        }
+        if (logEventsProcessor != null) {
+            readLinesAfter(currentFilePointer);
+            String metricName = getLogNamePrefix() + EVENTS_DROPPED;
+            logMetrics.getCounter(metricName, logMetrics.getMetricPrefix() + METRIC_SEPARATOR + metricName)
+                    .add(logEventsProcessor.getDroppedEvents());
         }
-        while ((currentLine = randomAccessFile.readLine()) != null) {
-            incrementWordCountIfSearchStringMatched(searchPatterns, currentLine);
-            currentFilePointer = randomAccessFile.getFilePointer();
+        if (newestTimestamp != NO_TIMESTAMP) {
+            String metricName = getLogNamePrefix() + INGEST_LAG;
+            logMetrics.getIngestLag(metricName, logMetrics.getMetricPrefix() + METRIC_SEPARATOR + metricName)
+                    .update(newestTimestamp);
         }
+        if (endPosition == Long.MAX_VALUE) {
+            recordFilePosition(logMetrics, currentFilePointer);
+            LOGGER.info(String.format("Successfully processed log file [%s]",
+                    currentFile.getPath()));
+        }
+    }
+
+    void recordFilePosition(LogMetrics targetMetrics, long lastReadPosition) throws Exception {
         long currentFileCreationTime = getCurrentFileCreationTimeStamp(currentFile);
         String metricName = getLogNamePrefix() + FILESIZE_METRIC_NAME;
-        logMetrics.add(metricName, new Metric(metricName,
-                String.valueOf(randomAccessFile.length()), logMetrics.getMetricPrefix() + METRIC_SEPARATOR
+        targetMetrics.add(metricName, new Metric(metricName,
+                String.valueOf(logReader.length()), targetMetrics.getMetricPrefix() + METRIC_SEPARATOR
                 + metricName));
-        updateCurrentFilePointer(currentFile.getPath(), currentFilePointer, currentFileCreationTime);
-        LOGGER.info(String.format("Successfully processed log file [%s]",
-                randomAccessFile));
+        updateCurrentFilePointer(targetMetrics, currentFile.getPath(), lastReadPosition, currentFileCreationTime);
     }
 
+    /**
+     * Registers the counters of every pattern, so that they are reported with 0 if nothing matches, and keeps them by
+     * pattern index so that a match does not have to build the metric name.
+     */
     private void setBaseOccurrenceCountForConfiguredPatterns() {
-        for (SearchPattern searchPattern : searchPatterns) {
-            String currentKey = getSearchStringPrefix() + searchPattern.getDisplayName() + METRIC_SEPARATOR;
+        occurrences = new Counter[searchPatterns.size()];
+        regexTimeouts = new Counter[searchPatterns.size()];
+        matchedStrings = new TopMatchedStrings[searchPatterns.size()];
+        distinctMatches = new DistinctCounter[searchPatterns.size()];
+        valueHistograms = new ValueHistogram[searchPatterns.size()];
+        eventTimeCounters = new EventTimeCounter[searchPatterns.size()];
+        eventRateLimiters = new EventRateLimiter[searchPatterns.size()];
+        suppressedEvents = new Counter[searchPatterns.size()];
+        templateMiners = new LogTemplateMiner[searchPatterns.size()];
+        templateCounts = new TemplateCounts[searchPatterns.size()];
+        for (int i = 0; i < searchPatterns.size(); i++) {
+            SearchPattern searchPattern = searchPatterns.get(i);
+            String currentKey = searchStringKeys[i];
             String metricName = currentKey + OCCURRENCES;
-            logMetrics.add(metricName, new Metric(metricName, String.valueOf(BigInteger.ZERO),
-                    logMetrics.getMetricPrefix() + METRIC_SEPARATOR + metricName));
-        }
-    }
-
-    private void incrementWordCountIfSearchStringMatched(List<SearchPattern> searchPatterns, String stringToCheck) {
-        for (SearchPattern searchPattern : searchPatterns) {
-            Matcher matcher = searchPattern.getPattern().matcher(stringToCheck);
-            String currentKey = getSearchStringPrefix() + searchPattern.getDisplayName() + METRIC_SEPARATOR;
-
-            while (matcher.find()) {
-                BigInteger occurrences = new BigInteger(logMetrics.getMetrics().get(currentKey + OCCURRENCES)
-                        .getMetricValue());
-                String metricName = currentKey + OCCURRENCES;
-                LOGGER.info("Match found for pattern: {} in log: {}", searchPattern.getDisplayName(), log.getDisplayName());
-                logMetrics.add(metricName, new Metric(metricName, String.valueOf(occurrences.add(BigInteger.ONE)),
-                        logMetrics.getMetricPrefix() + METRIC_SEPARATOR + metricName));
-
-                if (searchPattern.getPrintMatchedString()) {
-                    String path;
-                    LOGGER.info("Adding actual matches to the queue for printing for log: {}", log.getDisplayName());
-                    String replacedWord = matcher.group().trim();
-                    if (searchPattern.getCaseSensitive()) {
-                        metricName = currentKey+MATCHES+METRIC_SEPARATOR+replacedWord;
-                        path = MetricPathUtils.buildMetricPath(currentKey,MATCHES,replacedWord);
-                    } else {
-                        metricName = currentKey+MATCHES+METRIC_SEPARATOR+WordUtils.capitalizeFully(replacedWord);
-                        path = MetricPathUtils.buildMetricPath(currentKey,MATCHES,WordUtils.capitalizeFully(replacedWord));
+            occurrences[i] = logMetrics.getCounter(metricName,
+                    logMetrics.getMetricPrefix() + METRIC_SEPARATOR + metricName);
+            if (budgetedLine != null && searchPattern.getLiteral() == null) {
+                metricName = currentKey + REGEX_TIMEOUTS;
+                regexTimeouts[i] = logMetrics.getCounter(metricName,
+                        logMetrics.getMetricPrefix() + METRIC_SEPARATOR + metricName);
+            }
+            if (searchPattern.getPrintMatchedString()) {
+                matchedStrings[i] = logMetrics.getTopMatchedStrings(currentKey, searchPattern.getMaxMatchedStrings());
+            }
+            if (searchPattern.getCountDistinctMatches()) {
+                metricName = currentKey + DISTINCT_MATCHES;
+                distinctMatches[i] = logMetrics.getDistinctCounter(metricName,
+                        logMetrics.getMetricPrefix() + METRIC_SEPARATOR + metricName);
+            }
+            if (timestampParser != null) {
+                metricName = currentKey + OCCURRENCES_PER_MINUTE;
+                eventTimeCounters[i] = logMetrics.getEventTimeCounter(metricName,
+                        logMetrics.getMetricPrefix() + METRIC_SEPARATOR + metricName);
+            }
+            if (eventsServiceDataManager != null) {
+                eventRateLimiters[i] = EventRateLimiter.forSearchString(logMetrics.getMetricPrefix() +
+                        METRIC_SEPARATOR + currentKey, searchPattern.getMaxEventsPerMinute(),
+                        searchPattern.getEventSampleRate());
+            }
+            if (eventRateLimiters[i] != null) {
+                metricName = currentKey + EVENTS_SUPPRESSED;
+                suppressedEvents[i] = logMetrics.getCounter(metricName,
+                        logMetrics.getMetricPrefix() + METRIC_SEPARATOR + metricName);
+            }
+            if (searchPattern.getMineTemplates()) {
+                templateMiners[i] = LogTemplateMiner.forSearchString(logMetrics.getMetricPrefix() + METRIC_SEPARATOR
+                        + currentKey, searchPattern.getMaxTemplates());
+                templateCounts[i] = logMetrics.getTemplateCounts(currentKey);
+            }
+            if (searchPattern.getValueGroup() != null) {
+                valueHistograms[i] = logMetrics.getValueHistogram(currentKey + searchPattern.getValueGroup()
+                        + METRIC_SEPARATOR);
+            }
+        }
+    }
+
+    /**
+     * The line is a view over the reader's buffer, so nothing is allocated here unless a pattern matches. Literal
+     * patterns are all matched in one pass by the {@link LiteralMatcher}, the rest by their own engine, which
+     * only runs if the line contains a literal the regex requires. A regex that exceeds the budget of the log is
+     * aborted and counted as a regex timeout, keeping the matches it found before. The line is handed to the events
+     * processor once every pattern has been applied, which starts one event per match. The template of the line is
+     * learned once per pattern it matched, however many times it matched.
+     */
+    private void incrementWordCountIfSearchStringMatched(CharSequence stringToCheck) {
+        if (literalMatcher != null) {
+            literalMatcher.match(stringToCheck);
+        }
+        for (int i = 0; i < matchers.length; i++) {
+            SearchPattern searchPattern = searchPatterns.get(i);
+            boolean matched = false;
+            if (matchers[i] == null) {
+                for (int match = 0; match < literalMatcher.getMatchCount(i); match++) {
+                    onMatch(i, stringToCheck, literalMatcher.getMatchStart(i, match),
+                            literalMatcher.getMatchEnd(i, match));
+                    matched = true;
+                }
+            } else if (searchPattern.getRequiredLiteralFilter() == null
+                    || searchPattern.getRequiredLiteralFilter().mightMatch(stringToCheck)) {
+                PatternMatcher matcher = matchers[i].reset(budgetedLine != null ? budgetedLine.reset(stringToCheck)
+                        : stringToCheck);
+                try {
+                    while (matcher.find()) {
+                        onMatch(i, stringToCheck, matcher.start(), matcher.end());
+                        matched = true;
                     }
-                    logMetrics.add(metricName, logMetrics.getMetricPrefix() + METRIC_SEPARATOR + path);
+                } catch (RegexBudgetExceededException ex) {
+                    onRegexTimeout(i, ex);
                 }
+            }
+            if (matched && templateMiners[i] != null) {
+                templateCounts[i].increment(templateMiners[i].add(stringToCheck));
+            }
+        }
+        if (logEventsProcessor != null) {
+            logEventsProcessor.processLine(stringToCheck, patternsPendingEvents, lineTimestamp);
+            patternsPendingEvents.clear();
+        }
+    }
 
-                if (logEventsProcessor != null) {
-                    logMetrics.addLogEvent(logEventsProcessor.processLogEvent(searchPattern, randomAccessFile, stringToCheck));
-                } else {
-                    LOGGER.info("This data does not have to be sent to the events service, skipping.");
-                }
+    /**
+     * Reads the lines before {@code start} as context for the events of the first lines, which were scanned by an
+     * earlier run or belong to the previous chunk. The range read back grows until it holds enough lines.
+     */
+    private void readLinesBefore(long start) throws IOException {
+        long from;
+        long range = LINES_BEFORE_RANGE;
+        do {
+            from = Math.max(0, start - range);
+            range *= 4;
+        } while (countLines(from, start) < linesBefore && from > 0);
+        seekToLineAfter(from);
+        CharSequence line;
+        while (logReader.getFilePointer() < start && (line = logReader.readLine()) != null) {
+            logEventsProcessor.processLine(line, Collections.<SearchPattern>emptyList());
+        }
+        logReader.seek(start);
+    }
+
+    private int countLines(long from, long to) throws IOException {
+        seekToLineAfter(from);
+        int lines = 0;
+        while (logReader.getFilePointer() < to && logReader.readLine() != null) {
+            lines++;
+        }
+        return lines;
+    }
+
+    /**
+     * Moves to the first line starting after {@code position}, aligned to four bytes to stay on a code unit boundary
+     * for UTF-16 and UTF-32 logs.
+     */
+    private void seekToLineAfter(long position) throws IOException {
+        logReader.seek(position - position % 4);
+        if (position > 0) {
+            logReader.readLine();
+        }
+    }
+
+    /**
+     * Events of the last lines scanned wait for the lines after them, which are read without being matched as they
+     * belong to the next chunk or were written after the end of the file was reached. The reader is then moved back,
+     * so that these lines are still scanned by the next chunk or run.
+     */
+    private void readLinesAfter(long end) throws IOException {
+        CharSequence line;
+        while (logEventsProcessor.hasPendingEvents() && (line = logReader.readLine()) != null) {
+            logEventsProcessor.processLine(line, Collections.<SearchPattern>emptyList());
+        }
+        logEventsProcessor.flush();
+        logReader.seek(end);
+    }
+
+    /**
+     * Lines without a timestamp, such as the lines of a stack trace, keep the time of the line before them.
+     */
+    private void readTimestamp(CharSequence line) {
+        long timestamp = timestampParser.parse(line);
+        if (timestamp != NO_TIMESTAMP) {
+            lineTimestamp = timestamp;
+            newestTimestamp = Math.max(newestTimestamp, timestamp);
+        }
+    }
+
+    private void onMatch(int patternIndex, CharSequence line, int start, int end) {
+        SearchPattern searchPattern = searchPatterns.get(patternIndex);
+        LOGGER.info("Match found for pattern: {} in log: {}", searchPattern.getDisplayName(), log.getDisplayName());
+        occurrences[patternIndex].increment();
+        if (eventTimeCounters[patternIndex] != null && lineTimestamp != NO_TIMESTAMP) {
+            eventTimeCounters[patternIndex].increment(lineTimestamp);
+        }
+        if (distinctMatches[patternIndex] != null) {
+            distinctMatches[patternIndex].offer(line, start, end, searchPattern.getCaseSensitive());
+        }
+        if (valueHistograms[patternIndex] != null) {
+            recordValue(patternIndex, line, start);
+        }
+
+        if (searchPattern.getPrintMatchedString()) {
+            LOGGER.info("Adding actual matches to the queue for printing for log: {}", log.getDisplayName());
+            String replacedWord = line.subSequence(start, end).toString().trim();
+            matchedStrings[patternIndex].offer(searchPattern.getCaseSensitive() ? replacedWord
+                    : capitalize(patternIndex, replacedWord));
+        }
+
+        if (logEventsProcessor != null) {
+            if (eventRateLimiters[patternIndex] == null || eventRateLimiters[patternIndex].tryAcquire()) {
+                patternsPendingEvents.add(searchPattern);
+            } else {
+                suppressedEvents[patternIndex].increment();
+            }
+        } else {
+            LOGGER.info("This data does not have to be sent to the events service, skipping.");
+        }
+    }
+
+    /**
+     * Matched strings of case insensitive patterns are reported capitalized. The capitalized form is cached by the
+     * matched string, up to {@value #MAX_CACHED_MATCHES_PER_PATTERN} strings per pattern.
+     */
+    private String capitalize(int patternIndex, String replacedWord) {
+        Map<String, String> capitalized = capitalizedMatches.get(patternIndex);
+        String capitalizedWord = capitalized.get(replacedWord);
+        if (capitalizedWord == null) {
+            capitalizedWord = WordUtils.capitalizeFully(replacedWord);
+            if (capitalized.size() < MAX_CACHED_MATCHES_PER_PATTERN) {
+                capitalized.put(replacedWord, capitalizedWord);
             }
         }
+        return capitalizedWord;
+    }
+
+    /**
+     * Matchers other than java.util.regex do not report groups, so the value group is read by matching the java
+     * pattern again from the start of the match, which finds the same match. This only runs on matching lines.
+     */
+    private void recordValue(int patternIndex, CharSequence line, int start) {
+        SearchPattern searchPattern = searchPatterns.get(patternIndex);
+        Matcher valueMatcher = valueMatchers[patternIndex].reset(line).region(start, line.length());
+        String value = valueMatcher.lookingAt() ? valueMatcher.group(searchPattern.getValueGroup()) : null;
+        if (value == null) {
+            return;
+        }
+        try {
+            if (!valueHistograms[patternIndex].record(Double.parseDouble(value.trim()))) {
+                LOGGER.debug("Skipping the out of range value {} of search string: {}", value,
+                        searchPattern.getDisplayName());
+            }
+        } catch (NumberFormatException ex) {
+            LOGGER.debug("Skipping the value {} of search string: {}, it is not a number", value,
+                    searchPattern.getDisplayName());
+        }
+    }
+
+    private void onRegexTimeout(int patternIndex, RegexBudgetExceededException ex) {
+        LOGGER.warn("Aborted search string: {} on a line of log: {}, skipping the rest of the line for it. {}",
+                searchPatterns.get(patternIndex).getDisplayName(), log.getDisplayName(), ex.getMessage());
+        regexTimeouts[patternIndex].increment();
     }
 
-    private void updateCurrentFilePointer(String filePath, long lastReadPosition, long creationTimestamp) {
+    private void updateCurrentFilePointer(LogMetrics targetMetrics, String filePath, long lastReadPosition,
+                                          long creationTimestamp) {
         FilePointer filePointer = new FilePointer();
         filePointer.setFilename(filePath);
         filePointer.setFileCreationTime(creationTimestamp);
         filePointer.updateLastReadPosition(lastReadPosition);
-        logMetrics.updateFilePointer(filePointer);
+        targetMetrics.updateFilePointer(filePointer);
     }
 
     private String getSearchStringPrefix() {
@@ -0,0 +1,74 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.processors;
+
+import com.appdynamics.extensions.logmonitor.reader.LogReader;
+import com.appdynamics.extensions.logmonitor.util.TimestampParser;
+
+import java.io.IOException;
+
+import static com.appdynamics.extensions.logmonitor.util.TimestampParser.NO_TIMESTAMP;
+
+/**
+ * Finds where a log starts to be newer than a point in time without reading it all, by binary searching the file on
+ * the timestamps of the lines found at the middle of the remaining range. Only the last few KB are read line by line.
+ * <p>
+ * When a sample can not be decided, because the lines after the middle have no timestamp, the search keeps the earlier
+ * half, so that it may read a little more than needed but never skips a line that is newer.
+ */
+class LogStartLocator {
+    private static final long LINEAR_SCAN_SIZE = 64 * 1024;
+    private static final int MAX_SAMPLED_LINES = 100;
+
+    private LogStartLocator() {
+    }
+
+    /**
+     * @return the position of the first line with a timestamp at or after {@code timestamp}, or the length of the file
+     * if there is none
+     */
+    static long findFirstLineAtOrAfter(LogReader logReader, TimestampParser timestampParser, long timestamp)
+            throws IOException {
+        // every line with a timestamp before low is older, the line at high is newer or the end of the file
+        long low = 0;
+        long high = logReader.length();
+        while (high - low > LINEAR_SCAN_SIZE) {
+            long middle = low + (high - low) / 2;
+            // aligned to four bytes to stay on a code unit boundary for UTF-16 and UTF-32 logs
+            logReader.seek(middle - middle % 4);
+            logReader.readLine();
+            long sampleStart = logReader.getFilePointer();
+            if (sampleStart >= high) {
+                break;
+            }
+            long sampledTimestamp = NO_TIMESTAMP;
+            CharSequence line;
+            for (int sampled = 0; sampled < MAX_SAMPLED_LINES && sampledTimestamp == NO_TIMESTAMP
+                    && logReader.getFilePointer() < high && (line = logReader.readLine()) != null; sampled++) {
+                sampledTimestamp = timestampParser.parse(line);
+            }
+            if (sampledTimestamp != NO_TIMESTAMP && sampledTimestamp < timestamp) {
+                low = logReader.getFilePointer();
+            } else {
+                high = sampleStart;
+            }
+        }
+        logReader.seek(low);
+        long lineStart = low;
+        CharSequence line;
+        while (lineStart < high && (line = logReader.readLine()) != null) {
+            long lineTimestamp = timestampParser.parse(line);
+            if (lineTimestamp != NO_TIMESTAMP && lineTimestamp >= timestamp) {
+                return lineStart;
+            }
+            lineStart = logReader.getFilePointer();
+        }
+        return Math.min(lineStart, high);
+    }
+}
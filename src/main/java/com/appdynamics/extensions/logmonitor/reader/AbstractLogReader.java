@@ -0,0 +1,259 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.reader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base for readers that find line terminators in raw bytes and decode each line with a {@link CharsetDecoder}
+ * straight into a reused {@link LineBuffer}. Subclasses only decide how a window of the file is brought into memory.
+ *
+ * <p> Terminators are matched on code unit boundaries of the configured charset (one byte for UTF-8, two for UTF-16,
+ * four for UTF-32), so every position handed out is an exact byte offset. A byte order mark at the start of the file
+ * is skipped, and picks the byte order when the charset does not specify one. </p>
+ */
+abstract class AbstractLogReader implements LogReader {
+    private RandomAccessFile file;
+    protected FileChannel channel;
+    protected ByteBuffer window;
+    protected long windowStart;
+    protected int windowLength;
+    private long position;
+    private Charset configuredCharset;
+    private boolean charsetResolved;
+    private boolean asciiCompatible;
+    private int unitWidth;
+    private int bomLength;
+    private byte[] lineFeed;
+    private byte[] carriageReturn;
+    private CharsetDecoder decoder;
+    private LineBuffer line = new LineBuffer();
+    private byte[] lineBytes = new byte[256];
+    private ByteBuffer lineByteBuffer = ByteBuffer.wrap(lineBytes);
+
+    AbstractLogReader(File file, Charset charset) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        this.configuredCharset = charset;
+    }
+
+    /**
+     * Brings the bytes starting at {@code offset} into {@link #window}, updating {@link #windowStart} and
+     * {@link #windowLength}. {@code offset} is always smaller than {@code size}.
+     */
+    protected abstract void fillWindow(long offset, long size) throws IOException;
+
+    public CharSequence readLine() throws IOException {
+        if (!charsetResolved) {
+            resolveCharset();
+        }
+        if (position < bomLength) {
+            position = bomLength;
+        }
+        if (!moveWindowTo(position)) {
+            return null;
+        }
+        line.clear();
+        int spilledBytes = 0;
+        for (;;) {
+            int start = (int) (position - windowStart);
+            int end = start;
+            boolean ascii = asciiCompatible;
+            if (unitWidth == 1) {
+                while (end < windowLength) {
+                    byte b = window.get(end);
+                    if (b == '\n' || b == '\r') {
+                        break;
+                    }
+                    ascii &= b >= 0;
+                    end++;
+                }
+            } else {
+                while (end < windowLength && !isTerminatorAt(end)) {
+                    end += unitWidth;
+                }
+            }
+            position = windowStart + end;
+            boolean terminated = end < windowLength;
+            if (terminated && spilledBytes == 0) {
+                decodeFromWindow(start, end, ascii);
+            } else {
+                spilledBytes = copyLineBytes(start, end, spilledBytes);
+            }
+            if (terminated) {
+                boolean carriageReturnFound = unitsEqual(carriageReturn, end);
+                position += unitWidth;
+                if (spilledBytes > 0) {
+                    decodeSpilledBytes(spilledBytes);
+                }
+                if (carriageReturnFound && moveWindowTo(position)
+                        && unitsEqual(lineFeed, (int) (position - windowStart))) {
+                    position += unitWidth;
+                }
+                return line;
+            }
+            // the line continues past the current window
+            if (!moveWindowTo(position)) {
+                decodeSpilledBytes(spilledBytes);
+                return line;
+            }
+        }
+    }
+
+    public long getFilePointer() {
+        return position;
+    }
+
+    public void seek(long position) {
+        this.position = position;
+    }
+
+    public long length() throws IOException {
+        return channel.size();
+    }
+
+    public void close() throws IOException {
+        window = null;
+        file.close();
+    }
+
+    protected int getUnitWidth() {
+        return unitWidth;
+    }
+
+    /**
+     * @return false if {@code offset} is at or beyond the end of the file, or only a partially written code unit
+     * remains there
+     */
+    private boolean moveWindowTo(long offset) throws IOException {
+        if (window != null && offset >= windowStart && offset < windowStart + windowLength) {
+            return true;
+        }
+        long size = channel.size();
+        if (offset >= size) {
+            return false;
+        }
+        fillWindow(offset, size);
+        windowLength -= windowLength % unitWidth;
+        return windowLength > 0;
+    }
+
+    private boolean isTerminatorAt(int index) {
+        return unitsEqual(lineFeed, index) || unitsEqual(carriageReturn, index);
+    }
+
+    private boolean unitsEqual(byte[] unit, int index) {
+        for (int i = 0; i < unitWidth; i++) {
+            if (window.get(index + i) != unit[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void decodeFromWindow(int from, int to, boolean ascii) {
+        if (ascii) {
+            line.appendAscii(window, from, to);
+        } else {
+            window.limit(to);
+            window.position(from);
+            line.decode(decoder, window);
+            window.limit(windowLength);
+        }
+    }
+
+    /**
+     * Lines crossing a window boundary are staged in {@code lineBytes} so that characters split across two windows
+     * are decoded correctly.
+     */
+    private int copyLineBytes(int from, int to, int spilledBytes) {
+        int count = to - from;
+        if (spilledBytes + count > lineBytes.length) {
+            byte[] grown = new byte[Math.max(lineBytes.length * 2, spilledBytes + count)];
+            System.arraycopy(lineBytes, 0, grown, 0, spilledBytes);
+            lineBytes = grown;
+            lineByteBuffer = ByteBuffer.wrap(lineBytes);
+        }
+        window.limit(windowLength);
+        window.position(from);
+        window.get(lineBytes, spilledBytes, count);
+        return spilledBytes + count;
+    }
+
+    private void decodeSpilledBytes(int spilledBytes) {
+        lineByteBuffer.limit(spilledBytes);
+        lineByteBuffer.position(0);
+        line.decode(decoder, lineByteBuffer);
+    }
+
+    private void resolveCharset() throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(4);
+        while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+            // keep reading until the first four bytes are in or the file ends
+        }
+        byte[] bom = new byte[head.position()];
+        head.flip();
+        head.get(bom);
+
+        Charset charset = configuredCharset;
+        String name = configuredCharset.name();
+        if (name.equals("UTF-8")) {
+            bomLength = startsWith(bom, 0xEF, 0xBB, 0xBF) ? 3 : 0;
+        } else if (name.startsWith("UTF-32")) {
+            if (startsWith(bom, 0x00, 0x00, 0xFE, 0xFF) && !name.equals("UTF-32LE")) {
+                charset = Charset.forName("UTF-32BE");
+                bomLength = 4;
+            } else if (startsWith(bom, 0xFF, 0xFE, 0x00, 0x00) && !name.equals("UTF-32BE")) {
+                charset = Charset.forName("UTF-32LE");
+                bomLength = 4;
+            } else if (name.equals("UTF-32")) {
+                charset = Charset.forName("UTF-32BE");
+            }
+        } else if (name.startsWith("UTF-16")) {
+            if (startsWith(bom, 0xFE, 0xFF) && !name.equals("UTF-16LE")) {
+                charset = StandardCharsets.UTF_16BE;
+                bomLength = 2;
+            } else if (startsWith(bom, 0xFF, 0xFE) && !name.equals("UTF-16BE")) {
+                charset = StandardCharsets.UTF_16LE;
+                bomLength = 2;
+            } else if (name.equals("UTF-16")) {
+                charset = StandardCharsets.UTF_16BE;
+            }
+        }
+
+        lineFeed = "\n".getBytes(charset);
+        carriageReturn = "\r".getBytes(charset);
+        unitWidth = lineFeed.length;
+        asciiCompatible = charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII);
+        decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        charsetResolved = true;
+    }
+
+    private static boolean startsWith(byte[] bytes, int... prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.reader;
+
+import org.bitbucket.kienerj.OptimizedRandomAccessFile;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * {@link LogReader} backed by the {@link OptimizedRandomAccessFile}.
+ */
+public class BufferedLogReader implements LogReader {
+    private OptimizedRandomAccessFile randomAccessFile;
+    private StringBuilder line = new StringBuilder(80);
+
+    public BufferedLogReader(File file) throws IOException {
+        this(new OptimizedRandomAccessFile(file, "r"));
+    }
+
+    public BufferedLogReader(OptimizedRandomAccessFile randomAccessFile) {
+        this.randomAccessFile = randomAccessFile;
+    }
+
+    public CharSequence readLine() throws IOException {
+        return randomAccessFile.readLine(line) ? line : null;
+    }
+
+    public long getFilePointer() throws IOException {
+        return randomAccessFile.getFilePointer();
+    }
+
+    public void seek(long position) throws IOException {
+        randomAccessFile.seek(position);
+    }
+
+    public long length() throws IOException {
+        return randomAccessFile.length();
+    }
+
+    public void close() throws IOException {
+        randomAccessFile.close();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.reader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static com.appdynamics.extensions.logmonitor.util.Constants.DEFAULT_CHANNEL_BUFFER_SIZE;
+
+/**
+ * Default {@link LogReader}. Fills a buffer borrowed from the per-thread {@link ReadBufferPool} with positional
+ * {@link java.nio.channels.FileChannel} reads, which neither move a shared file position nor need locking, and decodes
+ * lines in the configured charset while they are scanned.
+ *
+ * <p> The buffer is borrowed on the first read rather than on construction, because readers are created by the
+ * {@code LogFileManager} but used on the worker thread that scans the file. </p>
+ */
+public class ChannelLogReader extends AbstractLogReader {
+    private int bufferSize;
+
+    public ChannelLogReader(File file) throws IOException {
+        this(file, StandardCharsets.UTF_8);
+    }
+
+    public ChannelLogReader(File file, Charset charset) throws IOException {
+        this(file, charset, DEFAULT_CHANNEL_BUFFER_SIZE);
+    }
+
+    public ChannelLogReader(File file, Charset charset, int bufferSize) throws IOException {
+        super(file, charset);
+        this.bufferSize = Math.max(bufferSize - bufferSize % 4, 4);
+    }
+
+    @Override
+    protected void fillWindow(long offset, long size) throws IOException {
+        if (window == null) {
+            window = ReadBufferPool.acquire(bufferSize);
+        }
+        window.clear();
+        window.limit(bufferSize);
+        while (window.hasRemaining()) {
+            int read = channel.read(window, offset + window.position());
+            if (read <= 0) {
+                break;
+            }
+        }
+        windowStart = offset;
+        windowLength = window.position();
+        window.limit(windowLength);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (window != null) {
+            ReadBufferPool.release(window);
+        }
+        super.close();
+    }
+}
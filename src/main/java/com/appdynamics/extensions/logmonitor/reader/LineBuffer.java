@@ -0,0 +1,112 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.reader;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+
+/**
+ * Reusable {@link CharSequence} holding the current line of a {@link LogReader}. The contents are overwritten by the
+ * next read, so callers that need to keep a line must copy it with {@link #toString()}.
+ */
+public class LineBuffer implements CharSequence {
+    private static final int DEFAULT_CAPACITY = 256;
+    private char[] chars;
+    private CharBuffer charBuffer;
+    private int length;
+
+    public LineBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LineBuffer(int capacity) {
+        chars = new char[capacity];
+        charBuffer = CharBuffer.wrap(chars);
+    }
+
+    public void clear() {
+        length = 0;
+    }
+
+    /**
+     * Appends the bytes in {@code [from, to)} of {@code source}, all of which must be ASCII, widening each to a char.
+     */
+    public void appendAscii(ByteBuffer source, int from, int to) {
+        ensureCapacity(length + to - from);
+        for (int i = from; i < to; i++) {
+            chars[length++] = (char) source.get(i);
+        }
+    }
+
+    public void append(char c) {
+        ensureCapacity(length + 1);
+        chars[length++] = c;
+    }
+
+    public void append(CharSequence source) {
+        ensureCapacity(length + source.length());
+        for (int i = 0; i < source.length(); i++) {
+            chars[length++] = source.charAt(i);
+        }
+    }
+
+    /**
+     * Decodes the remaining bytes of {@code source} and appends the result.
+     */
+    public void decode(CharsetDecoder decoder, ByteBuffer source) {
+        decoder.reset();
+        ensureCapacity(length + source.remaining());
+        while (decoder.decode(source, prepareCharBuffer(), true).isOverflow()) {
+            length = charBuffer.position();
+            ensureCapacity(chars.length + 1);
+        }
+        length = charBuffer.position();
+        while (decoder.flush(prepareCharBuffer()).isOverflow()) {
+            length = charBuffer.position();
+            ensureCapacity(chars.length + 1);
+        }
+        length = charBuffer.position();
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public char charAt(int index) {
+        if (index >= length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return chars[index];
+    }
+
+    public CharSequence subSequence(int start, int end) {
+        return new String(chars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    private CharBuffer prepareCharBuffer() {
+        charBuffer.limit(chars.length);
+        charBuffer.position(length);
+        return charBuffer;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > chars.length) {
+            char[] grown = new char[Math.max(chars.length * 2, capacity)];
+            System.arraycopy(chars, 0, grown, 0, length);
+            chars = grown;
+            charBuffer = CharBuffer.wrap(chars);
+        }
+    }
+}
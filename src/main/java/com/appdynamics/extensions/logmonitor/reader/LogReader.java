@@ -0,0 +1,36 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Line oriented, seekable view of a log file. Positions are always byte offsets into the file so that they can be
+ * persisted in the {@link com.appdynamics.extensions.logmonitor.config.FilePointer} regardless of the implementation.
+ */
+public interface LogReader extends Closeable {
+
+    /**
+     * Returns the next line without its terminator. Implementations reuse the returned sequence, so it is only valid
+     * until the next call on this reader; use {@code toString()} to keep a line.
+     *
+     * @return the next line, or null once the end of the file has been reached
+     */
+    CharSequence readLine() throws IOException;
+
+    /**
+     * @return the byte offset at which the next line starts
+     */
+    long getFilePointer() throws IOException;
+
+    void seek(long position) throws IOException;
+
+    long length() throws IOException;
+}
@@ -0,0 +1,52 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.reader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static com.appdynamics.extensions.logmonitor.util.Constants.DEFAULT_MAPPED_WINDOW_SIZE;
+
+/**
+ * {@link LogReader} that maps the unread part of the file into memory in windows of at most {@code windowSize} bytes
+ * and decodes lines straight out of the mapping into a reused {@link LineBuffer}, avoiding a read syscall and a heap
+ * copy per buffer refill. Intended for catching up on large backlogs.
+ */
+public class MappedLogReader extends AbstractLogReader {
+    private int windowSize;
+
+    public MappedLogReader(File file) throws IOException {
+        this(file, StandardCharsets.UTF_8);
+    }
+
+    public MappedLogReader(File file, Charset charset) throws IOException {
+        this(file, charset, DEFAULT_MAPPED_WINDOW_SIZE);
+    }
+
+    public MappedLogReader(File file, int windowSize) throws IOException {
+        this(file, StandardCharsets.UTF_8, windowSize);
+    }
+
+    public MappedLogReader(File file, Charset charset, int windowSize) throws IOException {
+        super(file, charset);
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    protected void fillWindow(long offset, long size) throws IOException {
+        int unitWidth = getUnitWidth();
+        int alignedWindowSize = Math.max(windowSize - windowSize % unitWidth, unitWidth);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(alignedWindowSize, size - offset));
+        windowStart = offset;
+        windowLength = window.limit();
+    }
+}
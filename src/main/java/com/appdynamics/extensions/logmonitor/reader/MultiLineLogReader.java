@@ -0,0 +1,99 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.reader;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Groups the lines of another {@link LogReader} into records, such as a log statement followed by its stack trace.
+ * A record starts at a line matching the event start pattern and takes every following line that does not, joined by
+ * {@code \n}, up to a maximum number of lines after which the next line starts a new record.
+ *
+ * <p> The end of a record is only known once the first line of the next one has been read, so that line is kept
+ * until the next call and {@link #getFilePointer()} reports the position it starts at. Lines before the first event
+ * start, such as the rest of a record that was cut by the end of the file on an earlier read, form a record of their
+ * own. The last record of the file is returned when the end is reached, even if more of it is written later. </p>
+ */
+public class MultiLineLogReader implements LogReader {
+    private LogReader lineReader;
+    private Matcher eventStart;
+    private int maxRecordLines;
+    private LineBuffer record = new LineBuffer();
+    private LineBuffer nextLine = new LineBuffer();
+    private boolean hasNextLine;
+    private long nextLineStart;
+
+    public MultiLineLogReader(LogReader lineReader, Pattern eventStartPattern, int maxRecordLines) {
+        this.lineReader = lineReader;
+        this.eventStart = eventStartPattern.matcher("");
+        this.maxRecordLines = maxRecordLines;
+    }
+
+    /**
+     * @return true if {@code line} starts a new record
+     */
+    public boolean isEventStart(CharSequence line) {
+        return eventStart.reset(line).find();
+    }
+
+    public CharSequence readLine() throws IOException {
+        if (hasNextLine) {
+            LineBuffer first = nextLine;
+            nextLine = record;
+            record = first;
+            hasNextLine = false;
+        } else {
+            CharSequence line = lineReader.readLine();
+            if (line == null) {
+                return null;
+            }
+            record.clear();
+            record.append(line);
+        }
+        for (int lines = 1; lines < maxRecordLines; lines++) {
+            long lineStart = lineReader.getFilePointer();
+            CharSequence line = lineReader.readLine();
+            if (line == null) {
+                break;
+            }
+            if (isEventStart(line)) {
+                nextLine.clear();
+                nextLine.append(line);
+                nextLineStart = lineStart;
+                hasNextLine = true;
+                break;
+            }
+            record.append('\n');
+            record.append(line);
+        }
+        return record;
+    }
+
+    /**
+     * @return the position of the line that starts the next record
+     */
+    public long getFilePointer() throws IOException {
+        return hasNextLine ? nextLineStart : lineReader.getFilePointer();
+    }
+
+    public void seek(long position) throws IOException {
+        hasNextLine = false;
+        lineReader.seek(position);
+    }
+
+    public long length() throws IOException {
+        return lineReader.length();
+    }
+
+    public void close() throws IOException {
+        lineReader.close();
+    }
+}
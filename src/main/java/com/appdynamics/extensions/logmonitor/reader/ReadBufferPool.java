@@ -0,0 +1,41 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.reader;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Keeps one direct read buffer per thread so that the worker threads scanning logs reuse the same buffer on every run
+ * instead of allocating a new one per file. A buffer that is already borrowed, or too small for the request, is
+ * replaced by a fresh allocation that goes back into the pool when released. A buffer is released into the pool of
+ * the calling thread, so a reader should be closed on the thread that read with it.
+ */
+class ReadBufferPool {
+    private static final ThreadLocal<ByteBuffer> POOLED_BUFFER = new ThreadLocal<ByteBuffer>();
+
+    private ReadBufferPool() {
+    }
+
+    static ByteBuffer acquire(int size) {
+        ByteBuffer buffer = POOLED_BUFFER.get();
+        if (buffer != null && buffer.capacity() >= size) {
+            POOLED_BUFFER.remove();
+            buffer.clear();
+            return buffer;
+        }
+        return ByteBuffer.allocateDirect(size);
+    }
+
+    static void release(ByteBuffer buffer) {
+        ByteBuffer pooled = POOLED_BUFFER.get();
+        if (pooled == null || pooled.capacity() < buffer.capacity()) {
+            POOLED_BUFFER.set(buffer);
+        }
+    }
+}
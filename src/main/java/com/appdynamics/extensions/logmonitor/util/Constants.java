@@ -20,5 +20,33 @@ public final class Constants {
     public static final String MONITOR_NAME = "Log Monitor";
     public static final String OCCURRENCES = "Occurrences";
     public static final String MATCHES = "Matches";
+    public static final String OTHER = "Other";
+    public static final String DISTINCT_MATCHES = "Distinct Matches";
+    public static final String TEMPLATES = "Templates";
+    public static final String COUNT = "Count";
+    public static final String MIN = "Min";
+    public static final String MAX = "Max";
+    public static final String OCCURRENCES_PER_MINUTE = "Occurrences Per Minute";
+    public static final String INGEST_LAG = "Ingest Lag (Seconds)";
+    public static final String REGEX_TIMEOUTS = "Regex Timeouts";
     public static final String SCHEMA_NAME = "LogSchema";
+    public static final String SCHEMA_PATH = "monitors/LogMonitor/logSchema.json";
+    public static final String EVENTS_DRAIN_RATE = "Events Drain Rate (Per Minute)";
+    public static final String EVENTS_DROPPED = "Events Dropped";
+    public static final String EVENTS_PUBLISHED = "Events Published";
+    public static final String EVENTS_PUBLISH_FAILURES = "Events Publish Failures";
+    public static final String EVENTS_QUEUE_DEPTH = "Events Queue Depth";
+    public static final String EVENTS_SUPPRESSED = "Events Suppressed";
+    public static final int DEFAULT_MAPPED_WINDOW_SIZE = 64 * 1024 * 1024;
+    public static final int DEFAULT_CHANNEL_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_MAX_MATCHED_STRINGS = 100;
+    public static final int DEFAULT_MAX_TEMPLATES = 100;
+    public static final int DEFAULT_MAX_RECORD_LINES = 500;
+    public static final int DEFAULT_EVENTS_QUEUE_SIZE = 10000;
+    public static final int DEFAULT_EVENTS_BATCH_SIZE = 500;
+    public static final int DEFAULT_EVENTS_BATCH_MAX_AGE = 5000;
+    public static final int DEFAULT_MAX_DEDUPLICATED_EVENTS = 1000;
+    public static final int DEFAULT_EVENTS_SPILL_SEGMENT_SIZE = 16 * 1024 * 1024;
+    public static final int DEFAULT_EVENTS_SPILL_MAX_SIZE = 256 * 1024 * 1024;
+    public static final int DEFAULT_EVENTS_SPILL_RETENTION_HOURS = 24;
 }
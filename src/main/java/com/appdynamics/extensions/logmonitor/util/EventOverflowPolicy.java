@@ -0,0 +1,26 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.util;
+
+/**
+ * What a scan does with an event when the queue of events waiting to be published is full.
+ */
+public enum EventOverflowPolicy {
+    BLOCK("block"), DROP("drop");
+
+    private String eventOverflowPolicy;
+
+    public String getEventOverflowPolicy() {
+        return this.eventOverflowPolicy;
+    }
+
+    EventOverflowPolicy(String eventOverflowPolicy) {
+        this.eventOverflowPolicy = eventOverflowPolicy;
+    }
+}
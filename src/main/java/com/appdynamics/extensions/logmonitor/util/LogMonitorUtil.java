@@ -8,22 +8,36 @@
 
 package com.appdynamics.extensions.logmonitor.util;
 
-import com.appdynamics.extensions.logmonitor.LogEvent;
+import com.appdynamics.extensions.eventsservice.EventsServiceDataManager;
+import com.appdynamics.extensions.logmonitor.EventDeduplicator;
+import com.appdynamics.extensions.logmonitor.EventSpillQueue;
+import com.appdynamics.extensions.logmonitor.EventsServiceClient;
+import com.appdynamics.extensions.logmonitor.LogEventPublisher;
+import com.appdynamics.extensions.logmonitor.LogMonitor;
 import com.appdynamics.extensions.logmonitor.config.FilePointer;
 import com.appdynamics.extensions.logmonitor.config.Log;
 import com.appdynamics.extensions.logmonitor.config.SearchPattern;
 import com.appdynamics.extensions.logmonitor.config.SearchString;
+import com.appdynamics.extensions.logmonitor.matchers.LinearRegex;
+import com.appdynamics.extensions.logmonitor.matchers.LiteralMatcher;
+import com.appdynamics.extensions.logmonitor.matchers.RegexCostAnalyzer;
+import com.appdynamics.extensions.logmonitor.matchers.RequiredLiteralFilter;
+import com.appdynamics.extensions.logmonitor.reader.BufferedLogReader;
+import com.appdynamics.extensions.logmonitor.reader.ChannelLogReader;
+import com.appdynamics.extensions.logmonitor.reader.LogReader;
+import com.appdynamics.extensions.logmonitor.reader.MappedLogReader;
+import com.appdynamics.extensions.logmonitor.reader.MultiLineLogReader;
 import com.appdynamics.extensions.metrics.Metric;
 import com.appdynamics.extensions.util.PathResolver;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Lists;
 import com.singularity.ee.agent.systemagent.api.AManagedMonitor;
 import org.apache.commons.lang3.StringUtils;
-import org.bitbucket.kienerj.OptimizedRandomAccessFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -31,7 +45,19 @@ import java.nio.file.attribute.BasicFileAttributeView;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static com.appdynamics.extensions.logmonitor.util.Constants.DEFAULT_CHANNEL_BUFFER_SIZE;
+import static com.appdynamics.extensions.logmonitor.util.Constants.DEFAULT_EVENTS_BATCH_MAX_AGE;
+import static com.appdynamics.extensions.logmonitor.util.Constants.DEFAULT_EVENTS_BATCH_SIZE;
+import static com.appdynamics.extensions.logmonitor.util.Constants.DEFAULT_EVENTS_QUEUE_SIZE;
+import static com.appdynamics.extensions.logmonitor.util.Constants.DEFAULT_EVENTS_SPILL_MAX_SIZE;
+import static com.appdynamics.extensions.logmonitor.util.Constants.DEFAULT_EVENTS_SPILL_RETENTION_HOURS;
+import static com.appdynamics.extensions.logmonitor.util.Constants.DEFAULT_EVENTS_SPILL_SEGMENT_SIZE;
+import static com.appdynamics.extensions.logmonitor.util.Constants.DEFAULT_MAX_DEDUPLICATED_EVENTS;
+import static com.appdynamics.extensions.logmonitor.util.Constants.DEFAULT_MAX_RECORD_LINES;
 
 /**
  * @author Aditya Jagtiani
@@ -40,6 +66,7 @@ public class LogMonitorUtil {
     private static final Logger LOGGER = LoggerFactory.getLogger(LogMonitorUtil.class);
     private static final String CASE_SENSITIVE_PATTERN = "(?-i)";
     private static final String CASE_INSENSITIVE_PATTERN = "(?i)";
+    private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
 
     public static String resolvePath(String filename) {
         if (StringUtils.isBlank(filename)) {
@@ -56,6 +83,21 @@ public class LogMonitorUtil {
         return String.format("%s%s%s", jarPath, File.separator, filename);
     }
 
+    /**
+     * Compiles the search strings of the log, with their regex engines, required literals and the literal automaton,
+     * unless that was done before. The processors of every file, chunk and run of the log share the result and only
+     * create their own matchers.
+     */
+    public static void compileSearchPatterns(Log log) {
+        synchronized (log) {
+            if (log.getSearchPatterns() == null) {
+                List<SearchPattern> searchPatterns = createPattern(log.getSearchStrings());
+                log.setLiteralMatcher(new LiteralMatcher(searchPatterns));
+                log.setSearchPatterns(searchPatterns);
+            }
+        }
+    }
+
     public static List<SearchPattern> createPattern(List<SearchString> searchStrings) {
         List<SearchPattern> searchPatterns = new ArrayList<SearchPattern>();
         if (searchStrings != null && !searchStrings.isEmpty()) {
@@ -75,20 +117,83 @@ public class LogMonitorUtil {
                     rawPatternsStringBuilder.append(searchString.getPattern().trim());
                 }
                 pattern = Pattern.compile(rawPatternsStringBuilder.toString());
+                String trimmedPattern = searchString.getPattern().trim();
+                String literal = searchString.getMatchExactString() || isLiteral(trimmedPattern) ? trimmedPattern : null;
                 SearchPattern searchPattern = new SearchPattern(searchString.getDisplayName(), pattern,
-                        searchString.getCaseSensitive(), searchString.getPrintMatchedString());
+                        searchString.getCaseSensitive(), searchString.getPrintMatchedString(),
+                        StringUtils.isEmpty(literal) ? null : literal, searchString.getMatchExactString());
+                searchPattern.setCountDistinctMatches(Boolean.TRUE.equals(searchString.getCountDistinctMatches()));
+                searchPattern.setValueGroup(searchString.getValueGroup());
+                searchPattern.setMaxEventsPerMinute(searchString.getMaxEventsPerMinute());
+                searchPattern.setMineTemplates(Boolean.TRUE.equals(searchString.getMineTemplates()));
+                if (searchString.getMaxTemplates() != null) {
+                    searchPattern.setMaxTemplates(searchString.getMaxTemplates());
+                }
+                if (searchString.getEventSampleRate() != null) {
+                    searchPattern.setEventSampleRate(searchString.getEventSampleRate());
+                }
+                if (searchString.getMaxMatchedStrings() != null) {
+                    searchPattern.setMaxMatchedStrings(searchString.getMaxMatchedStrings());
+                }
+                if (searchPattern.getLiteral() == null) {
+                    searchPattern.setRequiredLiteralFilter(RequiredLiteralFilter.forPattern(trimmedPattern,
+                            searchString.getCaseSensitive()));
+                }
+                if (searchPattern.getLiteral() == null && !searchString.getMatchExactString()
+                        && RegexEngine.LINEAR.getRegexEngine().equals(searchString.getRegexEngine())) {
+                    try {
+                        searchPattern.setMatcherFactory(LinearRegex.compile(trimmedPattern,
+                                searchString.getCaseSensitive()));
+                    } catch (IllegalArgumentException ex) {
+                        LOGGER.error("Search string {} can not be run by the linear regex engine, falling back to " +
+                                "java.util.regex", searchString.getDisplayName(), ex);
+                    }
+                }
                 searchPatterns.add(searchPattern);
             }
         }
         return searchPatterns;
     }
 
-    public static void closeRandomAccessFile(OptimizedRandomAccessFile randomAccessFile) {
-        if (randomAccessFile != null) {
+    /**
+     * A search string is matched as plain text when it contains none of the regular expression metacharacters.
+     */
+    private static boolean isLiteral(String pattern) {
+        return StringUtils.containsNone(pattern, REGEX_METACHARACTERS);
+    }
+
+    private static LogReader createLineReader(File file, Log log) throws IOException {
+        boolean encoded = !StringUtils.isBlank(log.getEncoding());
+        Charset charset = encoded ? Charset.forName(log.getEncoding()) : StandardCharsets.UTF_8;
+        if (ReaderMode.MAPPED.getReaderMode().equals(log.getReaderMode())) {
+            return new MappedLogReader(file, charset);
+        }
+        if (ReaderMode.BUFFERED.getReaderMode().equals(log.getReaderMode()) && !encoded) {
+            return new BufferedLogReader(file);
+        }
+        int bufferSize = log.getReadBufferSize() != null ? log.getReadBufferSize() : DEFAULT_CHANNEL_BUFFER_SIZE;
+        return new ChannelLogReader(file, charset, bufferSize);
+    }
+
+    /**
+     * Creates the reader for a log, reading records of several lines if the log has an event start pattern. Positions
+     * handed out by such a reader are always at the start of a record.
+     */
+    public static LogReader createLogReader(File file, Log log) throws IOException {
+        LogReader lineReader = createLineReader(file, log);
+        if (log.getEventStartPattern() == null) {
+            return lineReader;
+        }
+        int maxRecordLines = log.getMaxRecordLines() != null ? log.getMaxRecordLines() : DEFAULT_MAX_RECORD_LINES;
+        return new MultiLineLogReader(lineReader, Pattern.compile(log.getEventStartPattern()), maxRecordLines);
+    }
+
+    public static void closeLogReader(LogReader logReader) {
+        if (logReader != null) {
             try {
-                randomAccessFile.close();
+                logReader.close();
             } catch (IOException ex) {
-                LOGGER.debug("An error occurred while closing the random access file : " + ex);
+                LOGGER.debug("An error occurred while closing the log reader : " + ex);
             }
         }
     }
@@ -114,11 +219,26 @@ public class LogMonitorUtil {
     }
 
     public static List<Log> getValidLogsFromConfig(List<Map<String, ?>> logsFromConfig, String metricPrefix) {
+        return getValidLogsFromConfig(logsFromConfig, metricPrefix, null, null);
+    }
+
+    /**
+     * @param regexEngine the engine used by search strings that do not configure their own, or null for the default
+     * @param maxRegexCost the highest {@link RegexCost} a regex search string may have, or null to only warn about
+     *                     expensive ones
+     */
+    public static List<Log> getValidLogsFromConfig(List<Map<String, ?>> logsFromConfig, String metricPrefix,
+                                                   String regexEngine, String maxRegexCost) {
+        RegexCost maxCost = null;
+        if (!StringUtils.isBlank(maxRegexCost) && isValidRegexCost(maxRegexCost)) {
+            maxCost = RegexCost.valueOf(maxRegexCost.toUpperCase());
+        }
         List<Log> validLogs = new ArrayList<Log>();
         for (Map<String, ?> logFromConfig : logsFromConfig) {
             try {
-                Log log = initializeLog(logFromConfig, metricPrefix);
+                Log log = initializeLog(logFromConfig, metricPrefix, regexEngine, maxCost);
                 validateLog(log);
+                compileSearchPatterns(log);
                 validLogs.add(log);
             } catch (IllegalArgumentException ex) {
                 LOGGER.error("Invalid Log Configuration : " + logFromConfig.get("displayName"), ex);
@@ -139,12 +259,13 @@ public class LogMonitorUtil {
         }
     }
 
-    private static Log initializeLog(Map<String, ?> currentLogFromConfig, String metricPrefix) {
+    private static Log initializeLog(Map<String, ?> currentLogFromConfig, String metricPrefix, String regexEngine,
+                                     RegexCost maxRegexCost) {
         Log log = new Log();
         log.setDisplayName((String) currentLogFromConfig.get("displayName"));
         log.setLogName((String) currentLogFromConfig.get("logName"));
         log.setLogDirectory((String) currentLogFromConfig.get("logDirectory"));
-        log.setSearchStrings(initializeSearchStrings(currentLogFromConfig));
+        log.setSearchStrings(initializeSearchStrings(currentLogFromConfig, regexEngine, maxRegexCost));
 
         if (currentLogFromConfig.containsKey("encoding")) {
             String encodingFromConfig = (String) currentLogFromConfig.get("encoding");
@@ -152,10 +273,88 @@ public class LogMonitorUtil {
                 log.setEncoding(encodingFromConfig);
             }
         }
+
+        if (currentLogFromConfig.containsKey("readerMode")) {
+            String readerModeFromConfig = (String) currentLogFromConfig.get("readerMode");
+            if (!StringUtils.isBlank(readerModeFromConfig) && isValidReaderMode(readerModeFromConfig, log.getDisplayName())) {
+                log.setReaderMode(readerModeFromConfig);
+            }
+        }
+
+        if (currentLogFromConfig.containsKey("readBufferSize")) {
+            Integer readBufferSizeFromConfig = (Integer) currentLogFromConfig.get("readBufferSize");
+            if (readBufferSizeFromConfig != null && readBufferSizeFromConfig > 0) {
+                log.setReadBufferSize(readBufferSizeFromConfig);
+            } else if (readBufferSizeFromConfig != null) {
+                LOGGER.error("Found invalid read buffer size for log : {}, falling back to the default", log.getDisplayName());
+            }
+        }
+
+        if (currentLogFromConfig.containsKey("parallelChunkSize")) {
+            Integer parallelChunkSizeFromConfig = (Integer) currentLogFromConfig.get("parallelChunkSize");
+            if (parallelChunkSizeFromConfig != null && parallelChunkSizeFromConfig > 0) {
+                log.setParallelChunkSize(parallelChunkSizeFromConfig);
+            } else if (parallelChunkSizeFromConfig != null) {
+                LOGGER.error("Found invalid parallel chunk size for log : {}, scanning it on a single thread", log.getDisplayName());
+            }
+        }
+
+        if (currentLogFromConfig.containsKey("regexTimeBudget")) {
+            Integer regexTimeBudgetFromConfig = (Integer) currentLogFromConfig.get("regexTimeBudget");
+            if (regexTimeBudgetFromConfig != null && regexTimeBudgetFromConfig > 0) {
+                log.setRegexTimeBudget(regexTimeBudgetFromConfig);
+            } else if (regexTimeBudgetFromConfig != null) {
+                LOGGER.error("Found invalid regex time budget for log : {}, regex matching will not be timed", log.getDisplayName());
+            }
+        }
+
+        if (currentLogFromConfig.containsKey("regexStepBudget")) {
+            Integer regexStepBudgetFromConfig = (Integer) currentLogFromConfig.get("regexStepBudget");
+            if (regexStepBudgetFromConfig != null && regexStepBudgetFromConfig > 0) {
+                log.setRegexStepBudget(regexStepBudgetFromConfig);
+            } else if (regexStepBudgetFromConfig != null) {
+                LOGGER.error("Found invalid regex step budget for log : {}, regex steps will not be limited", log.getDisplayName());
+            }
+        }
+
+        if (currentLogFromConfig.containsKey("timestampFormat")) {
+            String timestampFormatFromConfig = (String) currentLogFromConfig.get("timestampFormat");
+            String timestampPatternFromConfig = StringUtils.trimToNull((String) currentLogFromConfig.get("timestampPattern"));
+            if (!StringUtils.isBlank(timestampFormatFromConfig) && isValidTimestampFormat(timestampFormatFromConfig,
+                    timestampPatternFromConfig, log.getDisplayName())) {
+                log.setTimestampFormat(timestampFormatFromConfig);
+                log.setTimestampPattern(timestampPatternFromConfig);
+            }
+        }
+
+        if (currentLogFromConfig.containsKey("startFrom")) {
+            String startFromConfig = (String) currentLogFromConfig.get("startFrom");
+            if (!StringUtils.isBlank(startFromConfig) && isValidStartFrom(startFromConfig, log)) {
+                log.setStartFrom(startFromConfig);
+            }
+        }
+
+        if (currentLogFromConfig.containsKey("eventStartPattern")) {
+            String eventStartPatternFromConfig = (String) currentLogFromConfig.get("eventStartPattern");
+            if (!StringUtils.isBlank(eventStartPatternFromConfig) && isValidEventStartPattern(eventStartPatternFromConfig,
+                    log.getDisplayName())) {
+                log.setEventStartPattern(eventStartPatternFromConfig);
+            }
+        }
+
+        if (currentLogFromConfig.containsKey("maxRecordLines")) {
+            Integer maxRecordLinesFromConfig = (Integer) currentLogFromConfig.get("maxRecordLines");
+            if (maxRecordLinesFromConfig != null && maxRecordLinesFromConfig > 0) {
+                log.setMaxRecordLines(maxRecordLinesFromConfig);
+            } else if (maxRecordLinesFromConfig != null) {
+                LOGGER.error("Found invalid max record lines for log : {}, falling back to the default", log.getDisplayName());
+            }
+        }
         return log;
     }
 
-    private static List<SearchString> initializeSearchStrings(Map<String, ?> currentLogFromConfig) {
+    private static List<SearchString> initializeSearchStrings(Map<String, ?> currentLogFromConfig, String regexEngine,
+                                                              RegexCost maxRegexCost) {
         List<SearchString> searchStrings = Lists.newArrayList();
         List<Map<String, ?>> searchStringsForCurrentLog = (List) currentLogFromConfig.get("searchStrings");
         for (Map<String, ?> searchStringFromLog : searchStringsForCurrentLog) {
@@ -165,11 +364,100 @@ public class LogMonitorUtil {
             searchString.setMatchExactString((Boolean) searchStringFromLog.get("matchExactString"));
             searchString.setCaseSensitive((Boolean) searchStringFromLog.get("caseSensitive"));
             searchString.setPrintMatchedString((Boolean) searchStringFromLog.get("printMatchedString"));
-            searchStrings.add(searchString);
+            String regexEngineFromConfig = (String) searchStringFromLog.get("regexEngine");
+            if (StringUtils.isBlank(regexEngineFromConfig)) {
+                regexEngineFromConfig = regexEngine;
+            }
+            if (!StringUtils.isBlank(regexEngineFromConfig) && isValidRegexEngine(regexEngineFromConfig,
+                    searchString.getDisplayName())) {
+                searchString.setRegexEngine(regexEngineFromConfig);
+            }
+            searchString.setCountDistinctMatches((Boolean) searchStringFromLog.get("countDistinctMatches"));
+            String valueGroupFromConfig = (String) searchStringFromLog.get("valueGroup");
+            if (!StringUtils.isBlank(valueGroupFromConfig) && isValidValueGroup(valueGroupFromConfig, searchString)) {
+                searchString.setValueGroup(valueGroupFromConfig);
+            }
+            searchString.setMineTemplates((Boolean) searchStringFromLog.get("mineTemplates"));
+            Integer maxTemplatesFromConfig = (Integer) searchStringFromLog.get("maxTemplates");
+            if (maxTemplatesFromConfig != null && maxTemplatesFromConfig > 0) {
+                searchString.setMaxTemplates(maxTemplatesFromConfig);
+            } else if (maxTemplatesFromConfig != null) {
+                LOGGER.error("Found invalid max templates for search string : {}, falling back to the default",
+                        searchString.getDisplayName());
+            }
+            Integer maxEventsPerMinuteFromConfig = (Integer) searchStringFromLog.get("maxEventsPerMinute");
+            if (maxEventsPerMinuteFromConfig != null && maxEventsPerMinuteFromConfig > 0) {
+                searchString.setMaxEventsPerMinute(maxEventsPerMinuteFromConfig);
+            } else if (maxEventsPerMinuteFromConfig != null) {
+                LOGGER.error("Found invalid max events per minute for search string : {}, events will not be limited",
+                        searchString.getDisplayName());
+            }
+            Number eventSampleRateFromConfig = (Number) searchStringFromLog.get("eventSampleRate");
+            if (eventSampleRateFromConfig != null && eventSampleRateFromConfig.doubleValue() > 0
+                    && eventSampleRateFromConfig.doubleValue() <= 1) {
+                searchString.setEventSampleRate(eventSampleRateFromConfig.doubleValue());
+            } else if (eventSampleRateFromConfig != null) {
+                LOGGER.error("Found invalid event sample rate for search string : {}, it must be greater than 0 " +
+                        "and at most 1. Events will not be sampled", searchString.getDisplayName());
+            }
+            Integer maxMatchedStringsFromConfig = (Integer) searchStringFromLog.get("maxMatchedStrings");
+            if (maxMatchedStringsFromConfig != null && maxMatchedStringsFromConfig > 0) {
+                searchString.setMaxMatchedStrings(maxMatchedStringsFromConfig);
+            } else if (maxMatchedStringsFromConfig != null) {
+                LOGGER.error("Found invalid max matched strings for search string : {}, falling back to the default",
+                        searchString.getDisplayName());
+            }
+            if (isAffordable(searchString, (String) currentLogFromConfig.get("displayName"), maxRegexCost)) {
+                searchStrings.add(searchString);
+            }
         }
         return searchStrings;
     }
 
+    /**
+     * Warns about a regex search string that is expensive for java.util.regex. Literal and exact search strings are
+     * matched as plain text and regexes the linear engine can run do not backtrack, so only the rest are analyzed.
+     * A regex that does not compile is dropped here, so that it does not invalidate the other search strings.
+     *
+     * @return false if the search string is invalid or more expensive than the configured maximum cost and must be
+     * dropped
+     */
+    private static boolean isAffordable(SearchString searchString, String logDisplayName, RegexCost maxRegexCost) {
+        String trimmedPattern = StringUtils.trimToEmpty(searchString.getPattern());
+        if (Boolean.TRUE.equals(searchString.getMatchExactString()) || isLiteral(trimmedPattern)) {
+            return true;
+        }
+        try {
+            Pattern.compile(trimmedPattern);
+        } catch (PatternSyntaxException ex) {
+            LOGGER.error("Dropping search string : {} of log : {}, its pattern is not a valid regex",
+                    searchString.getDisplayName(), logDisplayName, ex);
+            return false;
+        }
+        boolean caseSensitive = Boolean.TRUE.equals(searchString.getCaseSensitive());
+        if (RegexEngine.LINEAR.getRegexEngine().equals(searchString.getRegexEngine())) {
+            try {
+                LinearRegex.compile(trimmedPattern, caseSensitive);
+                return true;
+            } catch (IllegalArgumentException ex) {
+                // analyzed below as it falls back to java.util.regex
+            }
+        }
+        RegexCostAnalyzer analyzer = RegexCostAnalyzer.analyze(trimmedPattern, caseSensitive);
+        if (analyzer.getCost() == RegexCost.LOW) {
+            return true;
+        }
+        if (maxRegexCost != null && analyzer.getCost().compareTo(maxRegexCost) > 0) {
+            LOGGER.error("Dropping search string : {} of log : {}, its estimated regex cost {} is above the maximum {}: {}",
+                    searchString.getDisplayName(), logDisplayName, analyzer.getCost().getRegexCost(),
+                    maxRegexCost.getRegexCost(), analyzer.getReasons());
+            return false;
+        }
+        LOGGER.warn("Search string : {} of log : {} has an estimated regex cost of {}: {}", searchString.getDisplayName(),
+                logDisplayName, analyzer.getCost().getRegexCost(), analyzer.getReasons());
+        return true;
+    }
+
     private static boolean isValidEncodingType(String encodingFromConfig, String logDisplayName) {
         for (EncodingType encodingType : EncodingType.values()) {
             if (encodingType.getEncodingType().equals(encodingFromConfig)) {
@@ -180,20 +468,112 @@ public class LogMonitorUtil {
         return false;
     }
 
+    private static boolean isValidReaderMode(String readerModeFromConfig, String logDisplayName) {
+        for (ReaderMode readerMode : ReaderMode.values()) {
+            if (readerMode.getReaderMode().equals(readerModeFromConfig)) {
+                return true;
+            }
+        }
+        LOGGER.error("Found Unsupported/Invalid reader mode for log : {}, falling back to the default", logDisplayName);
+        return false;
+    }
 
-    public static void convertToUTF8Encoding(File file, String charset) throws Exception {
-        BufferedReader in = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), charset));
-        String line;
-        StringBuilder sb = new StringBuilder();
-        while ((line = in.readLine()) != null) {
-            sb.append(line);
-            sb.append("\n");
+    private static boolean isValidRegexEngine(String regexEngineFromConfig, String searchStringDisplayName) {
+        for (RegexEngine regexEngine : RegexEngine.values()) {
+            if (regexEngine.getRegexEngine().equals(regexEngineFromConfig)) {
+                return true;
+            }
+        }
+        LOGGER.error("Found Unsupported/Invalid regex engine for search string : {}, falling back to the default",
+                searchStringDisplayName);
+        return false;
+    }
+
+    /**
+     * The value group must be a named group of the pattern, which is not a regex when matchExactString is set.
+     */
+    private static boolean isValidValueGroup(String valueGroupFromConfig, SearchString searchString) {
+        if (!Boolean.TRUE.equals(searchString.getMatchExactString()) && searchString.getPattern() != null
+                && searchString.getPattern().contains("(?<" + valueGroupFromConfig + ">")) {
+            return true;
+        }
+        LOGGER.error("Found invalid value group for search string : {}, it must be a named group of its pattern. " +
+                "Values will not be captured", searchString.getDisplayName());
+        return false;
+    }
+
+    private static boolean isValidTimestampFormat(String timestampFormatFromConfig, String timestampPatternFromConfig,
+                                                  String logDisplayName) {
+        try {
+            new TimestampParser(timestampFormatFromConfig, timestampPatternFromConfig);
+            return true;
+        } catch (IllegalArgumentException ex) {
+            LOGGER.error("Found invalid timestamp format or pattern for log : {}, timestamps will not be read",
+                    logDisplayName, ex);
+            return false;
         }
-        OutputStream outputStream = new FileOutputStream(file, false);
-        Writer outputStreamWriter = new OutputStreamWriter(outputStream, "UTF-8");
-        outputStreamWriter.write(sb.toString());
-        outputStreamWriter.close();
+    }
+
+    private static boolean isValidEventStartPattern(String eventStartPattern, String logDisplayName) {
+        try {
+            Pattern.compile(eventStartPattern);
+            return true;
+        } catch (PatternSyntaxException ex) {
+            LOGGER.error("Found invalid event start pattern for log : {}, every line will be a record of its own. {}",
+                    logDisplayName, ex.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean isValidStartFrom(String startFromConfig, Log log) {
+        for (StartFrom startFrom : StartFrom.values()) {
+            if (startFrom.getStartFrom().equals(startFromConfig)) {
+                return true;
+            }
+        }
+        if (getLookbackMillis(startFromConfig) == null) {
+            LOGGER.error("Found invalid start position for log : {}, it will be read from the beginning", log.getDisplayName());
+            return false;
+        }
+        if (log.getTimestampFormat() == null) {
+            LOGGER.error("Found a lookback start position without a timestamp format for log : {}, it will be read from " +
+                    "the beginning", log.getDisplayName());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param lookback a number of seconds, minutes, hours or days such as {@code 30s}, {@code 15m}, {@code 2h} or
+     *                 {@code 1d}
+     * @return the lookback in milliseconds, or null if it is not a valid lookback
+     */
+    public static Long getLookbackMillis(String lookback) {
+        if (lookback == null || !lookback.matches("\\d{1,9}[smhd]")) {
+            return null;
+        }
+        long amount = Long.parseLong(lookback.substring(0, lookback.length() - 1));
+        switch (lookback.charAt(lookback.length() - 1)) {
+            case 's':
+                return TimeUnit.SECONDS.toMillis(amount);
+            case 'm':
+                return TimeUnit.MINUTES.toMillis(amount);
+            case 'h':
+                return TimeUnit.HOURS.toMillis(amount);
+            default:
+                return TimeUnit.DAYS.toMillis(amount);
+        }
+    }
+
+    private static boolean isValidRegexCost(String regexCostFromConfig) {
+        for (RegexCost regexCost : RegexCost.values()) {
+            if (regexCost.getRegexCost().equals(regexCostFromConfig)) {
+                return true;
+            }
+        }
+        LOGGER.error("Found Unsupported/Invalid max regex cost : {}, expensive search strings will only be reported",
+                regexCostFromConfig);
+        return false;
     }
 
     public static List<Metric> getFinalMetricList(Map<String, Metric> metricMap) {
@@ -204,16 +584,73 @@ public class LogMonitorUtil {
         return metrics;
     }
 
-    public static CopyOnWriteArrayList<String> prepareEventsForPublishing(List<LogEvent> eventsToBePublished) {
-        CopyOnWriteArrayList<String> events = new CopyOnWriteArrayList<String>();
-        ObjectMapper mapper = new ObjectMapper();
-        for (LogEvent logEvent : eventsToBePublished) {
+    /**
+     * Creates the publisher of the events of all the logs from the events settings of the config. Events are spilled to
+     * {@code eventsSpillDirectory} if it is set, resolved against the directory of the extension if it is relative,
+     * and queued in memory if it can not be opened.
+     */
+    public static LogEventPublisher createLogEventPublisher(Map<String, ?> configYml,
+                                                            EventsServiceDataManager eventsServiceDataManager) {
+        int queueSize = getPositiveInteger(configYml, "eventsQueueSize", DEFAULT_EVENTS_QUEUE_SIZE);
+        int batchSize = getPositiveInteger(configYml, "eventsBatchSize", DEFAULT_EVENTS_BATCH_SIZE);
+        int batchMaxAge = getPositiveInteger(configYml, "eventsBatchMaxAge", DEFAULT_EVENTS_BATCH_MAX_AGE);
+        String spillDirectoryFromConfig = (String) configYml.get("eventsSpillDirectory");
+        if (!StringUtils.isBlank(spillDirectoryFromConfig)) {
+            File spillDirectory = new File(spillDirectoryFromConfig);
+            if (!spillDirectory.isAbsolute()) {
+                spillDirectory = new File(PathResolver.resolveDirectory(LogMonitor.class), spillDirectoryFromConfig);
+            }
             try {
-                events.add(mapper.writeValueAsString(logEvent));
+                EventsServiceClient eventsServiceClient = EventsServiceClient.fromParameters(
+                        (Map<String, ?>) configYml.get("eventsServiceParameters"));
+                EventSpillQueue spillQueue = EventSpillQueue.forDirectory(spillDirectory,
+                        getPositiveInteger(configYml, "eventsSpillSegmentSize", DEFAULT_EVENTS_SPILL_SEGMENT_SIZE),
+                        getPositiveInteger(configYml, "eventsSpillMaxSize", DEFAULT_EVENTS_SPILL_MAX_SIZE),
+                        TimeUnit.HOURS.toMillis(getPositiveInteger(configYml, "eventsSpillRetentionHours",
+                                DEFAULT_EVENTS_SPILL_RETENTION_HOURS)));
+                return new LogEventPublisher(eventsServiceDataManager, eventsServiceClient, spillQueue, batchSize,
+                        batchMaxAge);
             } catch (Exception ex) {
-                LOGGER.error("Error encountered while publishing LogEvent {} for log {}", logEvent, logEvent.getLogDisplayName(), ex);
+                LOGGER.error("Error encountered while opening the events spill directory {}, events are queued in " +
+                        "memory", spillDirectory, ex);
+            }
+        }
+        EventOverflowPolicy overflowPolicy = EventOverflowPolicy.BLOCK;
+        String overflowPolicyFromConfig = (String) configYml.get("eventsOverflowPolicy");
+        if (!StringUtils.isBlank(overflowPolicyFromConfig)) {
+            overflowPolicy = getEventOverflowPolicy(overflowPolicyFromConfig);
+        }
+        return new LogEventPublisher(eventsServiceDataManager, queueSize, batchSize, batchMaxAge, overflowPolicy);
+    }
+
+    /**
+     * @return the deduplicator of the events of one scan of a log, or null if events are not deduplicated
+     */
+    public static EventDeduplicator createEventDeduplicator(Map<String, ?> configYml) {
+        if (!Boolean.TRUE.equals(configYml.get("deduplicateEvents"))) {
+            return null;
+        }
+        return new EventDeduplicator(getPositiveInteger(configYml, "maxDeduplicatedEvents",
+                DEFAULT_MAX_DEDUPLICATED_EVENTS));
+    }
+
+    private static int getPositiveInteger(Map<String, ?> configYml, String key, int defaultValue) {
+        Integer valueFromConfig = (Integer) configYml.get(key);
+        if (valueFromConfig != null && valueFromConfig > 0) {
+            return valueFromConfig;
+        } else if (valueFromConfig != null) {
+            LOGGER.error("Found invalid {} : {}, falling back to the default {}", key, valueFromConfig, defaultValue);
+        }
+        return defaultValue;
+    }
+
+    private static EventOverflowPolicy getEventOverflowPolicy(String overflowPolicyFromConfig) {
+        for (EventOverflowPolicy overflowPolicy : EventOverflowPolicy.values()) {
+            if (overflowPolicy.getEventOverflowPolicy().equals(overflowPolicyFromConfig)) {
+                return overflowPolicy;
             }
         }
-        return events;
+        LOGGER.error("Found invalid events overflow policy : {}, falling back to block", overflowPolicyFromConfig);
+        return EventOverflowPolicy.BLOCK;
     }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.util;
+
+public enum ReaderMode {
+    CHANNEL("channel"), BUFFERED("buffered"), MAPPED("mapped");
+
+    private String readerMode;
+
+    public String getReaderMode() {
+        return this.readerMode;
+    }
+
+    ReaderMode(String readerMode) {
+        this.readerMode = readerMode;
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.util;
+
+/**
+ * Estimated cost class of a regex search string, in increasing order. {@code MEDIUM} patterns take time quadratic in
+ * the line length or do redundant work on every position, {@code HIGH} patterns can backtrack exponentially.
+ */
+public enum RegexCost {
+    LOW("low"), MEDIUM("medium"), HIGH("high");
+
+    private String regexCost;
+
+    public String getRegexCost() {
+        return this.regexCost;
+    }
+
+    RegexCost(String regexCost) {
+        this.regexCost = regexCost;
+    }
+}
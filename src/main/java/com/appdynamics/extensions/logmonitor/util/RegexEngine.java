@@ -0,0 +1,23 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.util;
+
+public enum RegexEngine {
+    JAVA("java"), LINEAR("linear");
+
+    private String regexEngine;
+
+    public String getRegexEngine() {
+        return this.regexEngine;
+    }
+
+    RegexEngine(String regexEngine) {
+        this.regexEngine = regexEngine;
+    }
+}
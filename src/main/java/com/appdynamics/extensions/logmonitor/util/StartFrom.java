@@ -0,0 +1,27 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.util;
+
+/**
+ * Where a log without a file pointer is read from. Besides these values, a lookback duration such as {@code 15m}
+ * starts at the first line written in that duration.
+ */
+public enum StartFrom {
+    BEGINNING("beginning"), END("end");
+
+    private String startFrom;
+
+    public String getStartFrom() {
+        return this.startFrom;
+    }
+
+    StartFrom(String startFrom) {
+        this.startFrom = startFrom;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.util;
+
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the time of a log line. With the {@link #AUTO} format, an ISO 8601 like timestamp is expected at the start of
+ * the line, optionally in brackets, such as {@code 2021-03-01 10:15:42,123} or {@code [2021-03-01T10:15:42.123Z]}.
+ * Otherwise the line is parsed with the {@link DateTimeFormatter} pattern of the log, from the start of the line or from
+ * the first match of its timestamp pattern. Timestamps without an offset are in the default time zone.
+ * <p>
+ * A parser keeps the minute of the previous line to avoid converting dates on every line, so it must only be used by
+ * one thread. With a configured format, each line is parsed once into its fields, and when all fields but the seconds
+ * and the fraction are the same as for the previous line, they are added to its minute instead of resolving a date.
+ * Formats with optional sections are resolved on every line, as a field missing from one line may change the minute
+ * of the next.
+ */
+public class TimestampParser {
+    public static final String AUTO = "auto";
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final int MINUTE_PREFIX_LENGTH = "yyyy-MM-ddTHH:mm".length();
+
+    private final DateTimeFormatter formatter;
+    private final Matcher timestampMatcher;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final char[] lastMinutePrefix = new char[MINUTE_PREFIX_LENGTH];
+    private long lastMinuteMillis = NO_TIMESTAMP;
+    private long lastMinuteZoneOffsetMillis = NO_TIMESTAMP;
+    private final ParsePosition position = new ParsePosition(0);
+    private final boolean cacheMinutes;
+    private ChronoField[] lastMinuteFields;
+    private long[] lastMinuteValues;
+    private ZoneId lastMinuteZone;
+
+    /**
+     * @param format {@link #AUTO} or a {@link DateTimeFormatter} pattern
+     * @param timestampPattern the regex locating the timestamp in the line, or null if it starts the line
+     * @throws IllegalArgumentException if the format or the pattern is invalid
+     */
+    public TimestampParser(String format, String timestampPattern) {
+        this.formatter = AUTO.equals(format) ? null
+                : DateTimeFormatter.ofPattern(format, Locale.ENGLISH).withZone(zone);
+        this.timestampMatcher = timestampPattern == null ? null : Pattern.compile(timestampPattern).matcher("");
+        this.cacheMinutes = formatter != null && format.indexOf('[') < 0;
+    }
+
+    /**
+     * @return the time of the line in milliseconds since the epoch, or {@link #NO_TIMESTAMP} if it has none
+     */
+    public long parse(CharSequence line) {
+        int start = 0;
+        if (timestampMatcher != null) {
+            if (!timestampMatcher.reset(line).find()) {
+                return NO_TIMESTAMP;
+            }
+            start = timestampMatcher.start();
+        }
+        return formatter == null ? parseIso(line, start) : parseWithFormatter(line, start);
+    }
+
+    private long parseWithFormatter(CharSequence line, int start) {
+        position.setIndex(start);
+        position.setErrorIndex(-1);
+        TemporalAccessor parsed = formatter.parseUnresolved(line, position);
+        if (parsed == null) {
+            return NO_TIMESTAMP;
+        }
+        long seconds = parsed.isSupported(ChronoField.SECOND_OF_MINUTE)
+                ? parsed.getLong(ChronoField.SECOND_OF_MINUTE) : 0;
+        long nanos = parsed.isSupported(ChronoField.NANO_OF_SECOND) ? parsed.getLong(ChronoField.NANO_OF_SECOND) : 0;
+        if (cacheMinutes && seconds <= 59 && isLastMinute(parsed)) {
+            return lastMinuteMillis + seconds * 1000 + nanos / 1000000;
+        }
+        // the fields are resolved by parsing the timestamp again, which is only needed once a minute
+        lastMinuteValues = null;
+        position.setIndex(start);
+        long millis;
+        try {
+            millis = Instant.from(formatter.parse(line, position)).toEpochMilli();
+        } catch (DateTimeException ex) {
+            return NO_TIMESTAMP;
+        }
+        if (cacheMinutes) {
+            lastMinuteMillis = millis - seconds * 1000 - nanos / 1000000;
+            rememberMinute(parsed);
+        }
+        return millis;
+    }
+
+    private boolean isLastMinute(TemporalAccessor parsed) {
+        if (lastMinuteValues == null || !Objects.equals(lastMinuteZone, parsed.query(TemporalQueries.zoneId()))) {
+            return false;
+        }
+        for (int i = 0; i < lastMinuteFields.length; i++) {
+            if (!parsed.isSupported(lastMinuteFields[i]) || parsed.getLong(lastMinuteFields[i]) != lastMinuteValues[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rememberMinute(TemporalAccessor parsed) {
+        List<ChronoField> fields = new ArrayList<ChronoField>();
+        for (ChronoField field : ChronoField.values()) {
+            if (field != ChronoField.SECOND_OF_MINUTE && field != ChronoField.NANO_OF_SECOND && parsed.isSupported(field)) {
+                fields.add(field);
+            }
+        }
+        lastMinuteFields = fields.toArray(new ChronoField[0]);
+        lastMinuteValues = new long[lastMinuteFields.length];
+        for (int i = 0; i < lastMinuteFields.length; i++) {
+            lastMinuteValues[i] = parsed.getLong(lastMinuteFields[i]);
+        }
+        lastMinuteZone = parsed.query(TemporalQueries.zoneId());
+    }
+
+    private long parseIso(CharSequence line, int start) {
+        if (start < line.length() && line.charAt(start) == '[') {
+            start++;
+        }
+        // yyyy-MM-dd HH:mm:ss is the shortest form
+        if (line.length() - start < 19 || !isDigits(line, start, 4) || !isDateSeparator(line.charAt(start + 4))
+                || !isDigits(line, start + 5, 2) || line.charAt(start + 7) != line.charAt(start + 4)
+                || !isDigits(line, start + 8, 2) || (line.charAt(start + 10) != ' ' && line.charAt(start + 10) != 'T')
+                || !isDigits(line, start + 11, 2) || line.charAt(start + 13) != ':' || !isDigits(line, start + 14, 2)
+                || line.charAt(start + 16) != ':' || !isDigits(line, start + 17, 2)) {
+            return NO_TIMESTAMP;
+        }
+        long minuteMillis = minuteMillis(line, start);
+        if (minuteMillis == NO_TIMESTAMP) {
+            return NO_TIMESTAMP;
+        }
+        int seconds = number(line, start + 17, 2);
+        if (seconds > 59) {
+            return NO_TIMESTAMP;
+        }
+        long millis = minuteMillis + seconds * 1000L;
+        int i = start + 19;
+        if (i + 1 < line.length() && (line.charAt(i) == '.' || line.charAt(i) == ',') && isDigits(line, i + 1, 1)) {
+            i++;
+            int scale = 100;
+            while (i < line.length() && isDigits(line, i, 1)) {
+                millis += (line.charAt(i) - '0') * scale;
+                scale /= 10;
+                i++;
+            }
+        }
+        return millis - offsetMillis(line, i);
+    }
+
+    /**
+     * @return the time of the minute of the timestamp starting at {@code start}, as if it was in UTC
+     */
+    private long minuteMillis(CharSequence line, int start) {
+        boolean sameMinute = lastMinuteMillis != NO_TIMESTAMP;
+        for (int i = 0; i < MINUTE_PREFIX_LENGTH && sameMinute; i++) {
+            sameMinute = lastMinutePrefix[i] == line.charAt(start + i);
+        }
+        if (sameMinute) {
+            return lastMinuteMillis;
+        }
+        try {
+            LocalDateTime minute = LocalDateTime.of(number(line, start, 4), number(line, start + 5, 2),
+                    number(line, start + 8, 2), number(line, start + 11, 2), number(line, start + 14, 2));
+            lastMinuteMillis = minute.toEpochSecond(ZoneOffset.UTC) * 1000;
+            lastMinuteZoneOffsetMillis = NO_TIMESTAMP;
+        } catch (DateTimeException ex) {
+            lastMinuteMillis = NO_TIMESTAMP;
+            return NO_TIMESTAMP;
+        }
+        for (int i = 0; i < MINUTE_PREFIX_LENGTH; i++) {
+            lastMinutePrefix[i] = line.charAt(start + i);
+        }
+        return lastMinuteMillis;
+    }
+
+    /**
+     * @return the offset from UTC written at {@code i}, or the one of the default time zone if there is none
+     */
+    private long offsetMillis(CharSequence line, int i) {
+        if (i < line.length() && line.charAt(i) == 'Z') {
+            return 0;
+        }
+        if (i + 2 < line.length() && (line.charAt(i) == '+' || line.charAt(i) == '-') && isDigits(line, i + 1, 2)) {
+            int minutes = number(line, i + 1, 2) * 60;
+            int next = i + 3 < line.length() && line.charAt(i + 3) == ':' ? i + 4 : i + 3;
+            if (next + 1 < line.length() && isDigits(line, next, 2)) {
+                minutes += number(line, next, 2);
+            }
+            return (line.charAt(i) == '-' ? -minutes : minutes) * 60000L;
+        }
+        if (lastMinuteZoneOffsetMillis == NO_TIMESTAMP) {
+            LocalDateTime localTime = LocalDateTime.ofEpochSecond(lastMinuteMillis / 1000, 0, ZoneOffset.UTC);
+            lastMinuteZoneOffsetMillis = zone.getRules().getOffset(localTime).getTotalSeconds() * 1000L;
+        }
+        return lastMinuteZoneOffsetMillis;
+    }
+
+    private static boolean isDateSeparator(char c) {
+        return c == '-' || c == '/';
+    }
+
+    private static boolean isDigits(CharSequence line, int start, int count) {
+        for (int i = start; i < start + count; i++) {
+            if (i >= line.length() || line.charAt(i) < '0' || line.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int number(CharSequence line, int start, int count) {
+        int number = 0;
+        for (int i = start; i < start + count; i++) {
+            number = number * 10 + line.charAt(i) - '0';
+        }
+        return number;
+    }
+}
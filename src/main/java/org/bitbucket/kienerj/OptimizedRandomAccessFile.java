@@ -724,12 +724,29 @@ public class OptimizedRandomAccessFile {
      * @exception IOException if an I/O error occurs.
      */
     public synchronized final String readLine(boolean ignoreLF) throws IOException {
+        if (ignoreLF) {
+            skipLF = true;
+        }
+        StringBuilder s = new StringBuilder(defaultExpectedLineLength);
+        return readLine(s) ? s.toString() : null;
+    }
+
+    /**
+     * <p> Same as {@link #readLine() readLine()}, but the line is copied into
+     * the given builder instead of a newly allocated <code>String</code>, so
+     * that callers scanning a file can reuse one builder for every line. </p>
+     *
+     * @param line cleared and filled with the next line of text from this file
+     * @return false if end of file is encountered before even one byte is read
+     * @exception IOException if an I/O error occurs.
+     */
+    public synchronized final boolean readLine(StringBuilder line) throws IOException {
 
-        StringBuilder s = null;
         int startChar;
         int separatorIndex = 0;
 
-        boolean omitLF = ignoreLF || skipLF;
+        boolean omitLF = skipLF;
+        line.setLength(0);
 
         for (;;) {
 
@@ -737,13 +754,9 @@ public class OptimizedRandomAccessFile {
                 fill();
             }
             if (nextChar >= nChars) { /* EOF */
-                if (s != null && s.length() > 0) {
-                    //EOF -> hence no need to adjust position in file
-                    // changed by fill()
-                    return s.toString();
-                } else {
-                    return null;
-                }
+                //EOF -> hence no need to adjust position in file
+                // changed by fill()
+                return line.length() > 0;
             }
             boolean eol = false;
             char c = 0;
@@ -767,15 +780,9 @@ public class OptimizedRandomAccessFile {
 
             startChar = nextChar;
             nextChar = i;
+            line.append(charBuffer, startChar, i - startChar);
 
             if (eol) {
-                String str;
-                if (s == null) {
-                    str = new String(charBuffer, startChar, i - startChar);
-                } else {
-                    s.append(charBuffer, startChar, i - startChar);
-                    str = s.toString();
-                }
                 nextChar++;
                 if (c == '\r') {
                     skipLF = true;
@@ -787,13 +794,8 @@ public class OptimizedRandomAccessFile {
                     }
                 }
                 actualFilePointer = lastOffset + nextChar + separatorIndex;
-                return str;
-            }
-
-            if (s == null) {
-                s = new StringBuilder(defaultExpectedLineLength);
+                return true;
             }
-            s.append(charBuffer, startChar, i - startChar);
         }
     }
 
@@ -0,0 +1,80 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class EventDeduplicatorTest {
+
+    @Test
+    public void testTimestampsNumbersAndHexIdsAreMasked() {
+        assertEquals("ERROR\n# ERROR request # failed for user # after #ms",
+                EventDeduplicator.fingerprint(logEvent("ERROR",
+                        "2021-03-01T10:15:42.123Z ERROR request 7f3a9c01 failed for user 42 after 350ms", "")));
+        assertEquals(EventDeduplicator.fingerprint(logEvent("ERROR", "[10:15:42,123] ERROR id=0x1F timeout", "")),
+                EventDeduplicator.fingerprint(logEvent("ERROR", "[11:02:07,004] ERROR id=0xA3 timeout", "")));
+        assertNotEquals(EventDeduplicator.fingerprint(logEvent("ERROR", "ERROR connection refused", "")),
+                EventDeduplicator.fingerprint(logEvent("ERROR", "ERROR connection reset", "")));
+        assertNotEquals(EventDeduplicator.fingerprint(logEvent("ERROR", "connection refused", "")),
+                EventDeduplicator.fingerprint(logEvent("WARN", "connection refused", "")));
+    }
+
+    @Test
+    public void testRepeatsAreCollapsedWithTheirCountAndTimes() {
+        EventDeduplicator eventDeduplicator = new EventDeduplicator(100);
+        LogEvent first = logEvent("ERROR", "10:15:42 ERROR request 1 failed", "2021-03-01T10:15:42.000Z");
+        assertNull(eventDeduplicator.add(first));
+        assertNull(eventDeduplicator.add(logEvent("ERROR", "10:15:43 ERROR disk full", "2021-03-01T10:15:43.000Z")));
+        assertNull(eventDeduplicator.add(logEvent("ERROR", "10:15:50 ERROR request 2 failed",
+                "2021-03-01T10:15:50.000Z")));
+        assertNull(eventDeduplicator.add(logEvent("ERROR", "10:15:40 ERROR request 3 failed",
+                "2021-03-01T10:15:40.000Z")));
+
+        List<LogEvent> events = eventDeduplicator.drain();
+        assertEquals(2, events.size());
+        assertSame(first, events.get(0));
+        assertEquals("10:15:42 ERROR request 1 failed", first.getLogMatch());
+        assertEquals(3, first.getCount());
+        assertEquals("2021-03-01T10:15:40.000Z", first.getFirstSeen());
+        assertEquals("2021-03-01T10:15:50.000Z", first.getLastSeen());
+        assertEquals(1, events.get(1).getCount());
+        assertEquals(0, eventDeduplicator.drain().size());
+    }
+
+    @Test
+    public void testNewEventsAreReturnedOnceTheTableIsFull() {
+        EventDeduplicator eventDeduplicator = new EventDeduplicator(2);
+        assertNull(eventDeduplicator.add(logEvent("ERROR", "ERROR disk full", "2021-03-01T10:15:42.000Z")));
+        assertNull(eventDeduplicator.add(logEvent("ERROR", "ERROR out of memory", "2021-03-01T10:15:42.000Z")));
+        LogEvent third = logEvent("ERROR", "ERROR connection refused", "2021-03-01T10:15:42.000Z");
+        assertSame(third, eventDeduplicator.add(third));
+        assertNull(eventDeduplicator.add(logEvent("ERROR", "ERROR disk full", "2021-03-01T10:15:43.000Z")));
+
+        List<LogEvent> events = eventDeduplicator.drain();
+        assertEquals(2, events.size());
+        assertEquals(2, events.get(0).getCount());
+    }
+
+    private LogEvent logEvent(String searchPattern, String logMatch, String matchTime) {
+        LogEvent logEvent = new LogEvent();
+        logEvent.setLogDisplayName("TestLog");
+        logEvent.setSearchPattern(searchPattern);
+        logEvent.setLogMatch(logMatch);
+        logEvent.setFirstSeen(matchTime);
+        logEvent.setLastSeen(matchTime);
+        return logEvent;
+    }
+}
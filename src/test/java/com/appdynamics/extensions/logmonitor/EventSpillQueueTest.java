@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EventSpillQueueTest {
+    private static final long RETENTION = 60000;
+    private File directory = new File("./target/events-spill-test");
+
+    @Test
+    public void testRecordsAreReadInOrderAcrossSegments() throws Exception {
+        EventSpillQueue queue = EventSpillQueue.forDirectory(directory, 64, 1024, RETENTION);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(queue.append("{\"event\":" + i + "}"));
+        }
+        assertEquals(10, queue.size());
+        assertTrue(segmentFiles().length > 1);
+        assertSame(queue, EventSpillQueue.forDirectory(directory, 64, 1024, RETENTION));
+
+        assertEquals(Arrays.asList("{\"event\":0}", "{\"event\":1}", "{\"event\":2}", "{\"event\":3}"), queue.peek(4));
+        assertEquals("{\"event\":0}", queue.peek(4).get(0));
+        queue.commit();
+        assertEquals(6, queue.size());
+        List<String> records = queue.peek(100);
+        assertEquals(6, records.size());
+        assertEquals("{\"event\":4}", records.get(0));
+        assertEquals("{\"event\":9}", records.get(5));
+        queue.commit();
+        assertEquals(0, queue.size());
+        assertEquals(0, queue.peek(100).size());
+        assertEquals(1, segmentFiles().length);
+        queue.close();
+    }
+
+    @Test
+    public void testRecordsNotCommittedAreReadAgainAfterARestart() throws Exception {
+        EventSpillQueue queue = EventSpillQueue.forDirectory(directory, 64, 1024, RETENTION);
+        for (int i = 0; i < 10; i++) {
+            queue.append("{\"event\":" + i + "}");
+        }
+        queue.peek(3);
+        queue.commit();
+        queue.peek(2);
+        queue.close();
+        assertFalse(queue.append("{\"event\":10}"));
+
+        EventSpillQueue reopened = EventSpillQueue.forDirectory(directory, 64, 1024, RETENTION);
+        assertEquals(7, reopened.size());
+        assertEquals("{\"event\":3}", reopened.peek(1).get(0));
+        reopened.append("{\"event\":10}");
+        List<String> records = reopened.peek(100);
+        assertEquals(8, records.size());
+        assertEquals("{\"event\":10}", records.get(7));
+        reopened.close();
+    }
+
+    @Test
+    public void testOldestSegmentsAreDroppedOnceTheQueueIsFull() throws Exception {
+        EventSpillQueue queue = EventSpillQueue.forDirectory(directory, 64, 128, RETENTION);
+        for (int i = 0; i < 20; i++) {
+            queue.append("{\"event\":" + i + "}");
+        }
+        assertEquals(2, segmentFiles().length);
+        long dropped = queue.getDroppedRecords();
+        assertTrue(dropped > 0);
+        assertEquals(20, dropped + queue.size());
+        assertEquals("{\"event\":19}", queue.peek(100).get((int) queue.size() - 1));
+        assertEquals(0, queue.getDroppedRecords());
+        assertFalse(queue.append(new String(new char[64])));
+        queue.close();
+    }
+
+    @Test
+    public void testSegmentsOlderThanTheRetentionAreDropped() throws Exception {
+        EventSpillQueue queue = EventSpillQueue.forDirectory(directory, 64, 1024, 50);
+        for (int i = 0; i < 6; i++) {
+            queue.append("{\"event\":" + i + "}");
+        }
+        Thread.sleep(100);
+        queue.append("{\"event\":6}");
+        List<String> records = queue.peek(100);
+        assertEquals(Arrays.asList("{\"event\":6}"), records.subList(records.size() - 1, records.size()));
+        assertTrue(records.size() < 7);
+        assertEquals(7, queue.getDroppedRecords() + records.size());
+        queue.close();
+    }
+
+    private File[] segmentFiles() {
+        return directory.listFiles();
+    }
+
+    @After
+    public void deleteDirectory() throws Exception {
+        FileUtils.deleteDirectory(directory);
+    }
+}
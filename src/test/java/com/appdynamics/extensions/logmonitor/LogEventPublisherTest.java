@@ -0,0 +1,306 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor;
+
+import com.appdynamics.extensions.eventsservice.EventsServiceDataManager;
+import com.appdynamics.extensions.logmonitor.util.EventOverflowPolicy;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.appdynamics.extensions.logmonitor.util.Constants.SCHEMA_NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.eq;
+
+public class LogEventPublisherTest {
+    private static final long RETENTION = 60000;
+    private List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+    private List<String> headers = Collections.synchronizedList(new ArrayList<String>());
+    private File spillDirectory = new File("./target/events-spill-publisher-test");
+    private HttpServer eventsService;
+    private EventSpillQueue spillQueue;
+
+    @Test
+    public void testEventsArePublishedInBatchesOfTheBatchSize() throws Exception {
+        CountDownLatch published = new CountDownLatch(3);
+        EventsServiceDataManager eventsServiceDataManager = recordBatches(published, null);
+        LogEventPublisher publisher = new LogEventPublisher(eventsServiceDataManager, 100, 4, 60000,
+                EventOverflowPolicy.BLOCK);
+        for (int i = 0; i < 12; i++) {
+            assertTrue(publisher.publish(logEvent("match " + i)));
+        }
+        assertTrue(published.await(10, TimeUnit.SECONDS));
+        publisher.stop();
+
+        assertEquals(3, batches.size());
+        for (List<String> batch : batches) {
+            assertEquals(4, batch.size());
+        }
+        assertEquals("{\"logDisplayName\":\"TestLog\",\"searchPattern\":\"ERROR\"," +
+                "\"searchPatternDisplayName\":null,\"logMatch\":\"match 0\",\"count\":1," +
+                "\"firstSeen\":\"2021-03-01T10:15:42.000Z\",\"lastSeen\":\"2021-03-01T10:15:42.000Z\"}",
+                batches.get(0).get(0));
+        // the count is updated once publishEvents returns
+        long publishedEvents = 0;
+        for (int i = 0; i < 100 && publishedEvents < 12; i++) {
+            Thread.sleep(10);
+            publishedEvents += publisher.getPublishedEvents();
+        }
+        assertEquals(12, publishedEvents);
+        assertEquals(0, publisher.getPublishedEvents());
+    }
+
+    @Test
+    public void testPartialBatchIsPublishedOnceItIsOldEnough() throws Exception {
+        CountDownLatch published = new CountDownLatch(1);
+        LogEventPublisher publisher = new LogEventPublisher(recordBatches(published, null), 100, 50, 100,
+                EventOverflowPolicy.BLOCK);
+        publisher.publish(logEvent("first"));
+        publisher.publish(logEvent("second"));
+        assertTrue(published.await(10, TimeUnit.SECONDS));
+        publisher.stop();
+
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenTheQueueIsFull() throws Exception {
+        CountDownLatch publishing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LogEventPublisher publisher = new LogEventPublisher(recordBatches(publishing, release), 2, 1, 10,
+                EventOverflowPolicy.DROP);
+        publisher.publish(logEvent("taken by the publisher thread"));
+        assertTrue(publishing.await(10, TimeUnit.SECONDS));
+
+        assertTrue(publisher.publish(logEvent("queued")));
+        assertTrue(publisher.publish(logEvent("queued")));
+        assertEquals(2, publisher.getQueueDepth());
+        assertFalse(publisher.publish(logEvent("dropped")));
+        assertEquals(1, publisher.getDroppedEvents());
+        release.countDown();
+        publisher.stop();
+    }
+
+    @Test
+    public void testBlockingStopsOnceTheQueueStaysFull() throws Exception {
+        CountDownLatch publishing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LogEventPublisher publisher = new LogEventPublisher(recordBatches(publishing, release), 1, 1, 10,
+                EventOverflowPolicy.BLOCK);
+        publisher.publish(logEvent("taken by the publisher thread"));
+        assertTrue(publishing.await(10, TimeUnit.SECONDS));
+        assertTrue(publisher.publish(logEvent("queued")));
+
+        long start = System.currentTimeMillis();
+        assertFalse(publisher.publish(logEvent("dropped after waiting")));
+        assertTrue(System.currentTimeMillis() - start >= 900);
+        start = System.currentTimeMillis();
+        assertFalse(publisher.publish(logEvent("dropped right away")));
+        assertTrue(System.currentTimeMillis() - start < 500);
+        assertEquals(2, publisher.getDroppedEvents());
+        release.countDown();
+        publisher.stop();
+    }
+
+    @Test
+    public void testSpilledEventsArePublishedInOrderUntilTheyAreAccepted() throws Exception {
+        AtomicInteger statusCode = new AtomicInteger(503);
+        CountDownLatch failed = new CountDownLatch(2);
+        spillQueue = EventSpillQueue.forDirectory(spillDirectory, 1024, 1024 * 1024, RETENTION);
+        LogEventPublisher publisher = new LogEventPublisher(null, startEventsService(statusCode, failed), spillQueue,
+                4, 50);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(publisher.publish(logEvent("match " + i)));
+        }
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        statusCode.set(200);
+        awaitPublished(10);
+        publisher.stop();
+
+        List<String> logMatches = new ArrayList<String>();
+        for (List<String> batch : batches) {
+            assertTrue(batch.size() <= 4);
+            logMatches.addAll(batch);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals("match " + i, logMatches.get(i));
+        }
+        assertEquals("/events/publish/LogSchema customer1 secret application/vnd.appd.events+json;v=2",
+                headers.get(0));
+        assertEquals(10, publisher.getPublishedEvents());
+        assertEquals(0, publisher.getQueueDepth());
+        assertTrue(publisher.getDrainRate() > 0);
+    }
+
+    @Test
+    public void testSpilledEventsArePublishedAfterARestart() throws Exception {
+        AtomicInteger statusCode = new AtomicInteger(503);
+        CountDownLatch failed = new CountDownLatch(1);
+        spillQueue = EventSpillQueue.forDirectory(spillDirectory, 1024, 1024 * 1024, RETENTION);
+        LogEventPublisher publisher = new LogEventPublisher(null, startEventsService(statusCode, failed), spillQueue,
+                4, 50);
+        for (int i = 0; i < 6; i++) {
+            publisher.publish(logEvent("match " + i));
+        }
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        publisher.stop();
+        spillQueue.close();
+
+        statusCode.set(200);
+        spillQueue = EventSpillQueue.forDirectory(spillDirectory, 1024, 1024 * 1024, RETENTION);
+        assertEquals(6, spillQueue.size());
+        publisher = new LogEventPublisher(null, eventsServiceClient(), spillQueue, 4, 50);
+        awaitPublished(6);
+        publisher.stop();
+        assertEquals("match 0", batches.get(0).get(0));
+        assertEquals(0, spillQueue.size());
+    }
+
+    @Test
+    public void testRejectedEventsAreKeptInTheSpillQueue() throws Exception {
+        CountDownLatch failed = new CountDownLatch(2);
+        spillQueue = EventSpillQueue.forDirectory(spillDirectory, 1024, 1024 * 1024, RETENTION);
+        LogEventPublisher publisher = new LogEventPublisher(null, startEventsService(new AtomicInteger(400), failed),
+                spillQueue, 4, 50);
+        for (int i = 0; i < 4; i++) {
+            publisher.publish(logEvent("match " + i));
+        }
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        publisher.stop();
+        assertEquals(0, publishedLogMatches());
+        assertEquals(4, spillQueue.size());
+        // the second try was only sent once the first one was counted
+        assertTrue(publisher.getFailedEvents() >= 4);
+    }
+
+    /**
+     * Starts a stand-in for the events service that answers with {@code statusCode}, counting down {@code failed} for
+     * every error it answers and recording the logMatch of the events it accepts.
+     */
+    private EventsServiceClient startEventsService(final AtomicInteger statusCode, final CountDownLatch failed)
+            throws IOException {
+        eventsService = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        eventsService.createContext("/events/publish/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                JsonNode events = new ObjectMapper().readTree(IOUtils.toString(exchange.getRequestBody(),
+                        StandardCharsets.UTF_8));
+                headers.add(exchange.getRequestURI().getPath() + " " +
+                        exchange.getRequestHeaders().getFirst("X-Events-API-AccountName") + " " +
+                        exchange.getRequestHeaders().getFirst("X-Events-API-Key") + " " +
+                        exchange.getRequestHeaders().getFirst("Content-type"));
+                int status = statusCode.get();
+                if (status == 200) {
+                    List<String> batch = new ArrayList<String>();
+                    for (JsonNode event : events) {
+                        batch.add(event.get("logMatch").asText());
+                    }
+                    batches.add(batch);
+                } else {
+                    failed.countDown();
+                }
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            }
+        });
+        eventsService.start();
+        return eventsServiceClient();
+    }
+
+    /**
+     * Creates a client of the stand-in for the events service. A client is closed with the publisher using it.
+     */
+    private EventsServiceClient eventsServiceClient() {
+        return new EventsServiceClient(HttpClients.createDefault(), "http://127.0.0.1:" +
+                eventsService.getAddress().getPort(), "customer1", "secret");
+    }
+
+    /**
+     * The events are removed from the spill queue once the events service has answered.
+     */
+    private void awaitPublished(int events) throws InterruptedException {
+        for (int i = 0; i < 1000 && (publishedLogMatches() < events || spillQueue.size() > 0); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(events, publishedLogMatches());
+    }
+
+    private int publishedLogMatches() {
+        int count = 0;
+        synchronized (batches) {
+            for (List<String> batch : batches) {
+                count += batch.size();
+            }
+        }
+        return count;
+    }
+
+    @After
+    public void stopEventsService() throws Exception {
+        if (eventsService != null) {
+            eventsService.stop(0);
+        }
+        if (spillQueue != null) {
+            spillQueue.close();
+        }
+        FileUtils.deleteDirectory(spillDirectory);
+    }
+
+    /**
+     * Counts down {@code published} for every batch, after waiting for {@code release} if it is not null.
+     */
+    private EventsServiceDataManager recordBatches(final CountDownLatch published, final CountDownLatch release) {
+        EventsServiceDataManager eventsServiceDataManager = Mockito.mock(EventsServiceDataManager.class);
+        Mockito.doAnswer(new Answer<Void>() {
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                batches.add(new ArrayList<String>((List<String>) invocation.getArguments()[1]));
+                published.countDown();
+                if (release != null) {
+                    release.await();
+                }
+                return null;
+            }
+        }).when(eventsServiceDataManager).publishEvents(eq(SCHEMA_NAME), anyList());
+        return eventsServiceDataManager;
+    }
+
+    private LogEvent logEvent(String logMatch) {
+        LogEvent logEvent = new LogEvent();
+        logEvent.setLogDisplayName("TestLog");
+        logEvent.setSearchPattern("ERROR");
+        logEvent.setLogMatch(logMatch);
+        logEvent.setFirstSeen("2021-03-01T10:15:42.000Z");
+        logEvent.setLastSeen("2021-03-01T10:15:42.000Z");
+        return logEvent;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor;
+
+import com.appdynamics.extensions.eventsservice.EventsServiceDataManager;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+
+import static com.appdynamics.extensions.logmonitor.util.Constants.SCHEMA_NAME;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+
+public class LogSchemaRegistryTest {
+    private static final String SCHEMA = "{\"schema\":{\"logDisplayName\":\"string\"}}";
+    private File schemaFile = new File("./target/logSchema-registry-test.json");
+
+    @Before
+    public void writeSchemaFile() throws Exception {
+        FileUtils.writeStringToFile(schemaFile, SCHEMA);
+        LogSchemaRegistry.invalidate();
+    }
+
+    @Test
+    public void testExistingSchemaIsCheckedOnce() {
+        EventsServiceDataManager eventsServiceDataManager = Mockito.mock(EventsServiceDataManager.class);
+        Mockito.when(eventsServiceDataManager.retrieveSchema(SCHEMA_NAME)).thenReturn(SCHEMA);
+        assertTrue(LogSchemaRegistry.ensureLogSchema(eventsServiceDataManager, schemaFile));
+        assertTrue(LogSchemaRegistry.ensureLogSchema(eventsServiceDataManager, schemaFile));
+        assertTrue(LogSchemaRegistry.ensureLogSchema(eventsServiceDataManager, schemaFile));
+        Mockito.verify(eventsServiceDataManager, Mockito.times(1)).retrieveSchema(SCHEMA_NAME);
+        Mockito.verify(eventsServiceDataManager, Mockito.never()).createSchema(anyString(), anyString());
+    }
+
+    @Test
+    public void testMissingSchemaIsCreatedOnce() {
+        EventsServiceDataManager eventsServiceDataManager = Mockito.mock(EventsServiceDataManager.class);
+        assertTrue(LogSchemaRegistry.ensureLogSchema(eventsServiceDataManager, schemaFile));
+        assertTrue(LogSchemaRegistry.ensureLogSchema(eventsServiceDataManager, schemaFile));
+        Mockito.verify(eventsServiceDataManager, Mockito.times(1)).createSchema(SCHEMA_NAME, SCHEMA);
+    }
+
+    @Test
+    public void testFailedCheckIsRetried() {
+        EventsServiceDataManager eventsServiceDataManager = Mockito.mock(EventsServiceDataManager.class);
+        Mockito.when(eventsServiceDataManager.retrieveSchema(SCHEMA_NAME))
+                .thenThrow(new RuntimeException("connection refused")).thenReturn(SCHEMA);
+        assertFalse(LogSchemaRegistry.ensureLogSchema(eventsServiceDataManager, schemaFile));
+        assertTrue(LogSchemaRegistry.ensureLogSchema(eventsServiceDataManager, schemaFile));
+        assertTrue(LogSchemaRegistry.ensureLogSchema(eventsServiceDataManager, schemaFile));
+        Mockito.verify(eventsServiceDataManager, Mockito.times(2)).retrieveSchema(SCHEMA_NAME);
+    }
+
+    @Test
+    public void testSchemaIsCheckedAgainAfterAChange() {
+        EventsServiceDataManager eventsServiceDataManager = Mockito.mock(EventsServiceDataManager.class);
+        Mockito.when(eventsServiceDataManager.retrieveSchema(SCHEMA_NAME)).thenReturn(SCHEMA);
+        assertTrue(LogSchemaRegistry.ensureLogSchema(eventsServiceDataManager, schemaFile));
+        LogSchemaRegistry.invalidate();
+        assertTrue(LogSchemaRegistry.ensureLogSchema(eventsServiceDataManager, schemaFile));
+        schemaFile.setLastModified(schemaFile.lastModified() - 60000);
+        assertTrue(LogSchemaRegistry.ensureLogSchema(eventsServiceDataManager, schemaFile));
+        Mockito.verify(eventsServiceDataManager, Mockito.times(3)).retrieveSchema(SCHEMA_NAME);
+
+        EventsServiceDataManager reloaded = Mockito.mock(EventsServiceDataManager.class);
+        Mockito.when(reloaded.retrieveSchema(SCHEMA_NAME)).thenReturn(SCHEMA);
+        assertTrue(LogSchemaRegistry.ensureLogSchema(reloaded, schemaFile));
+        Mockito.verify(reloaded, Mockito.times(1)).retrieveSchema(SCHEMA_NAME);
+    }
+
+    @Test
+    public void testFieldsMissingFromAnExistingSchemaAreAdded() throws Exception {
+        FileUtils.writeStringToFile(schemaFile, "{\"schema\":{\"logDisplayName\":\"string\",\"count\":\"integer\"," +
+                "\"lastSeen\":\"date\"}}");
+        EventsServiceDataManager eventsServiceDataManager = Mockito.mock(EventsServiceDataManager.class);
+        Mockito.when(eventsServiceDataManager.retrieveSchema(SCHEMA_NAME)).thenReturn(SCHEMA);
+        assertTrue(LogSchemaRegistry.ensureLogSchema(eventsServiceDataManager, schemaFile));
+        Mockito.verify(eventsServiceDataManager).updateSchema(SCHEMA_NAME,
+                "[{\"add\":{\"count\":\"integer\",\"lastSeen\":\"date\"}}]");
+        Mockito.verify(eventsServiceDataManager, Mockito.never()).createSchema(anyString(), anyString());
+    }
+
+    @After
+    public void deleteSchemaFile() {
+        schemaFile.delete();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.matchers;
+
+import com.google.common.base.Strings;
+import org.junit.Test;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BudgetedCharSequenceTest {
+    private static final Pattern CATASTROPHIC = Pattern.compile("(.*a){12}b");
+    private static final String PATHOLOGICAL_LINE = Strings.repeat("a", 30) + "c";
+
+    @Test
+    public void testCatastrophicBacktrackingIsAbortedByTheStepBudget() {
+        BudgetedCharSequence line = new BudgetedCharSequence(null, 100000);
+        try {
+            CATASTROPHIC.matcher(line.reset(PATHOLOGICAL_LINE)).find();
+            fail("Expected the step budget to be exceeded");
+        } catch (RegexBudgetExceededException expected) {
+        }
+    }
+
+    @Test
+    public void testCatastrophicBacktrackingIsAbortedByTheTimeBudget() {
+        BudgetedCharSequence line = new BudgetedCharSequence(50, null);
+        long start = System.currentTimeMillis();
+        try {
+            CATASTROPHIC.matcher(line.reset(PATHOLOGICAL_LINE)).find();
+            fail("Expected the time budget to be exceeded");
+        } catch (RegexBudgetExceededException expected) {
+        }
+        assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+
+    @Test
+    public void testBudgetIsResetForEveryLine() {
+        BudgetedCharSequence line = new BudgetedCharSequence(1000, 200);
+        for (int i = 0; i < 10; i++) {
+            Matcher matcher = Pattern.compile("timeout=(\\d+)").matcher(line.reset("ERROR timeout=" + i + " ms"));
+            assertTrue(matcher.find());
+            assertEquals(String.valueOf(i), matcher.group(1));
+        }
+    }
+}
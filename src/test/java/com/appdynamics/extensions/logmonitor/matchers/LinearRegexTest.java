@@ -0,0 +1,125 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.matchers;
+
+import com.appdynamics.extensions.logmonitor.config.SearchPattern;
+import com.appdynamics.extensions.logmonitor.config.SearchString;
+import com.appdynamics.extensions.logmonitor.util.LogMonitorUtil;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LinearRegexTest {
+
+    @Test
+    public void testMatchesAreTheSameAsTheJavaRegexMatches() {
+        String[] patterns = {
+                ".*ERROR.*timeout=\\d+", "(\\s|^)m\\w+(\\s|$)", "a*", "a*?b", "(a|ab)(c|bcd)", "x?abc*[de]",
+                "[^\\s,]+", "\\[JMX.*?\\]", "\\bcaf\\w*", "colou?r{1,2}", "(?:ab){2,}", "(?<level>WARN|ERROR):",
+                "[a-c-e]+", "\\Qa.b\\E+", "\\x41|\\u00e9|\\0101", "$", "^$", "\\d{2}:\\d{2}:\\d{2}", "[\\W_]+",
+                "\\Bar\\B", ".", "(a|b)*c|d"};
+        String[] lines = {
+                "2021-03-01 10:15:42 ERROR [JMX] timeout=30 ERROR again timeout=7",
+                "my mother made macaroni\r\n",
+                "aaab ab abcd acbcd caf\u00e9 Caf\u00c9 CAF\u00e9\u2028",
+                "Color colour colourr COLOR a.b.b a.bb ABABAB abab_",
+                "WARN: x ERROR: y error: z A\u00e9 \u00c9a\u0085",
+                "",
+                "\n",
+                "c-e-a ab--cd ,,, _ _x_ bar barb abarb dcc"};
+        for (String pattern : patterns) {
+            for (boolean caseSensitive : new boolean[]{true, false}) {
+                PatternMatcher linear = LinearRegex.compile(pattern, caseSensitive).newMatcher();
+                Pattern java = Pattern.compile((caseSensitive ? "(?-i)" : "(?i)") + pattern);
+                for (String line : lines) {
+                    assertSameMatches(pattern, java.matcher(line), linear.reset(line));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNestedQuantifiersRunInLinearTime() {
+        PatternMatcher matcher = LinearRegex.compile("(a+)+b", true).newMatcher();
+        String line = Strings.repeat("a", 100000);
+        long start = System.currentTimeMillis();
+        assertFalse(matcher.reset(line).find());
+        assertTrue(matcher.reset(line + "b").find());
+        assertEquals(0, matcher.start());
+        assertEquals(line.length() + 1, matcher.end());
+        assertTrue(System.currentTimeMillis() - start < 10000);
+    }
+
+    @Test
+    public void testUnsupportedConstructsAreRejected() {
+        String[] patterns = {"(a)\\1", "(?=a)b", "(?<!a)b", "a++", "(?i)a", "\\p{Lu}", "[a-z&&[^e]]", "[a[b]]",
+                "a{2000}{2000}"};
+        for (String pattern : patterns) {
+            try {
+                LinearRegex.compile(pattern, true);
+                fail("Expected " + pattern + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testMalformedPatternsAreRejected() {
+        String[] patterns = {"a{", "a{2", "a{x}", "a{3,2}", "\\u12", "\\uzzzz", "\\c", "\\x4", "\\x{41", "\\x{zz}",
+                "(?<name", "[\\", "\\"};
+        for (String pattern : patterns) {
+            try {
+                LinearRegex.compile(pattern, true);
+                fail("Expected " + pattern + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testEngineIsSelectedPerSearchString() {
+        SearchString linear = searchString("conn\\w*", "linear");
+        SearchString unsupported = searchString("(a)\\1", "linear");
+        SearchString java = searchString("conn\\w*", null);
+        List<SearchPattern> searchPatterns = LogMonitorUtil.createPattern(Lists.newArrayList(linear, unsupported, java));
+
+        assertTrue(searchPatterns.get(0).getMatcherFactory() instanceof LinearRegex);
+        assertTrue(searchPatterns.get(1).getMatcherFactory() instanceof JavaRegex);
+        assertTrue(searchPatterns.get(2).getMatcherFactory() instanceof JavaRegex);
+    }
+
+    private void assertSameMatches(String pattern, Matcher expected, PatternMatcher actual) {
+        while (expected.find()) {
+            assertTrue(pattern, actual.find());
+            assertEquals(pattern, expected.start(), actual.start());
+            assertEquals(pattern, expected.end(), actual.end());
+        }
+        assertFalse(pattern, actual.find());
+    }
+
+    private SearchString searchString(String pattern, String regexEngine) {
+        SearchString searchString = new SearchString();
+        searchString.setDisplayName(pattern);
+        searchString.setPattern(pattern);
+        searchString.setCaseSensitive(false);
+        searchString.setMatchExactString(false);
+        searchString.setPrintMatchedString(false);
+        searchString.setRegexEngine(regexEngine);
+        return searchString;
+    }
+}
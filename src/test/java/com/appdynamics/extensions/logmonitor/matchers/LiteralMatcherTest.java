@@ -0,0 +1,110 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.matchers;
+
+import com.appdynamics.extensions.logmonitor.config.SearchPattern;
+import com.appdynamics.extensions.logmonitor.config.SearchString;
+import com.appdynamics.extensions.logmonitor.util.LogMonitorUtil;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.regex.Matcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LiteralMatcherTest {
+
+    @Test
+    public void testMatchesAreTheSameAsTheRegexMatches() {
+        List<SearchPattern> searchPatterns = LogMonitorUtil.createPattern(Lists.newArrayList(
+                searchString("aa", false, false),
+                searchString("Error", true, false),
+                searchString("error", false, true),
+                searchString("a a", false, true),
+                searchString("caf\u00e9", false, false),
+                searchString("Connection refused", false, false),
+                searchString("timeout=\\d+", false, false)));
+        assertNull(searchPatterns.get(6).getLiteral());
+
+        LiteralMatcher literalMatcher = new LiteralMatcher(searchPatterns);
+        String[] lines = {
+                "aaaaa ERROR error Error errors",
+                "a a a a",
+                "\tERROR\u000Berror ",
+                "error\u0085x CAF\u00e9 Caf\u00c9 caf\u00e9",
+                "connection REFUSED, Connection refused timeout=30",
+                ""
+        };
+        for (String line : lines) {
+            literalMatcher.match(line);
+            for (int i = 0; i < searchPatterns.size(); i++) {
+                if (searchPatterns.get(i).getLiteral() == null) {
+                    continue;
+                }
+                Matcher matcher = searchPatterns.get(i).getPattern().matcher(line);
+                int match = 0;
+                while (matcher.find()) {
+                    assertEquals(matcher.start(), literalMatcher.getMatchStart(i, match));
+                    assertEquals(matcher.end(), literalMatcher.getMatchEnd(i, match));
+                    match++;
+                }
+                assertEquals(match, literalMatcher.getMatchCount(i));
+            }
+        }
+    }
+
+    @Test
+    public void testOverlappingLiteralsAreAllFound() {
+        List<SearchPattern> searchPatterns = LogMonitorUtil.createPattern(Lists.newArrayList(
+                searchString("he", false, false),
+                searchString("she", false, false),
+                searchString("hers", false, false)));
+        LiteralMatcher literalMatcher = new LiteralMatcher(searchPatterns);
+
+        literalMatcher.match("ushers");
+
+        assertEquals(1, literalMatcher.getMatchCount(0));
+        assertEquals(2, literalMatcher.getMatchStart(0, 0));
+        assertEquals(1, literalMatcher.getMatchCount(1));
+        assertEquals(1, literalMatcher.getMatchStart(1, 0));
+        assertEquals(1, literalMatcher.getMatchCount(2));
+        assertEquals(2, literalMatcher.getMatchStart(2, 0));
+    }
+
+    @Test
+    public void testMatchersSharingTheAutomatonKeepTheirOwnMatches() {
+        List<SearchPattern> searchPatterns = LogMonitorUtil.createPattern(Lists.newArrayList(
+                searchString("error", false, false),
+                searchString("timeout=\\d+", false, false)));
+        LiteralMatcher automaton = new LiteralMatcher(searchPatterns);
+        LiteralMatcher first = automaton.newMatcher();
+        LiteralMatcher second = automaton.newMatcher();
+
+        first.match("error error");
+        second.match("an ERROR");
+
+        assertEquals(2, first.getMatchCount(0));
+        assertEquals(6, first.getMatchStart(0, 1));
+        assertEquals(1, second.getMatchCount(0));
+        assertEquals(3, second.getMatchStart(0, 0));
+        assertEquals(0, second.getMatchCount(1));
+    }
+
+    private SearchString searchString(String pattern, boolean caseSensitive, boolean matchExactString) {
+        SearchString searchString = new SearchString();
+        searchString.setDisplayName(pattern);
+        searchString.setPattern(pattern);
+        searchString.setCaseSensitive(caseSensitive);
+        searchString.setMatchExactString(matchExactString);
+        searchString.setPrintMatchedString(false);
+        return searchString;
+    }
+}
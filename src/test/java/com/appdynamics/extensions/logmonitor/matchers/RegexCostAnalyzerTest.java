@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.matchers;
+
+import com.appdynamics.extensions.logmonitor.config.Log;
+import com.appdynamics.extensions.logmonitor.util.LogMonitorUtil;
+import com.appdynamics.extensions.logmonitor.util.RegexCost;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class RegexCostAnalyzerTest {
+
+    @Test
+    public void testCostClassesAreEstimated() {
+        assertCost(RegexCost.HIGH, "(a+)+b");
+        assertCost(RegexCost.HIGH, "(\\w+\\s?)+$");
+        assertCost(RegexCost.HIGH, "(a|ab)*c");
+        assertCost(RegexCost.HIGH, "request (\\w+/?)+ took \\d{4,}ms");
+        assertCost(RegexCost.MEDIUM, ".*ERROR");
+        assertCost(RegexCost.MEDIUM, "ERROR|ERRORS");
+        assertCost(RegexCost.MEDIUM, "timeout|timed out");
+        assertCost(RegexCost.MEDIUM, "E|EXCEPTION");
+        assertCost(RegexCost.MEDIUM, "(?<=x)y");
+        assertCost(RegexCost.LOW, "ERROR \\d+");
+        assertCost(RegexCost.LOW, "ERROR|EXCEPTION");
+        assertCost(RegexCost.LOW, "E\\d+|EXCEPTION");
+        assertCost(RegexCost.LOW, "^.*ERROR");
+        assertCost(RegexCost.LOW, "(\\s|^)m\\w+(\\s|$)");
+        assertCost(RegexCost.LOW, "\\[JMX.*?\\]|(a+)");
+    }
+
+    @Test
+    public void testSearchStringsAboveTheMaxCostAreDropped() {
+        Map<String, Object> log = Maps.newHashMap();
+        log.put("displayName", "Test Log");
+        log.put("logDirectory", "/tmp");
+        log.put("logName", "test.log");
+        log.put("searchStrings", Lists.newArrayList(searchString("(a+)+b"), searchString(".*ERROR"),
+                searchString("(a|b)")));
+        List<Map<String, ?>> logs = Lists.<Map<String, ?>>newArrayList(log);
+
+        assertEquals(3, LogMonitorUtil.getValidLogsFromConfig(logs, "prefix", null, null).get(0)
+                .getSearchStrings().size());
+        Log mediumAllowed = LogMonitorUtil.getValidLogsFromConfig(logs, "prefix", null, "medium").get(0);
+        assertEquals(2, mediumAllowed.getSearchStrings().size());
+        assertEquals(".*ERROR", mediumAllowed.getSearchStrings().get(0).getPattern());
+        // run by the linear engine, which does not backtrack
+        assertEquals(3, LogMonitorUtil.getValidLogsFromConfig(logs, "prefix", "linear", "medium").get(0)
+                .getSearchStrings().size());
+    }
+
+    @Test
+    public void testInvalidSearchStringsAreDroppedWithoutTheLog() {
+        Map<String, Object> log = Maps.newHashMap();
+        log.put("displayName", "Test Log");
+        log.put("logDirectory", "/tmp");
+        log.put("logName", "test.log");
+        log.put("searchStrings", Lists.newArrayList(searchString("a{"), searchString("\\u12"),
+                searchString("ERROR \\d+")));
+        Map<String, Object> otherLog = Maps.newHashMap(log);
+        otherLog.put("displayName", "Other Log");
+        otherLog.put("searchStrings", Lists.newArrayList(searchString("\\x4")));
+        List<Map<String, ?>> logs = Lists.<Map<String, ?>>newArrayList(log, otherLog);
+
+        for (String regexEngine : new String[]{null, "linear"}) {
+            List<Log> validLogs = LogMonitorUtil.getValidLogsFromConfig(logs, "prefix", regexEngine, null);
+            assertEquals(1, validLogs.size());
+            assertEquals(1, validLogs.get(0).getSearchStrings().size());
+            assertEquals("ERROR \\d+", validLogs.get(0).getSearchStrings().get(0).getPattern());
+        }
+    }
+
+    private void assertCost(RegexCost expected, String regex) {
+        assertEquals(regex, expected, RegexCostAnalyzer.analyze(regex, false).getCost());
+    }
+
+    private Map<String, Object> searchString(String pattern) {
+        Map<String, Object> searchString = Maps.newHashMap();
+        searchString.put("displayName", pattern);
+        searchString.put("pattern", pattern);
+        searchString.put("matchExactString", false);
+        searchString.put("caseSensitive", false);
+        searchString.put("printMatchedString", false);
+        return searchString;
+    }
+}
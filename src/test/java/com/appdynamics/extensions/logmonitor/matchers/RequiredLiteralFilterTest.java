@@ -0,0 +1,52 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.matchers;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RequiredLiteralFilterTest {
+
+    @Test
+    public void testLongestRequiredLiteralIsExtracted() {
+        assertEquals(Lists.newArrayList("timeout="),
+                RequiredLiteralFilter.forPattern(".*ERROR.*timeout=\\d+", true).getLiterals());
+        assertEquals(Lists.newArrayList("[jmx"),
+                RequiredLiteralFilter.forPattern("\\[JMX.*\\]", false).getLiterals());
+        assertEquals(Lists.newArrayList("conn", "refused"),
+                RequiredLiteralFilter.forPattern("conn\\w*|(time)?refused", true).getLiterals());
+        assertEquals(Lists.newArrayList("ab"),
+                RequiredLiteralFilter.forPattern("x?abc*[de]", true).getLiterals());
+        assertEquals(Lists.newArrayList("m"),
+                RequiredLiteralFilter.forPattern("(\\s|^)m\\w+(\\s|$)", false).getLiterals());
+    }
+
+    @Test
+    public void testPatternsWithoutRequiredLiteralAreNotFiltered() {
+        assertNull(RequiredLiteralFilter.forPattern("<\\w*>|\\d+", false));
+        assertNull(RequiredLiteralFilter.forPattern("(?x) a b", false));
+        assertNull(RequiredLiteralFilter.forPattern("\\p{Lu}+", true));
+    }
+
+    @Test
+    public void testLinesAreCheckedForTheLiteral() {
+        RequiredLiteralFilter caseInsensitive = RequiredLiteralFilter.forPattern("Connection.*refused", false);
+        assertTrue(caseInsensitive.mightMatch("java.net.ConnectException: CONNECTION refused"));
+        assertFalse(caseInsensitive.mightMatch("Connected to host"));
+
+        RequiredLiteralFilter caseSensitive = RequiredLiteralFilter.forPattern("ERROR \\d+", true);
+        assertTrue(caseSensitive.mightMatch("2021-03-01 ERROR 500"));
+        assertFalse(caseSensitive.mightMatch("2021-03-01 error 500"));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+import com.appdynamics.extensions.logmonitor.LogEvent;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkEventBufferTest {
+
+    @Test
+    public void testEventsAreHandedOverInChunkOrder() {
+        LogMetrics logMetrics = new LogMetrics();
+        Semaphore permits = new Semaphore(10);
+        LogMetrics first = chunkMetrics(logMetrics, permits);
+        ChunkEventBuffer secondBuffer = new ChunkEventBuffer(logMetrics, permits);
+        LogMetrics second = new LogMetrics();
+        second.setChunkEventBuffer(secondBuffer);
+
+        assertTrue(second.addLogEvent(logEvent("second 0")));
+        assertTrue(first.addLogEvent(logEvent("first 0")));
+        assertTrue(second.addLogEvent(logEvent("second 1")));
+        assertEquals(Arrays.asList("first 0"), logMatches(logMetrics));
+        assertEquals(8, permits.availablePermits());
+
+        assertTrue(first.addLogEvent(logEvent("first 1")));
+        assertEquals(0, secondBuffer.moveToHead());
+        assertTrue(second.addLogEvent(logEvent("second 2")));
+        assertEquals(Arrays.asList("first 0", "first 1", "second 0", "second 1", "second 2"), logMatches(logMetrics));
+        assertEquals(10, permits.availablePermits());
+    }
+
+    @Test
+    public void testEventsBeyondThePermitsAreDropped() {
+        LogMetrics logMetrics = new LogMetrics();
+        Semaphore permits = new Semaphore(2);
+        LogMetrics second = new LogMetrics();
+        ChunkEventBuffer secondBuffer = new ChunkEventBuffer(logMetrics, permits);
+        second.setChunkEventBuffer(secondBuffer);
+        LogMetrics third = new LogMetrics();
+        third.setChunkEventBuffer(new ChunkEventBuffer(logMetrics, permits));
+
+        assertTrue(second.addLogEvent(logEvent("second 0")));
+        assertTrue(third.addLogEvent(logEvent("third 0")));
+        assertFalse(second.addLogEvent(logEvent("second 1")));
+
+        secondBuffer.moveToHead();
+        assertTrue(second.addLogEvent(logEvent("second 2")));
+        assertTrue(third.addLogEvent(logEvent("third 1")));
+        assertEquals(Arrays.asList("second 0", "second 2"), logMatches(logMetrics));
+    }
+
+    private LogMetrics chunkMetrics(LogMetrics logMetrics, Semaphore permits) {
+        ChunkEventBuffer eventBuffer = new ChunkEventBuffer(logMetrics, permits);
+        eventBuffer.moveToHead();
+        LogMetrics chunkMetrics = new LogMetrics();
+        chunkMetrics.setChunkEventBuffer(eventBuffer);
+        return chunkMetrics;
+    }
+
+    private List<String> logMatches(LogMetrics logMetrics) {
+        List<String> logMatches = new ArrayList<String>();
+        for (LogEvent logEvent : logMetrics.getEventsToBePublished()) {
+            logMatches.add(logEvent.getLogMatch());
+        }
+        return logMatches;
+    }
+
+    private LogEvent logEvent(String logMatch) {
+        LogEvent logEvent = new LogEvent();
+        logEvent.setLogMatch(logMatch);
+        return logEvent;
+    }
+}
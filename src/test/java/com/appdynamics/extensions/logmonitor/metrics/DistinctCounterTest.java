@@ -0,0 +1,65 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DistinctCounterTest {
+
+    @Test
+    public void testSmallCountsAreExact() {
+        DistinctCounter distinctCounter = new DistinctCounter("path");
+        for (int i = 0; i < 1000; i++) {
+            offer(distinctCounter, "session-" + (i % 20), true);
+        }
+        assertEquals(20, distinctCounter.estimate());
+    }
+
+    @Test
+    public void testLargeCountsAreEstimatedInFixedMemory() {
+        DistinctCounter distinctCounter = new DistinctCounter("path");
+        for (int i = 0; i < 200000; i++) {
+            offer(distinctCounter, "10.0." + (i / 256) + "." + (i % 256), true);
+        }
+        assertTrue(Math.abs(distinctCounter.estimate() - 200000) < 200000 * 0.05);
+    }
+
+    @Test
+    public void testMatchesAreTrimmedAndCaseIsIgnoredUnlessCaseSensitive() {
+        DistinctCounter caseInsensitive = new DistinctCounter("path");
+        DistinctCounter caseSensitive = new DistinctCounter("path");
+        String line = "user=Alice  user=ALICE user=alice ";
+        for (int start : new int[]{5, 17, 28}) {
+            caseInsensitive.offer(line, start, start + 6, false);
+            caseSensitive.offer(line, start, start + 6, true);
+        }
+        assertEquals(1, caseInsensitive.estimate());
+        assertEquals(3, caseSensitive.estimate());
+    }
+
+    @Test
+    public void testMergedCountersCountTheUnion() {
+        LogMetrics first = new LogMetrics();
+        LogMetrics second = new LogMetrics();
+        for (int i = 0; i < 300; i++) {
+            offer(first.getDistinctCounter("Distinct Matches", "path"), "host-" + i, true);
+            offer(second.getDistinctCounter("Distinct Matches", "path"), "host-" + (i + 200), true);
+        }
+        first.merge(second);
+        long estimate = Long.parseLong(first.getMetrics().get("Distinct Matches").getMetricValue());
+        assertTrue(Math.abs(estimate - 500) <= 10);
+    }
+
+    private void offer(DistinctCounter distinctCounter, String value, boolean caseSensitive) {
+        distinctCounter.offer(value, 0, value.length(), caseSensitive);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+import com.appdynamics.extensions.metrics.Metric;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class EventTimeCounterTest {
+    private static final long START = 1614593700000L;
+
+    @Test
+    public void testRateOfAMinuteOfLines() {
+        EventTimeCounter counter = new EventTimeCounter("path");
+        for (int second = 0; second < 60; second += 2) {
+            counter.increment(START + 30000 + second * 1000L);
+        }
+        assertEquals(30, counter.getOccurrencesPerMinute());
+    }
+
+    @Test
+    public void testBacklogIsReportedAtTheRateOfItsLastHour() {
+        EventTimeCounter counter = new EventTimeCounter("path");
+        // three hours of backlog with 10 matches a minute
+        for (int minute = 0; minute < 180; minute++) {
+            for (int match = 0; match < 10; match++) {
+                counter.increment(START + minute * 60000L + match * 6000L);
+            }
+        }
+        assertEquals(10, counter.getOccurrencesPerMinute());
+    }
+
+    @Test
+    public void testMergedChunksAndIngestLag() {
+        LogMetrics first = new LogMetrics();
+        LogMetrics second = new LogMetrics();
+        for (int second2 = 0; second2 < 60; second2++) {
+            first.getEventTimeCounter("Occurrences Per Minute", "path").increment(START + second2 * 500L);
+            second.getEventTimeCounter("Occurrences Per Minute", "path").increment(START + 30000 + second2 * 500L);
+        }
+        first.getIngestLag("Ingest Lag (Seconds)", "lagPath").update(START + 59000);
+        second.getIngestLag("Ingest Lag (Seconds)", "lagPath").update(System.currentTimeMillis() - 90000);
+        first.merge(second);
+
+        Map<String, Metric> metrics = first.getMetrics();
+        assertEquals("120", metrics.get("Occurrences Per Minute").getMetricValue());
+        long lag = Long.parseLong(metrics.get("Ingest Lag (Seconds)").getMetricValue());
+        assertEquals(90, lag, 5);
+    }
+
+    @Test
+    public void testIngestLagIsOnlyReportedOnceATimestampIsRead() {
+        LogMetrics logMetrics = new LogMetrics();
+        logMetrics.getIngestLag("Ingest Lag (Seconds)", "lagPath");
+        assertFalse(logMetrics.getMetrics().containsKey("Ingest Lag (Seconds)"));
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+import com.appdynamics.extensions.metrics.Metric;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LogMetricsTest {
+
+    @Test
+    public void testCountsFromSeveralThreadsAreNotLost() throws Exception {
+        final LogMetrics logMetrics = new LogMetrics();
+        final Counter occurrences = logMetrics.getCounter("Test Log|Search String|Error|Occurrences", "path");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        occurrences.increment();
+                        logMetrics.add("Test Log|Search String|Error|Matches|Error", "matchesPath");
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        Map<String, Metric> metrics = logMetrics.getMetrics();
+        assertEquals("40000", metrics.get("Test Log|Search String|Error|Occurrences").getMetricValue());
+        assertEquals("path", metrics.get("Test Log|Search String|Error|Occurrences").getMetricPath());
+        assertEquals("40000", metrics.get("Test Log|Search String|Error|Matches|Error").getMetricValue());
+    }
+
+    @Test
+    public void testCountersAreRegisteredOnce() {
+        LogMetrics logMetrics = new LogMetrics();
+        Counter counter = logMetrics.getCounter("Occurrences", "path");
+        counter.increment();
+        assertSame(counter, logMetrics.getCounter("Occurrences", "path"));
+        assertEquals("1", logMetrics.getMetrics().get("Occurrences").getMetricValue());
+    }
+
+    @Test
+    public void testMergeAddsCountsAndReplacesOtherMetrics() {
+        LogMetrics first = new LogMetrics();
+        first.getCounter("Occurrences", "path").add(3);
+        first.add("File size (Bytes)", new Metric("File size (Bytes)", "100", "sizePath"));
+        LogMetrics second = new LogMetrics();
+        second.getCounter("Occurrences", "path").add(4);
+        second.getCounter("Regex Timeouts", "timeoutsPath");
+        second.add("File size (Bytes)", new Metric("File size (Bytes)", "200", "sizePath"));
+
+        first.merge(second);
+        Map<String, Metric> metrics = first.getMetrics();
+        assertEquals("7", metrics.get("Occurrences").getMetricValue());
+        assertEquals("0", metrics.get("Regex Timeouts").getMetricValue());
+        assertEquals("200", metrics.get("File size (Bytes)").getMetricValue());
+    }
+}
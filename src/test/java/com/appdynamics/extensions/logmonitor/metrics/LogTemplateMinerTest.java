@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+import com.appdynamics.extensions.logmonitor.metrics.LogTemplateMiner.LogTemplate;
+import com.appdynamics.extensions.metrics.Metric;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class LogTemplateMinerTest {
+    private static final String KEY = "Test Log|Search String|Errors|";
+
+    @Test
+    public void testLinesDifferingInVariablesShareATemplate() {
+        LogTemplateMiner miner = new LogTemplateMiner(KEY, 10);
+        LogTemplate timeout = miner.add("ERROR Connection to db-1:5432 timed out after 3000 ms");
+        assertEquals("ERROR Connection to <*> timed out after <*> ms", timeout.getText());
+        assertSame(timeout, miner.add("ERROR Connection to db-2:5432 timed out after 2500 ms"));
+
+        LogTemplate userNotFound = miner.add("ERROR User alice not found");
+        assertNotSame(timeout, userNotFound);
+        assertSame(userNotFound, miner.add("ERROR User bob not found"));
+        assertEquals("ERROR User <*> not found", userNotFound.getText());
+        assertSame(userNotFound, miner.add("ERROR User carol not found"));
+
+        assertNotSame(userNotFound, miner.add("ERROR Disk /var is full"));
+        assertEquals(3, miner.getTemplateCount());
+        assertEquals(1, timeout.getId());
+        assertEquals(2, userNotFound.getId());
+    }
+
+    @Test
+    public void testTemplatesAreBounded() {
+        LogTemplateMiner miner = new LogTemplateMiner(KEY, 2);
+        LogTemplate diskFull = miner.add("ERROR disk full");
+        miner.add("ERROR out of memory");
+        assertNull(miner.add("WARN cache evicted"));
+        assertNull(miner.add("   "));
+        assertSame(diskFull, miner.add("ERROR disk full"));
+        assertEquals(2, miner.getTemplateCount());
+    }
+
+    @Test
+    public void testCountsAreReportedByTemplateId() {
+        LogTemplateMiner miner = new LogTemplateMiner(KEY, 1);
+        LogMetrics logMetrics = new LogMetrics();
+        logMetrics.getTemplateCounts(KEY).increment(miner.add("ERROR User alice not found"));
+        LogMetrics chunkMetrics = new LogMetrics();
+        LogTemplate userNotFound = miner.add("ERROR User bob not found");
+        assertEquals("ERROR User <*> not found", userNotFound.getText());
+        chunkMetrics.getTemplateCounts(KEY).increment(userNotFound);
+        chunkMetrics.getTemplateCounts(KEY).increment(miner.add("ERROR disk full"));
+        logMetrics.merge(chunkMetrics);
+
+        Map<String, Metric> metrics = logMetrics.getMetrics();
+        assertEquals(2, metrics.size());
+        assertEquals("2", metrics.get(KEY + "Templates|Template 1").getMetricValue());
+        assertEquals("1", metrics.get(KEY + "Templates|Other").getMetricValue());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+import com.appdynamics.extensions.metrics.Metric;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TopMatchedStringsTest {
+    private static final String KEY = "Test Log|Search String|Users|";
+
+    @Test
+    public void testCountsAreExactWhileTheStringsFit() {
+        LogMetrics logMetrics = new LogMetrics();
+        TopMatchedStrings matchedStrings = logMetrics.getTopMatchedStrings(KEY, 3);
+        offer(matchedStrings, "alice", 5);
+        offer(matchedStrings, "bob", 2);
+        offer(matchedStrings, "carol", 1);
+
+        Map<String, Metric> metrics = logMetrics.getMetrics();
+        assertEquals(3, metrics.size());
+        assertEquals("5", metrics.get(KEY + "Matches|alice").getMetricValue());
+        assertEquals("2", metrics.get(KEY + "Matches|bob").getMetricValue());
+        assertEquals("1", metrics.get(KEY + "Matches|carol").getMetricValue());
+        assertFalse(metrics.containsKey(KEY + "Matches|Other"));
+    }
+
+    @Test
+    public void testOnlyTheHeaviestHittersAreReported() {
+        LogMetrics logMetrics = new LogMetrics();
+        TopMatchedStrings matchedStrings = logMetrics.getTopMatchedStrings(KEY, 20);
+        for (int i = 0; i < 10000; i++) {
+            matchedStrings.offer("user-" + i);
+            if (i % 4 == 0) {
+                matchedStrings.offer("admin");
+            }
+            if (i % 10 == 0) {
+                matchedStrings.offer("guest");
+            }
+        }
+
+        Map<String, Metric> metrics = logMetrics.getMetrics();
+        assertTrue(metrics.size() <= 21);
+        long admin = Long.parseLong(metrics.get(KEY + "Matches|admin").getMetricValue());
+        long guest = Long.parseLong(metrics.get(KEY + "Matches|guest").getMetricValue());
+        // strings matched more than 1/20th of the time are kept, with a count off by at most 1/20th of the matches
+        assertTrue(admin >= 2500 - 13500 / 20 && admin <= 2500);
+        assertTrue(guest >= 1000 - 13500 / 20 && guest <= 1000);
+        long total = 0;
+        for (Metric metric : metrics.values()) {
+            total += Long.parseLong(metric.getMetricValue());
+        }
+        assertEquals(13500, total);
+        assertTrue(metrics.containsKey(KEY + "Matches|Other"));
+    }
+
+    @Test
+    public void testMergedChunksKeepTheHeavyHitters() {
+        LogMetrics first = new LogMetrics();
+        LogMetrics second = new LogMetrics();
+        offer(first.getTopMatchedStrings(KEY, 2), "alice", 50);
+        offer(first.getTopMatchedStrings(KEY, 2), "bob", 1);
+        offer(second.getTopMatchedStrings(KEY, 2), "alice", 30);
+        offer(second.getTopMatchedStrings(KEY, 2), "carol", 1);
+
+        first.merge(second);
+        Map<String, Metric> metrics = first.getMetrics();
+        assertEquals("80", metrics.get(KEY + "Matches|alice").getMetricValue());
+        assertEquals("1", metrics.get(KEY + "Matches|Other").getMetricValue());
+    }
+
+    private void offer(TopMatchedStrings matchedStrings, String matchedString, int times) {
+        for (int i = 0; i < times; i++) {
+            matchedStrings.offer(matchedString);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.metrics;
+
+import com.appdynamics.extensions.metrics.Metric;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ValueHistogramTest {
+    private static final String KEY = "Test Log|Search String|Slow Requests|took|";
+
+    @Test
+    public void testPercentilesAreWithinThePrecision() {
+        ValueHistogram histogram = new ValueHistogram(KEY, "prefix");
+        for (int i = 1; i <= 100000; i++) {
+            histogram.record(i);
+        }
+        assertClose(50000, histogram.getValueAtPercentile(50));
+        assertClose(95000, histogram.getValueAtPercentile(95));
+        assertClose(99000, histogram.getValueAtPercentile(99));
+        assertEquals(100000, histogram.getValueAtPercentile(100), 0);
+    }
+
+    @Test
+    public void testFractionsZeroesAndInvalidValues() {
+        ValueHistogram histogram = new ValueHistogram(KEY, "prefix");
+        assertTrue(histogram.record(0));
+        assertTrue(histogram.record(0.25));
+        assertTrue(histogram.record(0.75));
+        assertFalse(histogram.record(-1));
+        assertFalse(histogram.record(Double.NaN));
+        assertFalse(histogram.record(1e30));
+        assertEquals(0, histogram.getValueAtPercentile(30), 0);
+        assertClose(0.25, histogram.getValueAtPercentile(50));
+        assertEquals(0.75, histogram.getValueAtPercentile(99), 0);
+    }
+
+    @Test
+    public void testMetricsOfMergedHistograms() {
+        LogMetrics first = new LogMetrics();
+        first.setMetricPrefix("Custom Metrics|Log Monitor");
+        LogMetrics second = new LogMetrics();
+        for (int i = 1; i <= 50; i++) {
+            first.getValueHistogram(KEY).record(i);
+            second.getValueHistogram(KEY).record(i + 50);
+        }
+        first.merge(second);
+
+        Map<String, Metric> metrics = first.getMetrics();
+        assertEquals(6, metrics.size());
+        assertEquals("100", metrics.get(KEY + "Count").getMetricValue());
+        assertEquals("1", metrics.get(KEY + "Min").getMetricValue());
+        assertEquals("100", metrics.get(KEY + "Max").getMetricValue());
+        assertEquals("50", metrics.get(KEY + "P50").getMetricValue());
+        assertEquals("95", metrics.get(KEY + "P95").getMetricValue());
+        assertEquals("99", metrics.get(KEY + "P99").getMetricValue());
+        assertEquals("Custom Metrics|Log Monitor|" + KEY + "P99", metrics.get(KEY + "P99").getMetricPath());
+    }
+
+    @Test
+    public void testOnlyTheCountIsReportedWithoutValues() {
+        LogMetrics logMetrics = new LogMetrics();
+        logMetrics.getValueHistogram(KEY);
+        Map<String, Metric> metrics = logMetrics.getMetrics();
+        assertEquals(1, metrics.size());
+        assertEquals("0", metrics.get(KEY + "Count").getMetricValue());
+    }
+
+    private void assertClose(double expected, double actual) {
+        assertTrue(expected + " ~ " + actual, Math.abs(actual - expected) <= expected * 0.004);
+    }
+}
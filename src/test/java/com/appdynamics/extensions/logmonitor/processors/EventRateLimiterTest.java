@@ -0,0 +1,70 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.processors;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EventRateLimiterTest {
+
+    @Test
+    public void testBurstIsLimitedThenRefilledAtTheRate() {
+        EventRateLimiter limiter = new EventRateLimiter(60, 1);
+        long now = System.nanoTime();
+        int sent = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (limiter.takeToken(now)) {
+                sent++;
+            }
+        }
+        assertEquals(60, sent);
+        assertFalse(limiter.takeToken(now + TimeUnit.MILLISECONDS.toNanos(500)));
+        assertTrue(limiter.takeToken(now + TimeUnit.SECONDS.toNanos(1)));
+        assertFalse(limiter.takeToken(now + TimeUnit.SECONDS.toNanos(1)));
+
+        sent = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (limiter.takeToken(now + TimeUnit.HOURS.toNanos(1))) {
+                sent++;
+            }
+        }
+        assertEquals(60, sent);
+    }
+
+    @Test
+    public void testMatchesAreSampledAtTheRate() {
+        EventRateLimiter limiter = new EventRateLimiter(null, 0.1);
+        int sent = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (limiter.tryAcquire()) {
+                sent++;
+            }
+        }
+        assertTrue("sent " + sent, sent > 9000 && sent < 11000);
+    }
+
+    @Test
+    public void testLimitersAreKeptUntilTheirConfigChanges() {
+        String metricPath = "Custom Metrics|Log Monitor|TestLog|Search String|Errors|";
+        assertNull(EventRateLimiter.forSearchString(metricPath, null, 1));
+        EventRateLimiter limiter = EventRateLimiter.forSearchString(metricPath, 100, 1);
+        assertSame(limiter, EventRateLimiter.forSearchString(metricPath, 100, 1));
+        assertNotSame(limiter, EventRateLimiter.forSearchString(metricPath, 100, 0.5));
+        assertNotSame(limiter, EventRateLimiter.forSearchString(metricPath + "Other|", 100, 1));
+        assertNull(EventRateLimiter.forSearchString(metricPath, null, 1));
+    }
+}
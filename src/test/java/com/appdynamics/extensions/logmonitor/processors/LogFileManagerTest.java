@@ -12,17 +12,20 @@ import com.appdynamics.extensions.AMonitorJob;
 import com.appdynamics.extensions.conf.MonitorContextConfiguration;
 import com.appdynamics.extensions.eventsservice.EventsServiceDataManager;
 import com.appdynamics.extensions.logmonitor.LogEvent;
+import com.appdynamics.extensions.logmonitor.LogEventPublisher;
 import com.appdynamics.extensions.logmonitor.config.FilePointer;
 import com.appdynamics.extensions.logmonitor.config.Log;
 import com.appdynamics.extensions.logmonitor.config.SearchPattern;
 import com.appdynamics.extensions.logmonitor.config.SearchString;
 import com.appdynamics.extensions.logmonitor.metrics.LogMetrics;
+import com.appdynamics.extensions.logmonitor.reader.BufferedLogReader;
+import com.appdynamics.extensions.logmonitor.reader.LogReader;
+import com.appdynamics.extensions.logmonitor.util.EventOverflowPolicy;
 import com.appdynamics.extensions.logmonitor.util.LogMonitorUtil;
 import com.appdynamics.extensions.metrics.Metric;
 import com.appdynamics.extensions.util.MetricPathUtils;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
-import org.bitbucket.kienerj.OptimizedRandomAccessFile;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -34,7 +37,9 @@ import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.io.*;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -108,6 +113,181 @@ public class LogFileManagerTest {
                 metrics.get("TestLog|File size (Bytes)").getMetricValue());
     }
 
+    @Test
+    public void testProcessorWhenReaderModeIsMapped() throws Exception {
+        Log log = new Log();
+        log.setDisplayName("TestLog");
+        log.setLogDirectory("src/test/resources/");
+        log.setLogName("test-log-1.log");
+        log.setReaderMode("mapped");
+
+        SearchString searchString = new SearchString();
+        searchString.setCaseSensitive(false);
+        searchString.setMatchExactString(true);
+        searchString.setPattern("debug");
+        searchString.setDisplayName("Debug");
+        searchString.setPrintMatchedString(false);
+
+        SearchString searchString1 = new SearchString();
+        searchString1.setCaseSensitive(false);
+        searchString1.setMatchExactString(true);
+        searchString1.setPattern("error");
+        searchString1.setDisplayName("Error");
+        searchString1.setPrintMatchedString(false);
+
+        log.setSearchStrings(Lists.newArrayList(searchString, searchString1));
+
+        FilePointer filePointer = new FilePointer();
+        filePointer.setFilename(log.getLogDirectory() + log.getLogName());
+        when(mockFilePointerProcessor.getFilePointer(anyString(), anyString())).thenReturn(filePointer);
+
+        monitorContextConfiguration.setConfigYml("src/test/resources/conf/config.yaml");
+
+        classUnderTest = new LogFileManager(mockFilePointerProcessor, log, monitorContextConfiguration);
+        LogMetrics logMetrics = classUnderTest.processLogMetrics();
+        Map<String, Metric> metrics = logMetrics.getMetrics();
+
+        assertEquals("13", metrics.get("TestLog|Search String|Debug|Occurrences").getMetricValue());
+        assertEquals("7", metrics.get("TestLog|Search String|Error|Occurrences").getMetricValue());
+        assertEquals(getFileSize(log.getLogDirectory(), log.getLogName()),
+                metrics.get("TestLog|File size (Bytes)").getMetricValue());
+        FilePointer latestFilePointer = LogMonitorUtil.getLatestFilePointer(logMetrics.getFilePointers());
+        assertEquals(Long.parseLong(getFileSize(log.getLogDirectory(), log.getLogName())),
+                latestFilePointer.getLastReadPosition().get());
+    }
+
+    @Test
+    public void testProcessorWhenReadBufferIsSmallerThanALine() throws Exception {
+        Log log = new Log();
+        log.setDisplayName("TestLog");
+        log.setLogDirectory("src/test/resources/");
+        log.setLogName("test-log-1.log");
+        log.setReaderMode("channel");
+        log.setReadBufferSize(16);
+
+        SearchString searchString = new SearchString();
+        searchString.setCaseSensitive(false);
+        searchString.setMatchExactString(true);
+        searchString.setPattern("debug");
+        searchString.setDisplayName("Debug");
+        searchString.setPrintMatchedString(false);
+
+        SearchString searchString1 = new SearchString();
+        searchString1.setCaseSensitive(false);
+        searchString1.setMatchExactString(true);
+        searchString1.setPattern("error");
+        searchString1.setDisplayName("Error");
+        searchString1.setPrintMatchedString(false);
+
+        log.setSearchStrings(Lists.newArrayList(searchString, searchString1));
+
+        FilePointer filePointer = new FilePointer();
+        filePointer.setFilename(log.getLogDirectory() + log.getLogName());
+        when(mockFilePointerProcessor.getFilePointer(anyString(), anyString())).thenReturn(filePointer);
+
+        monitorContextConfiguration.setConfigYml("src/test/resources/conf/config.yaml");
+
+        classUnderTest = new LogFileManager(mockFilePointerProcessor, log, monitorContextConfiguration);
+        LogMetrics logMetrics = classUnderTest.processLogMetrics();
+        Map<String, Metric> metrics = logMetrics.getMetrics();
+
+        assertEquals("13", metrics.get("TestLog|Search String|Debug|Occurrences").getMetricValue());
+        assertEquals("7", metrics.get("TestLog|Search String|Error|Occurrences").getMetricValue());
+        assertEquals(getFileSize(log.getLogDirectory(), log.getLogName()),
+                metrics.get("TestLog|File size (Bytes)").getMetricValue());
+        FilePointer latestFilePointer = LogMonitorUtil.getLatestFilePointer(logMetrics.getFilePointers());
+        assertEquals(Long.parseLong(getFileSize(log.getLogDirectory(), log.getLogName())),
+                latestFilePointer.getLastReadPosition().get());
+    }
+
+    @Test
+    public void testProcessorWhenFileIsScannedInParallelChunks() throws Exception {
+        Log log = new Log();
+        log.setDisplayName("TestLog");
+        log.setLogDirectory("src/test/resources/");
+        log.setLogName("test-log-1.log");
+        log.setParallelChunkSize(300);
+
+        SearchString searchString = new SearchString();
+        searchString.setCaseSensitive(false);
+        searchString.setMatchExactString(true);
+        searchString.setPattern("debug");
+        searchString.setDisplayName("Debug");
+        searchString.setPrintMatchedString(false);
+
+        SearchString searchString1 = new SearchString();
+        searchString1.setCaseSensitive(false);
+        searchString1.setMatchExactString(true);
+        searchString1.setPattern("error");
+        searchString1.setDisplayName("Error");
+        searchString1.setPrintMatchedString(false);
+
+        log.setSearchStrings(Lists.newArrayList(searchString, searchString1));
+
+        FilePointer filePointer = new FilePointer();
+        filePointer.setFilename(log.getLogDirectory() + log.getLogName());
+        when(mockFilePointerProcessor.getFilePointer(anyString(), anyString())).thenReturn(filePointer);
+
+        monitorContextConfiguration.setConfigYml("src/test/resources/conf/config.yaml");
+
+        classUnderTest = new LogFileManager(mockFilePointerProcessor, log, monitorContextConfiguration);
+        LogMetrics logMetrics = classUnderTest.processLogMetrics();
+        Map<String, Metric> metrics = logMetrics.getMetrics();
+
+        assertEquals("13", metrics.get("TestLog|Search String|Debug|Occurrences").getMetricValue());
+        assertEquals("7", metrics.get("TestLog|Search String|Error|Occurrences").getMetricValue());
+        assertEquals(getFileSize(log.getLogDirectory(), log.getLogName()),
+                metrics.get("TestLog|File size (Bytes)").getMetricValue());
+        FilePointer latestFilePointer = LogMonitorUtil.getLatestFilePointer(logMetrics.getFilePointers());
+        assertEquals(Long.parseLong(getFileSize(log.getLogDirectory(), log.getLogName())),
+                latestFilePointer.getLastReadPosition().get());
+    }
+
+    @Test
+    public void testEventsOfParallelChunksArePublishedInFileOrder() throws Exception {
+        Log log = new Log();
+        log.setDisplayName("TestLog");
+        log.setLogDirectory("src/test/resources/");
+        log.setLogName("test-log-1.log");
+
+        SearchString searchString = new SearchString();
+        searchString.setCaseSensitive(false);
+        searchString.setMatchExactString(true);
+        searchString.setPattern("debug");
+        searchString.setDisplayName("Debug");
+        searchString.setPrintMatchedString(false);
+
+        log.setSearchStrings(Lists.newArrayList(searchString));
+
+        FilePointer filePointer = new FilePointer();
+        filePointer.setFilename(log.getLogDirectory() + log.getLogName());
+        when(mockFilePointerProcessor.getFilePointer(anyString(), anyString())).thenReturn(filePointer);
+
+        monitorContextConfiguration.setConfigYml("src/test/resources/conf/config-eventsService.yaml");
+
+        List<String> expectedMatches = new ArrayList<String>();
+        for (LogEvent logEvent : new LogFileManager(mockFilePointerProcessor, log, monitorContextConfiguration)
+                .processLogMetrics().getEventsToBePublished()) {
+            expectedMatches.add(logEvent.getLogMatch());
+        }
+
+        final List<String> publishedMatches = Collections.synchronizedList(new ArrayList<String>());
+        LogEventPublisher logEventPublisher = new LogEventPublisher(null, 100, 10, 60000, EventOverflowPolicy.BLOCK) {
+            @Override
+            public boolean publish(LogEvent logEvent) {
+                publishedMatches.add(logEvent.getLogMatch());
+                return true;
+            }
+        };
+        log.setParallelChunkSize(300);
+        new LogFileManager(mockFilePointerProcessor, log, monitorContextConfiguration, logEventPublisher)
+                .processLogMetrics();
+        logEventPublisher.stop();
+
+        assertEquals(13, expectedMatches.size());
+        assertEquals(expectedMatches, publishedMatches);
+    }
+
     @Test
     public void testProcessorWhenPrintMatchedStringIsTrue() throws Exception {
         PowerMockito.mockStatic(MetricPathUtils.class);
@@ -205,8 +385,6 @@ public class LogFileManagerTest {
         assertEquals("5", metrics.get("TestUTF16Log|Search String|Debug|Occurrences").getMetricValue());
         assertEquals("5", metrics.get("TestUTF16Log|Search String|Info|Occurrences").getMetricValue());
         assertEquals("0", metrics.get("TestUTF16Log|Search String|Error|Occurrences").getMetricValue());
-
-        revertToUTF16Encoding(new File(log.getLogDirectory() + log.getLogName()));
     }
 
     @Test
@@ -640,14 +818,54 @@ public class LogFileManagerTest {
         FilePointer filePointer = new FilePointer();
         filePointer.setFilename(log.getLogDirectory() + log.getLogName());
 
-        OptimizedRandomAccessFile randomAccessFile = new OptimizedRandomAccessFile(new File("src/test/resources/test-log-4-events-service.log"), "r");
+        LogReader logReader = new BufferedLogReader(new File("src/test/resources/test-log-4-events-service.log"));
 
         int offset = 5;
 
-        LogEventsProcessor classUnderTest = new LogEventsProcessor(eventsServiceDataManager, offset, log);
-        LogEvent logEvent = classUnderTest.processLogEvent(searchPattern, randomAccessFile, "");
+        LogMetrics logMetrics = new LogMetrics();
+        LogEventsProcessor classUnderTest = new LogEventsProcessor(eventsServiceDataManager, 0, offset, log,
+                logMetrics);
+        processLines(classUnderTest, logReader, searchPattern, 1);
 
-        Assert.assertEquals("1\n1\n2\n3\n4\n", logEvent.getLogMatch());
+        LogEvent logEvent = logMetrics.getEventsToBePublished().get(0);
+        Assert.assertEquals("1\n1\n2\n3\n4\n5", logEvent.getLogMatch());
+    }
+
+    @Test
+    public void testLogEventGeneratorWithLinesBeforeAndAfter() throws Exception {
+        EventsServiceDataManager eventsServiceDataManager = Mockito.mock(EventsServiceDataManager.class);
+        Mockito.when(eventsServiceDataManager.retrieveSchema(SCHEMA_NAME)).thenReturn("Hello world");
+        Log log = new Log();
+        log.setDisplayName("TestLog");
+        log.setLogDirectory("src/test/resources/");
+        log.setLogName("test-log-4-events-service.log");
+
+        SearchPattern searchPattern = new SearchPattern("Test Patterns", Pattern.compile("4"), false, false );
+
+        LogReader logReader = new BufferedLogReader(new File("src/test/resources/test-log-4-events-service.log"));
+
+        LogMetrics logMetrics = new LogMetrics();
+        LogEventsProcessor classUnderTest = new LogEventsProcessor(eventsServiceDataManager, 3, 1, log, logMetrics);
+        processLines(classUnderTest, logReader, searchPattern, 5);
+
+        Assert.assertEquals(1, logMetrics.getEventsToBePublished().size());
+        Assert.assertEquals("1\n2\n3\n4\n5", logMetrics.getEventsToBePublished().get(0).getLogMatch());
+    }
+
+    private void processLines(LogEventsProcessor logEventsProcessor, LogReader logReader,
+                              SearchPattern searchPattern, int matchingLineNumber) throws Exception {
+        try {
+            CharSequence line;
+            int lineNumber = 0;
+            while ((line = logReader.readLine()) != null) {
+                lineNumber++;
+                logEventsProcessor.processLine(line, lineNumber == matchingLineNumber
+                        ? Lists.newArrayList(searchPattern) : Lists.<SearchPattern>newArrayList());
+            }
+            logEventsProcessor.flush();
+        } finally {
+            logReader.close();
+        }
     }
     
 
@@ -692,19 +910,4 @@ public class LogFileManagerTest {
         return new File("./target");
     }
 
-    private void revertToUTF16Encoding(File file) throws Exception {
-        String charset = "UTF-8";
-        BufferedReader in = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), charset));
-        String line;
-        StringBuilder sb = new StringBuilder();
-        while ((line = in.readLine()) != null) {
-            sb.append(line);
-            sb.append("\n");
-        }
-        OutputStream outputStream = new FileOutputStream(file, false);
-        Writer outputStreamWriter = new OutputStreamWriter(outputStream, "UTF-16LE");
-        outputStreamWriter.write(sb.toString());
-        outputStreamWriter.close();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.processors;
+
+import com.appdynamics.extensions.logmonitor.config.Log;
+import com.appdynamics.extensions.logmonitor.reader.LogReader;
+import com.appdynamics.extensions.logmonitor.util.LogMonitorUtil;
+import com.appdynamics.extensions.logmonitor.util.TimestampParser;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LogStartLocatorTest {
+    private static final long FIRST_TIMESTAMP = 1614593742000L;
+
+    @Test
+    public void testFirstLineAtOrAfterTheTimestampIsFound() throws IOException {
+        File file = File.createTempFile("start-locator", ".log");
+        try {
+            // one record per second, every tenth followed by a stack trace without timestamps
+            List<Long> recordStarts = writeLog(file, 5000);
+            for (String readerMode : new String[]{"channel", "mapped", "buffered"}) {
+                for (int record : new int[]{0, 1, 9, 10, 11, 2499, 2500, 4990, 4999}) {
+                    assertEquals(readerMode + " " + record, (long) recordStarts.get(record),
+                            locate(file, readerMode, FIRST_TIMESTAMP + record * 1000L));
+                    assertEquals(readerMode + " " + record, (long) recordStarts.get(record),
+                            locate(file, readerMode, FIRST_TIMESTAMP + record * 1000L - 500));
+                }
+                assertEquals(readerMode, 0, locate(file, readerMode, FIRST_TIMESTAMP - 86400000));
+                assertEquals(readerMode, file.length(), locate(file, readerMode, FIRST_TIMESTAMP + 86400000));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLookbackDurationsAreParsed() {
+        assertEquals(Long.valueOf(30000), LogMonitorUtil.getLookbackMillis("30s"));
+        assertEquals(Long.valueOf(900000), LogMonitorUtil.getLookbackMillis("15m"));
+        assertEquals(Long.valueOf(7200000), LogMonitorUtil.getLookbackMillis("2h"));
+        assertEquals(Long.valueOf(86400000), LogMonitorUtil.getLookbackMillis("1d"));
+        assertNull(LogMonitorUtil.getLookbackMillis("15"));
+        assertNull(LogMonitorUtil.getLookbackMillis("-1h"));
+        assertNull(LogMonitorUtil.getLookbackMillis("1w"));
+        assertNull(LogMonitorUtil.getLookbackMillis("end"));
+    }
+
+    private long locate(File file, String readerMode, long timestamp) throws IOException {
+        Log log = new Log();
+        log.setReaderMode(readerMode);
+        LogReader logReader = LogMonitorUtil.createLogReader(file, log);
+        try {
+            return LogStartLocator.findFirstLineAtOrAfter(logReader,
+                    new TimestampParser(TimestampParser.AUTO, null), timestamp);
+        } finally {
+            LogMonitorUtil.closeLogReader(logReader);
+        }
+    }
+
+    private List<Long> writeLog(File file, int records) throws IOException {
+        List<Long> recordStarts = new ArrayList<Long>();
+        long position = 0;
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+        try {
+            for (int record = 0; record < records; record++) {
+                recordStarts.add(position);
+                StringBuilder lines = new StringBuilder();
+                lines.append(Instant.ofEpochMilli(FIRST_TIMESTAMP + record * 1000L))
+                        .append(" INFO record ").append(record).append('\n');
+                if (record % 10 == 0) {
+                    lines.append("java.lang.IllegalStateException: record ").append(record).append('\n')
+                            .append("\tat com.example.Main.main(Main.java:10)\n");
+                }
+                writer.write(lines.toString());
+                position += lines.toString().getBytes(StandardCharsets.UTF_8).length;
+            }
+        } finally {
+            writer.close();
+        }
+        return recordStarts;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.reader;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ChannelLogReaderTest {
+    private File testFile = new File("./target/channel-reader-test.log");
+
+    @Test
+    public void testUTF16LogIsReadWithoutRewritingTheFile() throws Exception {
+        byte[] content = withBom(new byte[]{(byte) 0xFF, (byte) 0xFE},
+                "ERROR caf\u00e9\r\nINFO second\n".getBytes(StandardCharsets.UTF_16LE));
+        writeTestFile(content);
+        ChannelLogReader reader = new ChannelLogReader(testFile, Charset.forName("UTF-16"), 6);
+        try {
+            assertEquals("ERROR caf\u00e9", reader.readLine().toString());
+            assertEquals(2 + 24, reader.getFilePointer());
+            assertEquals("INFO second", reader.readLine().toString());
+            assertNull(reader.readLine());
+        } finally {
+            reader.close();
+        }
+        assertEquals(content.length, testFile.length());
+    }
+
+    @Test
+    public void testByteOrderMarkPicksByteOrder() throws Exception {
+        writeTestFile(withBom(new byte[]{(byte) 0xFE, (byte) 0xFF}, "one\ntwo".getBytes(StandardCharsets.UTF_16BE)));
+        ChannelLogReader reader = new ChannelLogReader(testFile, Charset.forName("UTF-16"));
+        try {
+            assertEquals("one", reader.readLine().toString());
+            assertEquals("two", reader.readLine().toString());
+            assertEquals(testFile.length(), reader.getFilePointer());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testReadingResumesFromByteOffsetInUTF32() throws Exception {
+        writeTestFile("alpha\nbeta\ngamma\n".getBytes(Charset.forName("UTF-32LE")));
+        ChannelLogReader reader = new ChannelLogReader(testFile, Charset.forName("UTF-32LE"), 8);
+        try {
+            reader.seek(24);
+            assertEquals("beta", reader.readLine().toString());
+            assertEquals(44, reader.getFilePointer());
+            assertEquals("gamma", reader.readLine().toString());
+            assertNull(reader.readLine());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testPartiallyWrittenCodeUnitIsLeftForTheNextRun() throws Exception {
+        byte[] complete = "done\nnext".getBytes(StandardCharsets.UTF_16LE);
+        byte[] content = new byte[complete.length + 1];
+        System.arraycopy(complete, 0, content, 0, complete.length);
+        content[complete.length] = '\n';
+        writeTestFile(content);
+        ChannelLogReader reader = new ChannelLogReader(testFile, StandardCharsets.UTF_16LE);
+        try {
+            assertEquals("done", reader.readLine().toString());
+            assertEquals("next", reader.readLine().toString());
+            assertEquals(complete.length, reader.getFilePointer());
+            assertNull(reader.readLine());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testUTF8CharactersSplitAcrossBufferRefillsAreDecoded() throws Exception {
+        writeTestFile("caf\u00e9 ERROR \u65e5\u672c\nnext".getBytes(StandardCharsets.UTF_8));
+        ChannelLogReader reader = new ChannelLogReader(testFile, StandardCharsets.UTF_8, 4);
+        try {
+            assertEquals("caf\u00e9 ERROR \u65e5\u672c", reader.readLine().toString());
+            assertEquals(19, reader.getFilePointer());
+            assertEquals("next", reader.readLine().toString());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testReadBufferIsReusedOnTheSameThread() throws Exception {
+        ByteBuffer buffer = ReadBufferPool.acquire(64);
+        assertNotSame(buffer, ReadBufferPool.acquire(64));
+        ReadBufferPool.release(buffer);
+        assertSame(buffer, ReadBufferPool.acquire(32));
+    }
+
+    @After
+    public void deleteTestFile() {
+        if (testFile.exists()) {
+            testFile.delete();
+        }
+    }
+
+    private byte[] withBom(byte[] bom, byte[] content) {
+        byte[] bytes = new byte[bom.length + content.length];
+        System.arraycopy(bom, 0, bytes, 0, bom.length);
+        System.arraycopy(content, 0, bytes, bom.length, content.length);
+        return bytes;
+    }
+
+    private void writeTestFile(byte[] content) throws Exception {
+        OutputStream outputStream = new FileOutputStream(testFile, false);
+        try {
+            outputStream.write(content);
+        } finally {
+            outputStream.close();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.reader;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class MappedLogReaderTest {
+    private File testFile = new File("./target/mapped-reader-test.log");
+
+    @Test
+    public void testLinesSpanningWindowsAreReassembled() throws Exception {
+        writeTestFile("first line\r\nsecond line that is long\nthird\rfourth");
+        MappedLogReader reader = new MappedLogReader(testFile, 4);
+        try {
+            assertEquals("first line", reader.readLine().toString());
+            assertEquals(12, reader.getFilePointer());
+            assertEquals("second line that is long", reader.readLine().toString());
+            assertEquals("third", reader.readLine().toString());
+            assertEquals("fourth", reader.readLine().toString());
+            assertEquals(testFile.length(), reader.getFilePointer());
+            assertNull(reader.readLine());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testReadingResumesFromSeekPosition() throws Exception {
+        writeTestFile("alpha\nbeta\ngamma\n");
+        MappedLogReader reader = new MappedLogReader(testFile, 8);
+        try {
+            reader.seek(6);
+            assertEquals("beta", reader.readLine().toString());
+            assertEquals("gamma", reader.readLine().toString());
+            assertEquals(17, reader.getFilePointer());
+            assertNull(reader.readLine());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testMultiByteCharactersAreDecoded() throws Exception {
+        writeTestFile("caf\u00e9 ERROR \u65e5\u672c\nnext");
+        MappedLogReader reader = new MappedLogReader(testFile, 3);
+        try {
+            assertEquals("caf\u00e9 ERROR \u65e5\u672c", reader.readLine().toString());
+            assertEquals("next", reader.readLine().toString());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testLineViewIsReusedAcrossReads() throws Exception {
+        writeTestFile("one\ntwo\n");
+        MappedLogReader reader = new MappedLogReader(testFile, 8);
+        try {
+            CharSequence first = reader.readLine();
+            CharSequence second = reader.readLine();
+            assertSame(first, second);
+            assertEquals("two", second.toString());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @After
+    public void deleteTestFile() {
+        if (testFile.exists()) {
+            testFile.delete();
+        }
+    }
+
+    private void writeTestFile(String content) throws Exception {
+        OutputStream outputStream = new FileOutputStream(testFile, false);
+        try {
+            outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            outputStream.close();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.reader;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MultiLineLogReaderTest {
+    private static final Pattern EVENT_START = Pattern.compile("^\\d{4}-\\d{2}-\\d{2} ");
+    private static final String FIRST = "2021-03-01 10:15:42 INFO started\n";
+    private static final String SECOND = "2021-03-01 10:15:43 ERROR failed\n" +
+            "java.lang.IllegalStateException: closed\n" +
+            "\tat com.foo.Connection.send(Connection.java:42)\n" +
+            "\tat com.foo.Main.main(Main.java:10)\n";
+    private static final String THIRD = "2021-03-01 10:15:44 INFO stopped";
+    private File testFile = new File("./target/multi-line-reader-test.log");
+
+    @Test
+    public void testContinuationLinesAreJoinedToTheirRecord() throws Exception {
+        writeTestFile(FIRST + SECOND + THIRD);
+        MultiLineLogReader reader = new MultiLineLogReader(new ChannelLogReader(testFile), EVENT_START, 100);
+        try {
+            assertEquals(0, reader.getFilePointer());
+            assertEquals("2021-03-01 10:15:42 INFO started", reader.readLine().toString());
+            assertEquals(FIRST.length(), reader.getFilePointer());
+            CharSequence record = reader.readLine();
+            assertEquals(SECOND.substring(0, SECOND.length() - 1), record.toString());
+            assertTrue(Pattern.compile("Exception.*\\n\\tat com\\.foo").matcher(record).find());
+            assertEquals(FIRST.length() + SECOND.length(), reader.getFilePointer());
+            assertEquals(THIRD, reader.readLine().toString());
+            assertEquals(testFile.length(), reader.getFilePointer());
+            assertNull(reader.readLine());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testRecordsAreCutAtTheMaxLines() throws Exception {
+        writeTestFile(SECOND + THIRD);
+        MultiLineLogReader reader = new MultiLineLogReader(new ChannelLogReader(testFile), EVENT_START, 2);
+        try {
+            assertEquals("2021-03-01 10:15:43 ERROR failed\njava.lang.IllegalStateException: closed",
+                    reader.readLine().toString());
+            assertEquals("\tat com.foo.Connection.send(Connection.java:42)\n\tat com.foo.Main.main(Main.java:10)",
+                    reader.readLine().toString());
+            assertEquals(THIRD, reader.readLine().toString());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testReadingResumesFromARecordPosition() throws Exception {
+        writeTestFile(FIRST + SECOND + THIRD);
+        MultiLineLogReader reader = new MultiLineLogReader(new MappedLogReader(testFile, 16), EVENT_START, 100);
+        try {
+            reader.readLine();
+            reader.readLine();
+            long position = reader.getFilePointer();
+            reader.seek(FIRST.length() + 73);
+            assertEquals("\tat com.foo.Connection.send(Connection.java:42)\n\tat com.foo.Main.main(Main.java:10)",
+                    reader.readLine().toString());
+            reader.seek(position);
+            assertEquals(THIRD, reader.readLine().toString());
+            assertNull(reader.readLine());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @After
+    public void deleteTestFile() {
+        if (testFile.exists()) {
+            testFile.delete();
+        }
+    }
+
+    private void writeTestFile(String content) throws Exception {
+        OutputStream outputStream = new FileOutputStream(testFile, false);
+        try {
+            outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            outputStream.close();
+        }
+    }
+}
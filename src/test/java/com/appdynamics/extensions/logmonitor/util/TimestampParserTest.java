@@ -0,0 +1,83 @@
+/*
+ *  Copyright 2021. AppDynamics LLC and its affiliates.
+ *  All Rights Reserved.
+ *  This is unpublished proprietary source code of AppDynamics LLC and its affiliates.
+ *  The copyright notice above does not evidence any actual or intended publication of such source code.
+ *
+ */
+
+package com.appdynamics.extensions.logmonitor.util;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static com.appdynamics.extensions.logmonitor.util.TimestampParser.NO_TIMESTAMP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TimestampParserTest {
+
+    @Test
+    public void testLeadingIsoTimestampsAreDetected() {
+        TimestampParser parser = new TimestampParser(TimestampParser.AUTO, null);
+        assertEquals(1614593742123L, parser.parse("2021-03-01T10:15:42.123Z ERROR timeout"));
+        assertEquals(1614593742500L, parser.parse("[2021-03-01 10:15:42,5Z] INFO started"));
+        assertEquals(1614593742000L, parser.parse("2021-03-01T12:15:42+02:00 DEBUG x"));
+        assertEquals(1614593743000L + 5 * 3600000 + 30 * 60000, parser.parse("2021/03/01 10:15:43-0530 x"));
+        assertEquals(local(2021, 3, 1, 10, 15, 44), parser.parse("2021-03-01 10:15:44 WARN no offset"));
+    }
+
+    @Test
+    public void testLinesWithoutTimestampAreRecognized() {
+        TimestampParser parser = new TimestampParser(TimestampParser.AUTO, null);
+        assertEquals(NO_TIMESTAMP, parser.parse("\tat com.example.Main.main(Main.java:10)"));
+        assertEquals(NO_TIMESTAMP, parser.parse("2021-03-01"));
+        assertEquals(NO_TIMESTAMP, parser.parse("2021-13-01 10:15:42 month out of range"));
+        assertEquals(NO_TIMESTAMP, parser.parse(""));
+    }
+
+    @Test
+    public void testConfiguredFormatIsParsedWhereThePatternMatches() {
+        TimestampParser parser = new TimestampParser("dd MMM yyyy HH:mm:ss,SSS",
+                "\\d{2} \\w{3} \\d{4} \\d{2}:\\d{2}");
+        assertEquals(local(2014, 4, 29, 12, 31, 18) + 647,
+                parser.parse("[Thread-1] 29 Apr 2014 12:31:18,647  INFO DynamicServiceManager - Scheduling"));
+        assertEquals(NO_TIMESTAMP, parser.parse("java.lang.NullPointerException"));
+
+        TimestampParser leading = new TimestampParser("yyyyMMdd'T'HHmmss", null);
+        assertEquals(local(2021, 3, 1, 10, 15, 42), leading.parse("20210301T101542 message"));
+        assertEquals(NO_TIMESTAMP, leading.parse("message 20210301T101542"));
+    }
+
+    @Test
+    public void testLinesOfTheSameMinuteOnlyDifferInTheirSeconds() {
+        TimestampParser parser = new TimestampParser("MM/dd/yyyy hh:mm:ss.SSS a", null);
+        assertEquals(local(2021, 3, 1, 22, 15, 42) + 123, parser.parse("03/01/2021 10:15:42.123 PM x"));
+        assertEquals(local(2021, 3, 1, 22, 15, 59) + 9, parser.parse("03/01/2021 10:15:59.009 PM x"));
+        assertEquals(local(2021, 3, 1, 10, 15, 59), parser.parse("03/01/2021 10:15:59.000 AM x"));
+        assertEquals(local(2021, 3, 1, 10, 16, 0), parser.parse("03/01/2021 10:16:00.000 AM x"));
+        assertEquals(local(2021, 3, 2, 10, 16, 1), parser.parse("03/02/2021 10:16:01.000 AM x"));
+        assertEquals(NO_TIMESTAMP, parser.parse("03/02/2021 10:16:61.000 AM x"));
+        assertEquals(NO_TIMESTAMP, parser.parse("at com.example.Main.main(Main.java:10)"));
+
+        TimestampParser optionalOffset = new TimestampParser("yyyy-MM-dd HH:mm:ss[XXX]", null);
+        assertEquals(1614593742000L, optionalOffset.parse("2021-03-01 12:15:42+02:00 x"));
+        assertEquals(local(2021, 3, 1, 12, 15, 43), optionalOffset.parse("2021-03-01 12:15:43 x"));
+    }
+
+    @Test
+    public void testInvalidFormatsAreRejected() {
+        try {
+            new TimestampParser("yyyy-MM-dd bb", null);
+            fail("Expected the format to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private long local(int year, int month, int day, int hour, int minute, int second) {
+        return LocalDateTime.of(year, month, day, hour, minute, second).atZone(ZoneId.systemDefault()).toInstant()
+                .toEpochMilli();
+    }
+}